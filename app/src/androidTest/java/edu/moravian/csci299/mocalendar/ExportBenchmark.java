@@ -0,0 +1,166 @@
+package edu.moravian.csci299.mocalendar;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.os.Bundle;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Measures how fast a million events are exported in each format and how much of the heap the
+ * export uses, against a database opened the same way the repository opens it. The export is
+ * written to a stream that only counts bytes, so the time is the cursor and the formatting. The
+ * results are logged and reported as instrumentation status as JSON. Run with
+ * <code>./gradlew connectedAndroidTest -Pandroid.testInstrumentationRunnerArguments.class=edu.moravian.csci299.mocalendar.ExportBenchmark</code>
+ */
+@RunWith(AndroidJUnit4.class)
+public class ExportBenchmark {
+    private static final String TAG = "ExportBenchmark";
+    private static final int EVENTS = 1000000;
+    private static final int INSERT_BATCH = 10000;
+    private static final int DAYS = 4 * 365;
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        Metrics.reset();
+        Metrics.setEnabled(true);
+    }
+
+    @After
+    public void tearDown() {
+        Metrics.setEnabled(false);
+        Metrics.reset();
+    }
+
+    @Test
+    public void exportThroughputAndMemory() throws Exception {
+        DatabaseConfig config = new DatabaseConfig.Builder().setName("export-benchmark").build();
+        context.deleteDatabase(config.name);
+        Executor readExecutor = config.createReadExecutor();
+        ScheduledExecutorService writeExecutor = config.createWriteExecutor();
+        CalendarDataBase database = config.openDatabase(context, readExecutor, writeExecutor);
+        try {
+            CalendarDao dao = database.calendarDao();
+            long first = DateUtils.startOfDay(System.currentTimeMillis());
+            writeExecutor.submit(() -> {
+                Random random = new Random(1);
+                for (int i = 0; i < EVENTS; i += INSERT_BATCH) {
+                    dao.addEvents(randomEvents(random, i, INSERT_BATCH, first));
+                }
+            }).get();
+
+            JSONObject results = new JSONObject();
+            for (EventExporter.Format format : EventExporter.Format.values()) {
+                results.put(format.name(), measure(dao, format));
+            }
+            results.put("metrics", Metrics.snapshot());
+            Log.i(TAG, results.toString(2));
+            Bundle status = new Bundle();
+            status.putString(TAG, results.toString());
+            InstrumentationRegistry.getInstrumentation().sendStatus(0, status);
+        } finally {
+            database.close();
+            writeExecutor.shutdown();
+            if (readExecutor instanceof ExecutorService) { ((ExecutorService) readExecutor).shutdown(); }
+            writeExecutor.awaitTermination(10, TimeUnit.SECONDS);
+            context.deleteDatabase(config.name);
+        }
+    }
+
+    /**
+     * Export every event once in a format, sampling the heap as the output is written.
+     */
+    private static JSONObject measure(CalendarDao dao, EventExporter.Format format) throws Exception {
+        Runtime runtime = Runtime.getRuntime();
+        runtime.gc();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+        HeapSamplingStream out = new HeapSamplingStream();
+        long start = System.nanoTime();
+        int exported;
+        try (Cursor cursor = dao.getEventCursor(new Date(Long.MIN_VALUE), new Date(Long.MAX_VALUE))) {
+            exported = new EventExporter(format, null).export(cursor, out);
+        }
+        long nanos = System.nanoTime() - start;
+        Metrics.record("export." + format.name(), nanos);
+        assertEquals(EVENTS, exported);
+        return new JSONObject()
+                .put("events", exported)
+                .put("bytes", out.bytes)
+                .put("eventsPerSecond", exported * 1000000000L / nanos)
+                .put("peakHeapGrowthBytes", out.peakHeap - heapBefore);
+    }
+
+    /**
+     * Discards what is written, counting the bytes and sampling the used heap every megabyte.
+     */
+    private static class HeapSamplingStream extends OutputStream {
+        private static final long SAMPLE_BYTES = 1024 * 1024;
+        private final Runtime runtime = Runtime.getRuntime();
+        long bytes, peakHeap;
+        private long nextSample;
+
+        @Override
+        public void write(int b) {
+            count(1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count(len);
+        }
+
+        private void count(int len) {
+            bytes += len;
+            if (bytes >= nextSample) {
+                peakHeap = Math.max(peakHeap, runtime.totalMemory() - runtime.freeMemory());
+                nextSample = bytes + SAMPLE_BYTES;
+            }
+        }
+    }
+
+    /**
+     * @return events of up to 2 hours at random minutes over the days from the first, where
+     *         every hundredth is a weekly series and every tenth has a reminder
+     */
+    private static List<Event> randomEvents(Random random, int offset, int count, long first) {
+        List<Event> events = new ArrayList<>(count);
+        for (int i = offset; i < offset + count; i++) {
+            Event event = new Event();
+            long start = first + random.nextInt(DAYS * 24 * 60) * 60000L;
+            event.startTime = new Date(start);
+            event.endTime = new Date(start + (15 + random.nextInt(106)) * 60000L);
+            event.name = "Event " + i;
+            event.description = "Description of event " + i;
+            if (i % 100 == 0) {
+                event.recurrence = new RecurrenceRule(RecurrenceRule.Frequency.WEEKLY, 1, 0, null, 10);
+                event.recurrenceEnd = new Date(event.recurrence.getSeriesEnd(start, event.endTime.getTime() - start));
+            }
+            if (i % 10 == 0) { event.reminderMinutes = 15; }
+            events.add(event);
+        }
+        return events;
+    }
+}
@@ -0,0 +1,141 @@
+package edu.moravian.csci299.mocalendar;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Measures how long loading a day takes while a bulk write (like an import) is being committed,
+ * with write-ahead logging and with a rollback journal, against a database opened the same way
+ * the repository opens it. The latencies are logged and reported as instrumentation status as
+ * JSON, in the format of Metrics.snapshot(). Run with
+ * <code>./gradlew connectedAndroidTest -Pandroid.testInstrumentationRunnerArguments.class=edu.moravian.csci299.mocalendar.ReadLatencyBenchmark</code>
+ */
+@RunWith(AndroidJUnit4.class)
+public class ReadLatencyBenchmark {
+    private static final String TAG = "ReadLatencyBenchmark";
+    private static final int DAYS = 90;
+    private static final int STORED_EVENTS = 5000;
+    private static final int WRITTEN_EVENTS = 20000;
+    private static final int IDLE_READS = 200;
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        Metrics.reset();
+        Metrics.setEnabled(true);
+    }
+
+    @After
+    public void tearDown() {
+        Metrics.setEnabled(false);
+        Metrics.reset();
+    }
+
+    @Test
+    public void readLatencyDuringBulkWrite() throws Exception {
+        measure("wal", true);
+        measure("truncate", false);
+        JSONObject snapshot = Metrics.snapshot();
+        Log.i(TAG, snapshot.toString(2));
+        Bundle results = new Bundle();
+        results.putString(TAG, snapshot.toString());
+        InstrumentationRegistry.getInstrumentation().sendStatus(0, results);
+    }
+
+    /**
+     * Fill a new database, then load random days with nothing else running and again while a
+     * single large insert is in progress, recording the latencies in Metrics.
+     */
+    private void measure(String name, boolean writeAheadLogging) throws Exception {
+        DatabaseConfig config = new DatabaseConfig.Builder()
+                .setName("read-latency-benchmark-" + name)
+                .setWriteAheadLogging(writeAheadLogging)
+                .build();
+        context.deleteDatabase(config.name);
+        Executor readExecutor = config.createReadExecutor();
+        ScheduledExecutorService writeExecutor = config.createWriteExecutor();
+        CalendarDataBase database = config.openDatabase(context, readExecutor, writeExecutor);
+        try {
+            CalendarDao dao = database.calendarDao();
+            long first = DateUtils.startOfDay(System.currentTimeMillis());
+            writeExecutor.submit(() -> dao.addEvents(randomEvents(1, STORED_EVENTS, first))).get();
+
+            Random random = new Random(3);
+            for (int i = 0; i < IDLE_READS; i++) {
+                loadDay(dao, "read.idle." + name, first, random);
+            }
+
+            CountDownLatch writing = new CountDownLatch(1);
+            List<Event> written = randomEvents(2, WRITTEN_EVENTS, first);
+            Future<?> write = writeExecutor.submit(() -> {
+                writing.countDown();
+                long start = System.nanoTime();
+                dao.addEvents(written);
+                Metrics.record("write." + name, System.nanoTime() - start);
+            });
+            writing.await();
+            int reads = 0;
+            while (!write.isDone()) {
+                loadDay(dao, "read.duringWrite." + name, first, random);
+                reads++;
+            }
+            write.get();
+            assertTrue("no reads ran during the write", reads > 0);
+        } finally {
+            database.close();
+            writeExecutor.shutdown();
+            if (readExecutor instanceof ExecutorService) { ((ExecutorService) readExecutor).shutdown(); }
+            writeExecutor.awaitTermination(10, TimeUnit.SECONDS);
+            context.deleteDatabase(config.name);
+        }
+    }
+
+    private static void loadDay(CalendarDao dao, String metric, long first, Random random) {
+        Date day = new Date(DateUtils.addDays(first, random.nextInt(DAYS)));
+        long start = System.nanoTime();
+        dao.loadEventsOnDay(day);
+        Metrics.record(metric, System.nanoTime() - start);
+    }
+
+    /**
+     * @return events of up to 2 hours starting at random minutes over the days from the first
+     */
+    private static List<Event> randomEvents(long seed, int count, long first) {
+        Random random = new Random(seed);
+        List<Event> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Event event = new Event();
+            long start = first + random.nextInt(DAYS * 24 * 60) * 60000L;
+            event.startTime = new Date(start);
+            event.endTime = new Date(start + (15 + random.nextInt(106)) * 60000L);
+            event.name = "Event " + i;
+            events.add(event);
+        }
+        return events;
+    }
+}
@@ -0,0 +1,130 @@
+package edu.moravian.csci299.mocalendar;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.os.Bundle;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Measures how long paging through search results takes on 100k events, ranking every page's
+ * query with LIMIT and OFFSET (as Room's paged queries do) against ranking once and loading each
+ * page by id (as the repository's search does), against a database opened the same way the
+ * repository opens it. The latencies are logged and reported as instrumentation status as JSON,
+ * in the format of Metrics.snapshot(). Run with
+ * <code>./gradlew connectedAndroidTest -Pandroid.testInstrumentationRunnerArguments.class=edu.moravian.csci299.mocalendar.SearchBenchmark</code>
+ */
+@RunWith(AndroidJUnit4.class)
+public class SearchBenchmark {
+    private static final String TAG = "SearchBenchmark";
+    private static final int EVENTS = 100000;
+    private static final int PAGE_SIZE = 30;
+    private static final int PAGES = 10;
+    private static final String[] WORDS = {"exam", "lab", "essay", "reading", "practice", "meeting",
+            "review", "project", "lecture", "club", "office", "hours", "final", "quiz", "rehearsal"};
+    private static final String[] SEARCHES = {"exam*", "lab*", "re*", "exam* review*"};
+    private static final String RANKED = "FROM event JOIN EventFts ON event.rowid = EventFts.docid " +
+            "WHERE EventFts MATCH ? ORDER BY length(offsets(EventFts)) DESC, event.startTime";
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        Metrics.reset();
+        Metrics.setEnabled(true);
+    }
+
+    @After
+    public void tearDown() {
+        Metrics.setEnabled(false);
+        Metrics.reset();
+    }
+
+    @Test
+    public void searchLatency() throws Exception {
+        DatabaseConfig config = new DatabaseConfig.Builder().setName("search-benchmark").build();
+        context.deleteDatabase(config.name);
+        Executor readExecutor = config.createReadExecutor();
+        ScheduledExecutorService writeExecutor = config.createWriteExecutor();
+        CalendarDataBase database = config.openDatabase(context, readExecutor, writeExecutor);
+        try {
+            CalendarDao dao = database.calendarDao();
+            long first = DateUtils.startOfDay(System.currentTimeMillis());
+            writeExecutor.submit(() -> dao.addEvents(randomEvents(EVENTS, first))).get();
+
+            for (String search : SEARCHES) {
+                // each page ranks all of the matches again
+                for (int page = 0; page < PAGES; page++) {
+                    long start = System.nanoTime();
+                    try (Cursor cursor = database.query("SELECT event.* " + RANKED + " LIMIT " + PAGE_SIZE +
+                            " OFFSET " + page * PAGE_SIZE, new Object[] { search })) {
+                        while (cursor.moveToNext()) { }
+                    }
+                    Metrics.record("search.offsetPage", System.nanoTime() - start);
+                }
+
+                // ranked once, then each page by id
+                long start = System.nanoTime();
+                List<UUID> ranked = dao.rankSearch(search);
+                Metrics.record("search.rank", System.nanoTime() - start);
+                for (int page = 0; page < PAGES && page * PAGE_SIZE < ranked.size(); page++) {
+                    List<UUID> ids = ranked.subList(page * PAGE_SIZE, Math.min(ranked.size(), (page + 1) * PAGE_SIZE));
+                    start = System.nanoTime();
+                    assertEquals(ids.size(), dao.loadEventsByIds(ids).size());
+                    Metrics.record("search.idPage", System.nanoTime() - start);
+                }
+            }
+
+            JSONObject snapshot = Metrics.snapshot();
+            Log.i(TAG, snapshot.toString(2));
+            Bundle results = new Bundle();
+            results.putString(TAG, snapshot.toString());
+            InstrumentationRegistry.getInstrumentation().sendStatus(0, results);
+        } finally {
+            database.close();
+            writeExecutor.shutdown();
+            if (readExecutor instanceof ExecutorService) { ((ExecutorService) readExecutor).shutdown(); }
+            writeExecutor.awaitTermination(10, TimeUnit.SECONDS);
+            context.deleteDatabase(config.name);
+        }
+    }
+
+    /**
+     * @return events named with random words, some repeated, over a year from the first day
+     */
+    private static List<Event> randomEvents(int count, long first) {
+        Random random = new Random(1);
+        List<Event> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Event event = new Event();
+            long start = first + random.nextInt(365 * 24 * 60) * 60000L;
+            event.startTime = new Date(start);
+            event.endTime = new Date(start + 3600000);
+            event.name = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)];
+            event.description = WORDS[random.nextInt(WORDS.length)] + " " + i;
+            events.add(event);
+        }
+        return events;
+    }
+}
@@ -0,0 +1,143 @@
+package edu.moravian.csci299.mocalendar;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.os.Bundle;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Compares storing event ids as 36 character TEXT UUIDs (before database version 3) with 16 byte
+ * BLOBs (since), on 100k events with the same columns and start time index. Reports the size of
+ * each database file and how long inserting, loading events by id and loading a range of events
+ * (reading and converting their ids) take. The results are logged and reported as
+ * instrumentation status as JSON. Run with
+ * <code>./gradlew connectedAndroidTest -Pandroid.testInstrumentationRunnerArguments.class=edu.moravian.csci299.mocalendar.UuidStorageBenchmark</code>
+ */
+@RunWith(AndroidJUnit4.class)
+public class UuidStorageBenchmark {
+    private static final String TAG = "UuidStorageBenchmark";
+    private static final int EVENTS = 100000;
+    private static final int LOOKUPS = 10000;
+    private static final int RANGE_LOADS = 200;
+    private static final int DAYS = 365;
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        Metrics.reset();
+        Metrics.setEnabled(true);
+    }
+
+    @After
+    public void tearDown() {
+        Metrics.setEnabled(false);
+        Metrics.reset();
+    }
+
+    @Test
+    public void textVersusBlobIds() throws Exception {
+        JSONObject results = new JSONObject();
+        results.put("text", measure("text", false));
+        results.put("blob", measure("blob", true));
+        results.put("metrics", Metrics.snapshot());
+        Log.i(TAG, results.toString(2));
+        Bundle status = new Bundle();
+        status.putString(TAG, results.toString());
+        InstrumentationRegistry.getInstrumentation().sendStatus(0, status);
+    }
+
+    /**
+     * Fill a new database with ids stored one way, then measure its size and loads.
+     */
+    private JSONObject measure(String name, boolean blob) throws Exception {
+        String file = "uuid-storage-benchmark-" + name;
+        context.deleteDatabase(file);
+        SQLiteDatabase db = context.openOrCreateDatabase(file, Context.MODE_PRIVATE, null);
+        try {
+            db.execSQL("CREATE TABLE `Event` (`id` " + (blob ? "BLOB" : "TEXT") + " NOT NULL, " +
+                    "`startTime` INTEGER NOT NULL, `endTime` INTEGER, `name` TEXT NOT NULL, " +
+                    "`type` TEXT NOT NULL, `description` TEXT NOT NULL, PRIMARY KEY(`id`))");
+            db.execSQL("CREATE INDEX `index_Event_startTime` ON `Event` (`startTime`)");
+
+            // the same ids in the same order for both
+            Random random = new Random(1);
+            UUID[] ids = new UUID[EVENTS];
+            long first = DateUtils.startOfDay(System.currentTimeMillis());
+            long start = System.nanoTime();
+            db.beginTransaction();
+            try {
+                SQLiteStatement insert = db.compileStatement("INSERT INTO `Event` VALUES (?, ?, ?, ?, ?, ?)");
+                for (int i = 0; i < EVENTS; i++) {
+                    ids[i] = new UUID(random.nextLong(), random.nextLong());
+                    long eventStart = first + random.nextInt(DAYS * 24 * 60) * 60000L;
+                    bindId(insert, 1, ids[i], blob);
+                    insert.bindLong(2, eventStart);
+                    insert.bindLong(3, eventStart + 3600000);
+                    insert.bindString(4, "Event " + i);
+                    insert.bindString(5, EventType.GENERIC.name());
+                    insert.bindString(6, "");
+                    insert.executeInsert();
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            Metrics.record("insert." + name, System.nanoTime() - start);
+            db.execSQL("VACUUM");
+
+            // a statement so the id can be bound as a BLOB, which rawQuery() cannot do
+            SQLiteStatement byId = db.compileStatement("SELECT startTime FROM `Event` WHERE id = ?");
+            for (int i = 0; i < LOOKUPS; i++) {
+                int index = random.nextInt(EVENTS);
+                long lookup = System.nanoTime();
+                bindId(byId, 1, ids[index], blob);
+                long startTime = byId.simpleQueryForLong();
+                Metrics.record("loadById." + name, System.nanoTime() - lookup);
+                if (startTime < first) { throw new AssertionError("wrong event loaded"); }
+            }
+            byId.close();
+
+            for (int i = 0; i < RANGE_LOADS; i++) {
+                long day = first + random.nextInt(DAYS - 7) * DAY_MILLIS;
+                long load = System.nanoTime();
+                try (Cursor cursor = db.rawQuery("SELECT * FROM `Event` WHERE startTime >= ? AND startTime < ?",
+                        new String[] { Long.toString(day), Long.toString(day + 7 * DAY_MILLIS) })) {
+                    while (cursor.moveToNext()) {
+                        UUID id = blob ? CalendarTypeConverter.toUuid(cursor.getBlob(0)) : UUID.fromString(cursor.getString(0));
+                        if (id == null) { throw new AssertionError(); }
+                    }
+                }
+                Metrics.record("loadWeek." + name, System.nanoTime() - load);
+            }
+        } finally {
+            db.close();
+        }
+        File path = context.getDatabasePath(file);
+        long bytes = path.length();
+        context.deleteDatabase(file);
+        return new JSONObject().put("events", EVENTS).put("fileBytes", bytes);
+    }
+
+    private static void bindId(SQLiteStatement statement, int index, UUID id, boolean blob) {
+        if (blob) { statement.bindBlob(index, CalendarTypeConverter.fromUuid(id)); }
+        else { statement.bindString(index, id.toString()); }
+    }
+}
@@ -0,0 +1,222 @@
+package edu.moravian.csci299.mocalendar;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.fragment.app.Fragment;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * A fragment that displays an agenda: all events from a day onward in a single list, with a
+ * header for each day. The list can be scrolled endlessly forward and backward through time; pages
+ * of events are loaded as either end of the list gets close and pages far off-screen are dropped.
+ * When an event on the list is clicked, the hosting activity is informed the same way as for the
+ * ListFragment.
+ */
+public class AgendaFragment extends Fragment {
+    // fragment initialization parameters
+    private static final String ARG_DATE = "date";
+
+    // the number of rows from either end of the list at which the next page is loaded
+    private static final int LOAD_DISTANCE = 15;
+
+    // the types of rows in the list
+    private static final int TYPE_HEADER = 0, TYPE_EVENT = 1;
+
+    private AgendaPager agenda;
+    private RecyclerView listView;
+    private ListFragment.Callbacks callbacks;
+
+    /**
+     * Use this factory method to create a new instance of this fragment that starts the agenda at
+     * the given day.
+     *
+     * @param date the day to start the agenda at
+     * @return a new instance of fragment AgendaFragment
+     */
+    public static AgendaFragment newInstance(Date date) {
+        AgendaFragment fragment = new AgendaFragment();
+        Bundle args = new Bundle();
+        args.putSerializable(ARG_DATE, date);
+        fragment.setArguments(args);
+        return fragment;
+    }
+
+    /**
+     * Upon creation start the agenda at the initial date. The agenda is kept while this fragment
+     * is on the back stack so the loaded events are not lost while an event is being edited.
+     */
+    @Override
+    public void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        assert getArguments() != null;
+        Date date = DateUtils.useDateOrNow((Date) getArguments().getSerializable(ARG_DATE));
+        agenda = CalendarRepository.get().getAgenda(new Date(DateUtils.startOfDay(date.getTime())));
+    }
+
+    /**
+     * Create the view for this layout and set up the adapter for the RecyclerView. Pages are
+     * loaded as the list is scrolled close to either end.
+     */
+    @Override
+    public View onCreateView(LayoutInflater inflater, ViewGroup container,
+                             Bundle savedInstanceState) {
+        listView = (RecyclerView) inflater.inflate(R.layout.fragment_agenda, container, false);
+        listView.setLayoutManager(new LinearLayoutManager(getContext()));
+        listView.setAdapter(new AgendaAdapter());
+        listView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                loadNearEdges();
+            }
+        });
+        return listView;
+    }
+
+    /**
+     * Once the view exists, show the rows of the agenda. After each change to the rows, check
+     * again if another page is needed since a short page may not fill the screen.
+     */
+    @Override
+    public void onViewCreated(@NonNull View view, Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+        agenda.observe(getViewLifecycleOwner(), rows ->
+                ((AgendaAdapter) Objects.requireNonNull(listView.getAdapter())).submitList(rows, this::loadNearEdges));
+    }
+
+    /**
+     * Load the next or previous page if the visible rows are close to the end or start.
+     */
+    private void loadNearEdges() {
+        if (listView == null) { return; }
+        LinearLayoutManager layoutManager = (LinearLayoutManager) Objects.requireNonNull(listView.getLayoutManager());
+        int count = Objects.requireNonNull(listView.getAdapter()).getItemCount();
+        int first = layoutManager.findFirstVisibleItemPosition();
+        int last = layoutManager.findLastVisibleItemPosition();
+        if (first == RecyclerView.NO_POSITION || first < LOAD_DISTANCE) { agenda.loadBefore(); }
+        if (last == RecyclerView.NO_POSITION || last >= count - LOAD_DISTANCE) { agenda.loadAfter(); }
+    }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        listView = null;
+    }
+
+    @Override
+    public void onAttach(@NonNull Context context) {
+        super.onAttach(context);
+        callbacks = (ListFragment.Callbacks) context;
+    }
+
+    @Override
+    public void onDetach() {
+        super.onDetach();
+        callbacks = null;
+    }
+
+    private static class HeaderViewHolder extends RecyclerView.ViewHolder {
+        TextView day;
+
+        public HeaderViewHolder(@NonNull View headerView) {
+            super(headerView);
+            day = (TextView) headerView;
+        }
+    }
+
+    private class EventViewHolder extends RecyclerView.ViewHolder {
+        Event event;
+        TextView name, description, startTime, endTime;
+        ImageView typeView;
+
+        public EventViewHolder(@NonNull View eventView) {
+            super(eventView);
+            name = eventView.findViewById(R.id.event_name);
+            description = eventView.findViewById(R.id.event_description);
+            startTime = eventView.findViewById(R.id.event_start_time);
+            endTime = eventView.findViewById(R.id.event_end_time);
+            typeView = eventView.findViewById(R.id.imageView);
+
+            eventView.setOnClickListener(v -> callbacks.onEventSelected(event));
+        }
+    }
+
+    /**
+     * Rows are the same item if they are headers for the same day or events with the same id.
+     */
+    private static final DiffUtil.ItemCallback<Object> ROW_DIFF = new DiffUtil.ItemCallback<Object>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Object oldItem, @NonNull Object newItem) {
+            if (oldItem instanceof Event && newItem instanceof Event) {
+                return ((Event) oldItem).id.equals(((Event) newItem).id);
+            }
+            return oldItem.equals(newItem);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Object oldItem, @NonNull Object newItem) {
+            if (oldItem instanceof Event && newItem instanceof Event) {
+                Event oldEvent = (Event) oldItem, newEvent = (Event) newItem;
+                return oldEvent.name.equals(newEvent.name) && oldEvent.description.equals(newEvent.description) &&
+                        oldEvent.startTime.equals(newEvent.startTime) && Objects.equals(oldEvent.endTime, newEvent.endTime) &&
+                        oldEvent.type == newEvent.type;
+            }
+            return oldItem.equals(newItem);
+        }
+    };
+
+    /**
+     * The adapter for the rows of the agenda: a header (the start of a day as a Long) before the
+     * events of each day. New rows are diffed against the current ones on a background thread so
+     * pages added or dropped at either end do not move what is on screen.
+     */
+    private class AgendaAdapter extends ListAdapter<Object, RecyclerView.ViewHolder> {
+        AgendaAdapter() {
+            super(ROW_DIFF);
+        }
+
+        @Override
+        public int getItemViewType(int position) {
+            return getItem(position) instanceof Long ? TYPE_HEADER : TYPE_EVENT;
+        }
+
+        @NonNull
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            LayoutInflater inflater = LayoutInflater.from(parent.getContext());
+            if (viewType == TYPE_HEADER) {
+                return new HeaderViewHolder(inflater.inflate(R.layout.agenda_header, parent, false));
+            }
+            return new EventViewHolder(inflater.inflate(R.layout.list_item, parent, false));
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+            Object item = getItem(position);
+            if (holder instanceof HeaderViewHolder) {
+                ((HeaderViewHolder) holder).day.setText(DateUtils.toFullDateString(new Date((Long) item)));
+                return;
+            }
+            EventViewHolder eventHolder = (EventViewHolder) holder;
+            Event event = (Event) item;
+            eventHolder.event = event;
+            eventHolder.name.setText(event.name);
+            eventHolder.description.setText(event.description);
+            eventHolder.startTime.setText(DateUtils.toTimeString(event.startTime));
+            eventHolder.endTime.setText(event.endTime != null ? DateUtils.toTimeString(event.endTime) : "");
+            eventHolder.typeView.setImageResource(EventTypeIcons.get(event.type));
+        }
+    }
+}
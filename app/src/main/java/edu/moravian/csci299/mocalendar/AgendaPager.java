@@ -0,0 +1,262 @@
+package edu.moravian.csci299.mocalendar;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.lifecycle.LiveData;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+
+/**
+ * Pages forward and backward through all events from a starting time, for an agenda that can be
+ * scrolled endlessly in both directions. Each page is found by its position (the start time and
+ * id of the event at the edge of the events already loaded) instead of an offset, so loading a
+ * page costs the same no matter how far from the start it is. Only a window of pages is kept:
+ * once there are too many events loaded, the pages at the opposite end from the one being loaded
+ * are dropped and will be loaded again if scrolled back to.
+ * <p>
+ * The value is the rows to show: a Long (the start of the day) heading each day followed by the
+ * events starting on that day. Only the events in the window are reloaded when events change.
+ * Must only be used on the main thread.
+ */
+class AgendaPager extends LiveData<List<Object>> {
+    /** The number of events in each page. */
+    static final int PAGE_SIZE = 50;
+
+    /** The maximum number of pages kept loaded at once. */
+    static final int MAX_PAGES = 4;
+
+    /**
+     * A position between events: the start time and id of an event, ordered the same way as the
+     * database orders events.
+     */
+    static class Key implements Comparable<Key> {
+        static final UUID MIN_ID = new UUID(0, 0), MAX_ID = new UUID(-1, -1);
+
+        final long time;
+        final UUID id;
+
+        Key(long time, UUID id) {
+            this.time = time;
+            this.id = id;
+        }
+
+        static Key of(Event event) {
+            return new Key(event.startTime.getTime(), event.id);
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int cmp = Long.compare(time, other.time);
+            return cmp != 0 ? cmp : CalendarTypeConverter.compareUuids(id, other.id);
+        }
+    }
+
+    /**
+     * A page of events loaded from a position.
+     */
+    static class Page {
+        /** The events in the page, ordered by start time then id. */
+        final List<Event> events;
+        /** The position at the far end of the page, where the next page in the same direction starts. */
+        final Key end;
+        /** True if there may be more events past the end of the page. */
+        final boolean more;
+
+        Page(List<Event> events, Key end, boolean more) {
+            this.events = events;
+            this.end = end;
+            this.more = more;
+        }
+    }
+
+    /**
+     * Loads a page of events. Called on a background thread.
+     */
+    interface Loader {
+        /**
+         * @param from the position to start from, not included in the page
+         * @param forward true to load the events after the position, false for the ones before
+         * @param limit the maximum number of events to load
+         * @return the page of events
+         */
+        Page load(Key from, boolean forward, int limit);
+    }
+
+    private final Loader loader;
+    private final Executor executor;
+    private final Set<Runnable> writeObservers;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable onEventsChanged = () -> mainHandler.post(this::reload);
+
+    /**
+     * The events that are loaded, which are all of the events from head to tail (inclusive).
+     */
+    private final List<Event> events = new ArrayList<>();
+    private Key head, tail;
+    private boolean hasBefore = true, hasAfter = true;
+    private boolean loadingBefore, loadingAfter;
+
+    /** Incremented whenever the window is reloaded or trimmed so that loads started before are ignored. */
+    private int generation;
+    private boolean stale;
+
+    /**
+     * @param loader loads the pages
+     * @param executor runs the loads
+     * @param writeObservers the set of runnables called (on any thread) whenever events are
+     *                       written, this is added to it while active
+     * @param start the time to start the agenda at; the first events shown start at or after it
+     */
+    AgendaPager(Loader loader, Executor executor, Set<Runnable> writeObservers, long start) {
+        this.loader = loader;
+        this.executor = executor;
+        this.writeObservers = writeObservers;
+        head = tail = new Key(start, Key.MIN_ID);
+        stale = true;
+    }
+
+    @Override
+    protected void onActive() {
+        writeObservers.add(onEventsChanged);
+        if (stale) { reload(); }
+    }
+
+    @Override
+    protected void onInactive() {
+        writeObservers.remove(onEventsChanged);
+        // anything written from now on is missed
+        stale = true;
+    }
+
+    /**
+     * @return true if there may be events before the ones loaded
+     */
+    boolean hasBefore() {
+        return hasBefore;
+    }
+
+    /**
+     * @return true if there may be events after the ones loaded
+     */
+    boolean hasAfter() {
+        return hasAfter;
+    }
+
+    /**
+     * Load the page of events after the ones that are loaded, unless it is already loading.
+     */
+    void loadAfter() {
+        if (!hasAfter || loadingAfter) { return; }
+        loadingAfter = true;
+        int generation = this.generation;
+        Key from = tail;
+        executor.execute(() -> {
+            Page page = loader.load(from, true, PAGE_SIZE);
+            mainHandler.post(() -> {
+                if (generation != this.generation) { return; }
+                loadingAfter = false;
+                events.addAll(page.events);
+                tail = page.end;
+                hasAfter = page.more;
+                int excess = events.size() - MAX_PAGES * PAGE_SIZE;
+                if (excess > 0) {
+                    // drop whole pages from the start, the farthest from what is being scrolled to
+                    events.subList(0, roundUpToPage(excess)).clear();
+                    head = Key.of(events.get(0));
+                    hasBefore = true;
+                    loadingBefore = false;
+                    this.generation++;
+                }
+                publish();
+            });
+        });
+    }
+
+    /**
+     * Load the page of events before the ones that are loaded, unless it is already loading.
+     */
+    void loadBefore() {
+        if (!hasBefore || loadingBefore) { return; }
+        loadingBefore = true;
+        int generation = this.generation;
+        Key from = head;
+        executor.execute(() -> {
+            Page page = loader.load(from, false, PAGE_SIZE);
+            mainHandler.post(() -> {
+                if (generation != this.generation) { return; }
+                loadingBefore = false;
+                events.addAll(0, page.events);
+                head = page.end;
+                hasBefore = page.more;
+                int excess = events.size() - MAX_PAGES * PAGE_SIZE;
+                if (excess > 0) {
+                    // drop whole pages from the end, the farthest from what is being scrolled to
+                    events.subList(events.size() - roundUpToPage(excess), events.size()).clear();
+                    tail = Key.of(events.get(events.size() - 1));
+                    hasAfter = true;
+                    loadingAfter = false;
+                    this.generation++;
+                }
+                publish();
+            });
+        });
+    }
+
+    /**
+     * Reload all of the events in the window, after events have changed. Loads already in
+     * progress are abandoned. If nothing is observing, this waits until something is.
+     */
+    private void reload() {
+        if (!hasActiveObservers()) {
+            stale = true;
+            return;
+        }
+        stale = false;
+        int generation = ++this.generation;
+        loadingBefore = loadingAfter = true;
+        // everything at the head's time is reloaded since events may have been added before it
+        Key from = new Key(head.time, Key.MIN_ID);
+        int limit = Math.max(PAGE_SIZE, events.size());
+        executor.execute(() -> {
+            Page page = loader.load(from, true, limit);
+            mainHandler.post(() -> {
+                if (generation != this.generation) { return; }
+                loadingBefore = loadingAfter = false;
+                events.clear();
+                events.addAll(page.events);
+                head = from;
+                tail = page.end;
+                hasAfter = page.more;
+                publish();
+            });
+        });
+    }
+
+    private static int roundUpToPage(int count) {
+        return Math.min(MAX_PAGES * PAGE_SIZE, (count + PAGE_SIZE - 1) / PAGE_SIZE * PAGE_SIZE);
+    }
+
+    /**
+     * Set the value to the rows for the events in the window, with a header before each day.
+     */
+    private void publish() {
+        List<Object> rows = new ArrayList<>(events.size() + events.size() / 4 + 1);
+        long dayEnd = Long.MIN_VALUE;
+        for (Event event : events) {
+            long time = event.startTime.getTime();
+            if (time >= dayEnd) {
+                long day = DateUtils.startOfDay(time);
+                rows.add(day);
+                dayEnd = DateUtils.addDays(day, 1);
+            }
+            rows.add(event);
+        }
+        setValue(Collections.unmodifiableList(rows));
+    }
+}
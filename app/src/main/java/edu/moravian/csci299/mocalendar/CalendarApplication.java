@@ -1,11 +1,65 @@
 package edu.moravian.csci299.mocalendar;
 
 import android.app.Application;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Process;
 
+import androidx.core.content.ContextCompat;
+
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * Sets up the app when its process starts. Everything slow is started in the background here so
+ * it is ready (or at least underway) by the time the first screen needs it: the database is
+ * opened and today's events are loaded, and the date formatters and event type icons are loaded.
+ */
 public class CalendarApplication extends Application {
     @Override
     public void onCreate() {
         super.onCreate();
+        StartupMetrics.onApplicationCreated();
+        // collecting metrics is nearly free but only useful while developing
+        Metrics.setEnabled(BuildConfig.DEBUG);
+        // creating the repository does not touch the database, which is opened by the warm-up
         CalendarRepository.initialize(this);
+        CalendarRepository.get().warmUp(new Date());
+        new Thread(this::primeResources, "calendar-warm-up").start();
+        registerTimeZoneReceiver();
+    }
+
+    /**
+     * Days are bucketed by local midnight, so when the device's time zone changes DateUtils has
+     * to switch to the new zone and everything cached by day has to be loaded again. The platform
+     * has already updated the default time zone by the time the broadcast arrives.
+     */
+    private void registerTimeZoneReceiver() {
+        registerReceiver(new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                DateUtils.setTimeZone(TimeZone.getDefault());
+                CalendarRepository.get().onTimeZoneChanged();
+            }
+        }, new IntentFilter(Intent.ACTION_TIMEZONE_CHANGED));
+    }
+
+    /**
+     * Load the time zone data, formatters and icons used by the lists so that the first binds do
+     * not have to.
+     */
+    private void primeResources() {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+        long start = Metrics.start("startup.primeResources");
+        Date now = new Date();
+        DateUtils.toFullDateString(now);
+        DateUtils.toDateString(now);
+        DateUtils.toTimeString(now);
+        for (EventType type : EventType.values()) {
+            ContextCompat.getDrawable(this, EventTypeIcons.get(type));
+        }
+        Metrics.stop("startup.primeResources", start);
     }
 }
@@ -1,12 +1,18 @@
 package edu.moravian.csci299.mocalendar;
 
+import android.database.Cursor;
+
 import androidx.lifecycle.LiveData;
+import androidx.paging.DataSource;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.Transaction;
 import androidx.room.Update;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.UUID;
@@ -25,6 +31,14 @@ public interface CalendarDao {
     @Query("SELECT * FROM event")
     LiveData<List<Event>> getAllEvents();
 
+    /**
+     * Paged version of getAllEvents(). Events are ordered by their start time so pages can be
+     * loaded incrementally as a list is scrolled instead of loading the entire table at once.
+     * @return factory for data sources that load pages of all events on the calendar
+     */
+    @Query("SELECT * FROM event ORDER BY startTime, id")
+    DataSource.Factory<Integer, Event> getAllEventsPaged();
+
     /**
      * Get an event from its ID.
      * @param id the
@@ -34,25 +48,216 @@ public interface CalendarDao {
     LiveData<Event> getEventById(UUID id);
 
     /**
-     * Get all events between the start and end dates given. This will include any events that start
-     * or end within that range of date-times.
+     * Same as getEventById() but loads the event immediately instead of returning live-data.
+     * Must not be called on the main thread.
+     * @param id the id of the event
+     * @return the event or null if there is no event with that id
+     */
+    @Query("SELECT * FROM event WHERE id=(:id) LIMIT 1")
+    Event loadEventById(UUID id);
+
+    /**
+     * Get all events between the start and end dates given. This will include any events that
+     * overlap that range of date-times at all: events that start or end within it as well as
+     * events that span the entire range. Assignments (no end time) are included if they are due
+     * within the range.
+     *
+     * Recurring series that may have occurrences in the range are included as their single stored
+     * event; CalendarRepository expands them into the occurrences within the range.
+     *
+     * The predicates are written so that each part can be answered with a range scan of the
+     * startTime or recurrenceEnd index instead of a full table scan. No single event lasts
+     * longer than EventStats.maxDuration, so the scan of startTime is bounded on both sides no
+     * matter how much history comes before the range. The unary + on
+     * recurrenceEnd in the single event part stops SQLite from choosing the recurrenceEnd index
+     * for the IS NULL test (nearly every row is NULL, so that is a full scan plus a sort); only
+     * the series part uses that index.
+     *
      * @param start the start date
      * @param end the end date
      * @return live-data view of a list of all events on the calendar between those dates
      */
-    @Query("SELECT * FROM event WHERE startTime BETWEEN (:start) AND (:end) OR endTime BETWEEN (:start) AND (:end)")
+    @Query("SELECT * FROM event WHERE +recurrenceEnd IS NULL AND startTime >= (:start) - (SELECT maxDuration FROM EventStats) AND startTime <= (:end) AND (startTime >= (:start) OR endTime >= (:start)) " +
+            "UNION ALL SELECT * FROM event INDEXED BY index_Event_recurrenceEnd WHERE recurrenceEnd >= (:start) AND startTime <= (:end) ORDER BY startTime, id")
     LiveData<List<Event>> getEventsBetween(Date start, Date end);
 
+    /**
+     * Same as getEventsBetween() but loads the events immediately instead of returning live-data.
+     * Must not be called on the main thread.
+     * @param start the start date
+     * @param end the end date
+     * @return list of all events on the calendar between those dates, ordered by start time
+     */
+    @Query("SELECT * FROM event WHERE +recurrenceEnd IS NULL AND startTime >= (:start) - (SELECT maxDuration FROM EventStats) AND startTime <= (:end) AND (startTime >= (:start) OR endTime >= (:start)) " +
+            "UNION ALL SELECT * FROM event INDEXED BY index_Event_recurrenceEnd WHERE recurrenceEnd >= (:start) AND startTime <= (:end) ORDER BY startTime, id")
+    List<Event> loadEventsBetween(Date start, Date end);
+
+    /**
+     * Paged version of getEventsBetween(), but only for single events: recurring series are
+     * excluded since a page of rows cannot be expanded into occurrences. Events are ordered by
+     * their start time.
+     * @param start the start date
+     * @param end the end date
+     * @return factory for data sources that load pages of the single events between those dates
+     */
+    @Query("SELECT * FROM event WHERE +recurrenceEnd IS NULL AND startTime >= (:start) - (SELECT maxDuration FROM EventStats) AND startTime <= (:end) AND (startTime >= (:start) OR endTime >= (:start)) ORDER BY startTime, id")
+    DataSource.Factory<Integer, Event> getEventsBetweenPaged(Date start, Date end);
+
+    /**
+     * Load a page of the single (not recurring) events after a position, for paging forward
+     * through time. The position is the start time and id of the last event already loaded, so
+     * every page is a range scan of the startTime index no matter how far it is from the first.
+     * Must not be called on the main thread.
+     * @param time the start time of the position
+     * @param id the id of the position, breaking ties between events that start at the same time
+     * @param limit the maximum number of events to load
+     * @return the events after the position, ordered by start time then id
+     */
+    @Query("SELECT * FROM event WHERE +recurrenceEnd IS NULL AND (startTime > (:time) OR (startTime = (:time) AND id > (:id))) " +
+            "ORDER BY startTime, id LIMIT (:limit)")
+    List<Event> loadEventsAfter(Date time, UUID id, int limit);
+
+    /**
+     * Same as loadEventsAfter() but for paging backward through time.
+     * @param time the start time of the position
+     * @param id the id of the position, breaking ties between events that start at the same time
+     * @param limit the maximum number of events to load
+     * @return the events before the position, ordered by start time then id, latest first
+     */
+    @Query("SELECT * FROM event WHERE +recurrenceEnd IS NULL AND (startTime < (:time) OR (startTime = (:time) AND id < (:id))) " +
+            "ORDER BY startTime DESC, id DESC LIMIT (:limit)")
+    List<Event> loadEventsBefore(Date time, UUID id, int limit);
+
+    /**
+     * Load the next reminders of single events after a position, the same way as loadEventsAfter()
+     * but on the reminderTime index. Must not be called on the main thread.
+     * @param time the reminder time of the position
+     * @param id the id of the position, breaking ties between reminders at the same time
+     * @param until the latest reminder time to load, inclusive
+     * @param limit the maximum number of events to load
+     * @return the events with reminders after the position, ordered by reminder time then id
+     */
+    @Query("SELECT * FROM event WHERE reminderTime <= (:until) AND (reminderTime > (:time) OR (reminderTime = (:time) AND id > (:id))) " +
+            "ORDER BY reminderTime, id LIMIT (:limit)")
+    List<Event> loadRemindersAfter(Date time, UUID id, Date until, int limit);
+
+    /**
+     * Load the recurring series with reminders that may still have occurrences after a time.
+     * Must not be called on the main thread.
+     * @param time the time
+     * @return the series with reminders that end after the time
+     */
+    @Query("SELECT * FROM event WHERE recurrenceEnd > (:time) AND reminderMinutes IS NOT NULL")
+    List<Event> loadSeriesWithReminders(Date time);
+
+    /**
+     * Load the recurring series that may have occurrences starting in a range. Must not be called
+     * on the main thread.
+     * @param start the start of the range
+     * @param end the end of the range
+     * @return the stored event of each series
+     */
+    @Query("SELECT * FROM event WHERE recurrenceEnd >= (:start) AND startTime <= (:end)")
+    List<Event> loadSeriesBetween(Date start, Date end);
+
+    /**
+     * Same as loadSeriesBetween() but returns live-data instead of loading the series immediately.
+     * @param start the start of the range
+     * @param end the end of the range
+     * @return live-data view of the stored event of each series
+     */
+    @Query("SELECT * FROM event INDEXED BY index_Event_recurrenceEnd WHERE recurrenceEnd >= (:start) AND startTime <= (:end)")
+    LiveData<List<Event>> getSeriesBetween(Date start, Date end);
+
+    /**
+     * Must not be called on the main thread.
+     * @param time a date
+     * @return true if any recurring series continues after the date
+     */
+    @Query("SELECT EXISTS(SELECT 1 FROM event WHERE recurrenceEnd > (:time))")
+    boolean hasSeriesAfter(Date time);
+
+    /**
+     * Must not be called on the main thread.
+     * @param time a date
+     * @return true if any recurring series starts before the date
+     */
+    @Query("SELECT EXISTS(SELECT 1 FROM event INDEXED BY index_Event_recurrenceEnd WHERE recurrenceEnd IS NOT NULL AND startTime < (:time))")
+    boolean hasSeriesBefore(Date time);
+
     /**
      * Get all events in a given 24 hour period starting at the given date. This will include any
-     * events that starr or end within that range of date-times.
+     * events that overlap that period at all, including events that span the entire day. Events
+     * that start exactly at the end of the period belong to the next day and are not included.
+     * Recurring series that may have occurrences in the period are included as their single
+     * stored event.
      * @param date the date at the beginning of the 24 hour period
-     * @return live-data view of a list of all events on the calendar starting at the given date and
-     *         ending within 24 hours
+     * @return live-data view of a list of all events on the calendar that overlap the 24 hours
+     *         starting at the given date
      */
-    @Query("SELECT * FROM event WHERE startTime BETWEEN (:date) AND (:date + 24*60*60*1000) OR endTime BETWEEN (:date) AND (:date + 24*60*60*1000)")
+    @Query("SELECT * FROM event WHERE +recurrenceEnd IS NULL AND startTime >= (:date) - (SELECT maxDuration FROM EventStats) AND startTime < (:date + 24*60*60*1000) AND (startTime >= (:date) OR endTime > (:date)) " +
+            "UNION ALL SELECT * FROM event INDEXED BY index_Event_recurrenceEnd WHERE recurrenceEnd > (:date) AND startTime < (:date + 24*60*60*1000) ORDER BY startTime, id")
     LiveData<List<Event>> getEventsOnDay(Date date);
 
+    /**
+     * Same as getEventsOnDay() but loads the events immediately instead of returning live-data.
+     * Must not be called on the main thread.
+     * @param date the date at the beginning of the 24 hour period
+     * @return list of all events on the calendar that overlap the 24 hours starting at the given
+     *         date, ordered by start time
+     */
+    @Query("SELECT * FROM event WHERE +recurrenceEnd IS NULL AND startTime >= (:date) - (SELECT maxDuration FROM EventStats) AND startTime < (:date + 24*60*60*1000) AND (startTime >= (:date) OR endTime > (:date)) " +
+            "UNION ALL SELECT * FROM event INDEXED BY index_Event_recurrenceEnd WHERE recurrenceEnd > (:date) AND startTime < (:date + 24*60*60*1000) ORDER BY startTime, id")
+    List<Event> loadEventsOnDay(Date date);
+
+    /**
+     * Get a summary of each local day in a range that has at least one single (not recurring)
+     * event starting on it, all in one pass over the startTime index. Days are bucketed by the
+     * device's time zone. The occurrences of recurring series are added by the repository.
+     * @param start the start of the range (typically the first day of a month)
+     * @param end the end of the range, exclusive (typically the first day of the next month)
+     * @return live-data view of the summaries of the days with events, ordered by day
+     */
+    @Query("SELECT CAST(strftime('%s', startTime / 1000, 'unixepoch', 'localtime', 'start of day', 'utc') AS INTEGER) * 1000 AS day, " +
+            "COUNT(*) AS count, GROUP_CONCAT(DISTINCT type) AS types " +
+            "FROM event WHERE +recurrenceEnd IS NULL AND startTime >= (:start) AND startTime < (:end) GROUP BY day ORDER BY day")
+    LiveData<List<DaySummary>> getDaySummaries(Date start, Date end);
+
+    /**
+     * Search the names and descriptions of events using the full-text index. Events with more
+     * matches are ranked first (FTS4 has no built-in ranking function so the number of matches is
+     * estimated from the length of offsets()), then earlier events. Only the ids are loaded, so a
+     * search is ranked once and its pages are then loaded with loadEventsByIds(). Must not be
+     * called on the main thread.
+     * @param match an FTS4 MATCH expression, such as "exa* prog*"
+     * @return the ids of the matching events, best matches first
+     */
+    @Query("SELECT event.id FROM event JOIN EventFts ON event.rowid = EventFts.docid " +
+            "WHERE EventFts MATCH (:match) ORDER BY length(offsets(EventFts)) DESC, event.startTime")
+    List<UUID> rankSearch(String match);
+
+    /**
+     * Must not be called on the main thread.
+     * @param ids the ids of events
+     * @return the events with those ids that exist, in no particular order
+     */
+    @Query("SELECT * FROM event WHERE id IN (:ids)")
+    List<Event> loadEventsByIds(List<UUID> ids);
+
+    /**
+     * Get a cursor over the single events that start in a range and the recurring series that
+     * have occurrences in it (even if the series started before the range), ordered by start
+     * time, for streaming through events without loading them all. Must not be called on the
+     * main thread and the cursor must be closed.
+     * @param start the start of the range
+     * @param end the end of the range, exclusive
+     * @return a cursor over the rows of the events and series in the range
+     */
+    @Query("SELECT * FROM event WHERE recurrence IS NULL AND startTime >= (:start) AND startTime < (:end) " +
+            "UNION ALL SELECT * FROM event WHERE recurrence IS NOT NULL AND (recurrenceEnd IS NULL OR recurrenceEnd >= (:start)) " +
+            "AND startTime < (:end) ORDER BY startTime, id")
+    Cursor getEventCursor(Date start, Date end);
+
     /**
      * Add an event to the database.
      * @param event the event to add
@@ -73,4 +278,63 @@ public interface CalendarDao {
      */
     @Delete
     void removeEvent(Event event);
+
+    /**
+     * Add several events to the database in one transaction.
+     * @param events the events to add
+     */
+    @Insert
+    void addEvents(List<Event> events);
+
+    /**
+     * Update several events in the database in one transaction.
+     * @param events the events to update
+     */
+    @Update
+    void updateEvents(List<Event> events);
+
+    /**
+     * Add several events to the database, skipping any that already have the same ids.
+     * @param events the events to add
+     * @return the rowid of each event in order, or -1 for each one that was skipped
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    long[] addEventsIfAbsent(List<Event> events);
+
+    /**
+     * Add several events to the database in one transaction, updating any events that already
+     * have the same ids. This is an insert that skips existing events followed by an update of
+     * those events, not INSERT OR REPLACE: the rows that REPLACE deletes do not fire the delete
+     * triggers, which would leave their old text in the full-text index.
+     * @param events the events to add or update
+     */
+    @Transaction
+    default void upsertEvents(List<Event> events) {
+        long[] rowIds = addEventsIfAbsent(events);
+        List<Event> existing = new ArrayList<>();
+        for (int i = 0; i < rowIds.length; i++) {
+            if (rowIds[i] == -1) { existing.add(events.get(i)); }
+        }
+        if (!existing.isEmpty()) { updateEvents(existing); }
+    }
+
+    /**
+     * Remove several events from the database in one transaction.
+     * @param events the events to remove
+     */
+    @Delete
+    void removeEvents(List<Event> events);
+
+    /**
+     * Apply all of the writes in a batch in a single transaction so that they are committed (and
+     * synced to disk) once instead of once per event.
+     * @param batch the writes to apply
+     */
+    @Transaction
+    default void applyBatch(EventBatch batch) {
+        if (!batch.getAdded().isEmpty()) { addEvents(batch.getAdded()); }
+        if (!batch.getUpdated().isEmpty()) { updateEvents(batch.getUpdated()); }
+        if (!batch.getUpserted().isEmpty()) { upsertEvents(batch.getUpserted()); }
+        if (!batch.getRemoved().isEmpty()) { removeEvents(batch.getRemoved()); }
+    }
 }
@@ -1,11 +1,180 @@
 package edu.moravian.csci299.mocalendar;
 
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
 import androidx.room.Database;
 import androidx.room.RoomDatabase;
 import androidx.room.TypeConverters;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import java.util.UUID;
 
-@Database(entities = {Event.class}, version = 1)
+@Database(entities = {Event.class, EventFts.class, EventStats.class}, version = 7)
 @TypeConverters(CalendarTypeConverter.class)
 public abstract class CalendarDataBase extends RoomDatabase{
+        private static final String TAG = "CalendarDataBase";
+
         public abstract CalendarDao calendarDao();
+
+        /**
+         * Version 2 adds indexes on the start and end times of events so range queries no longer
+         * scan the entire table.
+         */
+        static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+                @Override
+                public void migrate(@NonNull SupportSQLiteDatabase db) {
+                        db.execSQL("CREATE INDEX IF NOT EXISTS `index_Event_startTime` ON `Event` (`startTime`)");
+                        db.execSQL("CREATE INDEX IF NOT EXISTS `index_Event_endTime` ON `Event` (`endTime`)");
+                }
+        };
+
+        /**
+         * Version 3 stores event ids as 16 byte BLOBs instead of 36 character TEXT UUIDs, which
+         * shrinks the table and its primary key index and avoids parsing strings on every load.
+         * SQLite cannot change a column's type in place so the table is rebuilt and every id is
+         * converted while copying.
+         */
+        static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+                @Override
+                public void migrate(@NonNull SupportSQLiteDatabase db) {
+                        db.execSQL("CREATE TABLE IF NOT EXISTS `Event_new` (`id` BLOB NOT NULL, `startTime` INTEGER NOT NULL, `endTime` INTEGER, `name` TEXT NOT NULL, `type` TEXT NOT NULL, `description` TEXT NOT NULL, PRIMARY KEY(`id`))");
+                        try (Cursor cursor = db.query("SELECT `id`, `startTime`, `endTime`, `name`, `type`, `description` FROM `Event`")) {
+                                ContentValues values = new ContentValues();
+                                while (cursor.moveToNext()) {
+                                        values.clear();
+                                        values.put("id", CalendarTypeConverter.fromUuid(UUID.fromString(cursor.getString(0))));
+                                        values.put("startTime", cursor.getLong(1));
+                                        if (cursor.isNull(2)) { values.putNull("endTime"); }
+                                        else { values.put("endTime", cursor.getLong(2)); }
+                                        values.put("name", cursor.getString(3));
+                                        values.put("type", cursor.getString(4));
+                                        values.put("description", cursor.getString(5));
+                                        db.insert("Event_new", SQLiteDatabase.CONFLICT_ABORT, values);
+                                }
+                        }
+                        db.execSQL("DROP TABLE `Event`");
+                        db.execSQL("ALTER TABLE `Event_new` RENAME TO `Event`");
+                        db.execSQL("CREATE INDEX IF NOT EXISTS `index_Event_startTime` ON `Event` (`startTime`)");
+                        db.execSQL("CREATE INDEX IF NOT EXISTS `index_Event_endTime` ON `Event` (`endTime`)");
+                }
+        };
+
+        /**
+         * Version 4 adds the full-text search index over event names and descriptions along with
+         * the triggers that keep it in sync, then builds the index from the existing events.
+         */
+        static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+                @Override
+                public void migrate(@NonNull SupportSQLiteDatabase db) {
+                        db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `EventFts` USING FTS4(`name` TEXT NOT NULL, `description` TEXT NOT NULL, content=`Event`)");
+                        db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_EventFts_BEFORE_UPDATE BEFORE UPDATE ON `Event` BEGIN DELETE FROM `EventFts` WHERE `docid`=OLD.`rowid`; END");
+                        db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_EventFts_BEFORE_DELETE BEFORE DELETE ON `Event` BEGIN DELETE FROM `EventFts` WHERE `docid`=OLD.`rowid`; END");
+                        db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_EventFts_AFTER_UPDATE AFTER UPDATE ON `Event` BEGIN INSERT INTO `EventFts`(`docid`, `name`, `description`) VALUES (NEW.`rowid`, NEW.`name`, NEW.`description`); END");
+                        db.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_EventFts_AFTER_INSERT AFTER INSERT ON `Event` BEGIN INSERT INTO `EventFts`(`docid`, `name`, `description`) VALUES (NEW.`rowid`, NEW.`name`, NEW.`description`); END");
+                        db.execSQL("INSERT INTO `EventFts`(`EventFts`) VALUES ('rebuild')");
+                }
+        };
+
+        /**
+         * Version 5 adds recurring events: the rule of a series, when the series ends, and the
+         * series that an event replaces an occurrence of.
+         */
+        static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+                @Override
+                public void migrate(@NonNull SupportSQLiteDatabase db) {
+                        db.execSQL("ALTER TABLE `Event` ADD COLUMN `recurrence` TEXT");
+                        db.execSQL("ALTER TABLE `Event` ADD COLUMN `recurrenceEnd` INTEGER");
+                        db.execSQL("ALTER TABLE `Event` ADD COLUMN `seriesId` BLOB");
+                        db.execSQL("CREATE INDEX IF NOT EXISTS `index_Event_recurrenceEnd` ON `Event` (`recurrenceEnd`)");
+                }
+        };
+
+        /**
+         * Version 6 adds reminders: how long before an event to be reminded, and when the
+         * reminder of a single event goes off, indexed so the next reminders can be found.
+         */
+        static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+                @Override
+                public void migrate(@NonNull SupportSQLiteDatabase db) {
+                        db.execSQL("ALTER TABLE `Event` ADD COLUMN `reminderMinutes` INTEGER");
+                        db.execSQL("ALTER TABLE `Event` ADD COLUMN `reminderTime` INTEGER");
+                        db.execSQL("CREATE INDEX IF NOT EXISTS `index_Event_reminderTime` ON `Event` (`reminderTime`)");
+                }
+        };
+
+        /**
+         * Version 7 adds the EventStats table, which bounds how far back the range queries scan
+         * the startTime index. It also repairs the search index once, since upserts in earlier
+         * versions left stale entries behind; every upgrade runs this migration last.
+         */
+        static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+                @Override
+                public void migrate(@NonNull SupportSQLiteDatabase db) {
+                        db.execSQL("CREATE TABLE IF NOT EXISTS `EventStats` (`id` INTEGER NOT NULL, `maxDuration` INTEGER NOT NULL, PRIMARY KEY(`id`))");
+                        createEventStats(db);
+                        repairSearchIndex(db);
+                }
+        };
+
+        /**
+         * All of the migrations needed to bring an older database up to the current version.
+         */
+        static final Migration[] MIGRATIONS = {MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7};
+
+        /**
+         * Sets up what Room does not create for a new database: the row of EventStats.
+         */
+        static final RoomDatabase.Callback CALLBACK = new RoomDatabase.Callback() {
+                @Override
+                public void onCreate(@NonNull SupportSQLiteDatabase db) {
+                        createEventStats(db);
+                }
+        };
+
+        /**
+         * Rebuild the search index if it does not match the events. This scans both tables, so it
+         * is only done when upgrading rather than every time the database is opened.
+         * @param db the open database
+         */
+        static void repairSearchIndex(SupportSQLiteDatabase db) {
+                if (!isSearchIndexConsistent(db)) {
+                        Log.w(TAG, "Rebuilding the search index");
+                        db.execSQL("INSERT INTO `EventFts`(`EventFts`) VALUES ('rebuild')");
+                }
+        }
+
+        /**
+         * Check that the full-text index has exactly one document per event. FTS4 keeps a row
+         * in EventFts_docsize for each document, so an entry left behind for an event that no
+         * longer exists (or one missing for an event) shows up as a difference in the counts.
+         * This works on every SQLite version, unlike the FTS4 'integrity-check' command.
+         * @param db the open database
+         * @return true if the index matches the events
+         */
+        static boolean isSearchIndexConsistent(SupportSQLiteDatabase db) {
+                try (Cursor cursor = db.query("SELECT (SELECT COUNT(*) FROM `EventFts_docsize`) = (SELECT COUNT(*) FROM `Event`)")) {
+                        return cursor.moveToFirst() && cursor.getInt(0) != 0;
+                }
+        }
+
+        /**
+         * Fill in the one row of the (already created) EventStats table from the existing events
+         * and add the triggers that keep it up to date. The longest duration only ever grows, so
+         * only inserts and updates need a trigger.
+         */
+        static void createEventStats(SupportSQLiteDatabase db) {
+                db.execSQL("INSERT OR REPLACE INTO `EventStats` (`id`, `maxDuration`) " +
+                        "SELECT 0, IFNULL(MAX(`endTime` - `startTime`), 0) FROM `Event` WHERE `recurrenceEnd` IS NULL");
+                db.execSQL("CREATE TRIGGER IF NOT EXISTS event_stats_AFTER_INSERT AFTER INSERT ON `Event` " +
+                        "WHEN NEW.`recurrenceEnd` IS NULL AND NEW.`endTime` - NEW.`startTime` > (SELECT `maxDuration` FROM `EventStats`) " +
+                        "BEGIN UPDATE `EventStats` SET `maxDuration` = NEW.`endTime` - NEW.`startTime`; END");
+                db.execSQL("CREATE TRIGGER IF NOT EXISTS event_stats_AFTER_UPDATE AFTER UPDATE ON `Event` " +
+                        "WHEN NEW.`recurrenceEnd` IS NULL AND NEW.`endTime` - NEW.`startTime` > (SELECT `maxDuration` FROM `EventStats`) " +
+                        "BEGIN UPDATE `EventStats` SET `maxDuration` = NEW.`endTime` - NEW.`startTime`; END");
+        }
 }
@@ -1,63 +1,1364 @@
 package edu.moravian.csci299.mocalendar;
 
 import android.content.Context;
+import android.database.Cursor;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
 
+import androidx.annotation.NonNull;
 import androidx.lifecycle.LiveData;
-import androidx.room.Room;
+import androidx.lifecycle.MediatorLiveData;
+import androidx.lifecycle.Observer;
+import androidx.lifecycle.Transformations;
+import androidx.paging.DataSource;
+import androidx.paging.LivePagedListBuilder;
+import androidx.paging.PagedList;
+import androidx.paging.PositionalDataSource;
+import androidx.room.InvalidationTracker;
 
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
 
 public class CalendarRepository {
+    private static final String TAG = "CalendarRepository";
+
+    /**
+     * The configuration used for all paged lists of events. Pages are loaded a screen or two at a
+     * time and placeholders are disabled so every item handed to an adapter is a real event.
+     */
+    private static final PagedList.Config PAGED_LIST_CONFIG = new PagedList.Config.Builder()
+            .setPageSize(30)
+            .setPrefetchDistance(30)
+            .setEnablePlaceholders(false)
+            .build();
+
+    /**
+     * How long single-event writes are held so that repeated writes to the same event can be
+     * coalesced into one.
+     */
+    private static final long WRITE_WINDOW_MILLIS = 300;
+
+    /**
+     * The maximum number of days held in the day cache.
+     */
+    private static final int DAY_CACHE_CAPACITY = 31;
+
+    /**
+     * The default number of days on either side of the day being shown that are loaded into the
+     * day cache ahead of time.
+     */
+    private static final int PREFETCH_RADIUS = 7;
+
+    /**
+     * How far a page of the agenda looks for occurrences of recurring events once there are no
+     * more single events in that direction.
+     */
+    private static final long AGENDA_HORIZON_MILLIS = 366 * DayCache.DAY_MILLIS;
+
+    /**
+     * The number of imported events committed in each transaction.
+     */
+    private static final int IMPORT_BATCH_SIZE = 500;
+
+    /**
+     * The number of upcoming reminders kept in memory.
+     */
+    private static final int REMINDER_CAPACITY = 32;
+
     private final CalendarDataBase database;
     private final CalendarDao calendarDao;
-    private final Executor executor = Executors.newSingleThreadExecutor();
+    private final WriteBehindQueue writeQueue;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final DayCache dayCache = new DayCache(DAY_CACHE_CAPACITY);
+    private final DayPrefetcher prefetcher = new DayPrefetcher(this::prefetchDay, PREFETCH_RADIUS);
+    private final Executor readExecutor;
+    private final Executor transferExecutor = Executors.newSingleThreadExecutor();
+    private final ReminderScheduler reminders;
+
+    /**
+     * The task started by warmUp() and the day it loads. The first load of that day waits for the
+     * task instead of querying again; the task is cleared once it has been waited for.
+     */
+    private volatile FutureTask<Void> warmUpTask;
+    private volatile long warmUpDay;
+
+    /**
+     * Everything currently showing events from the day cache, notified when their day changes.
+     * They are held weakly since a paged data source is never told when its list is dropped.
+     */
+    private final Set<DayObserver> dayObservers = Collections.synchronizedSet(
+            Collections.newSetFromMap(new WeakHashMap<DayObserver, Boolean>()));
+
+    /**
+     * Everything that needs to know about every write, called (on the writer thread) after each
+     * commit.
+     */
+    private final Set<Runnable> writeObservers = new CopyOnWriteArraySet<>();
+
+    /**
+     * The timeline layout of each recently shown day. A layout is only current while the day
+     * cache still holds the same snapshot of events it was computed from, so a write that touches
+     * a day causes just that day to be laid out again.
+     */
+    private final Map<Long, TimelineLayout> layoutCache = new LinkedHashMap<Long, TimelineLayout>(DAY_CACHE_CAPACITY, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Entry<Long, TimelineLayout> eldest) {
+            return size() > DAY_CACHE_CAPACITY;
+        }
+    };
 
-    private CalendarRepository(Context context) {
-        database = Room.databaseBuilder(
-                context.getApplicationContext(),
-                CalendarDataBase.class,
-                "calendar_database").build();
+    private CalendarRepository(Context context, DatabaseConfig config) {
+        readExecutor = Metrics.timeQueue("queue.read", config.createReadExecutor());
+        ScheduledExecutorService writeExecutor = config.createWriteExecutor();
+        database = config.openDatabase(context, readExecutor, writeExecutor);
         calendarDao = database.calendarDao();
+        writeQueue = new WriteBehindQueue(new WriteBehindQueue.Sink() {
+            @Override
+            public void commit(@NonNull EventBatch batch) {
+                write(batch);
+            }
+
+            @Override
+            public void onCommitted(@NonNull EventBatch batch) {
+                afterCommit(batch);
+            }
+        }, WRITE_WINDOW_MILLIS, writeExecutor);
+        Context appContext = context.getApplicationContext();
+        reminders = new ReminderScheduler(ReminderScheduler.Clock.SYSTEM, this::loadRemindersAfter,
+                new ReminderNotifier(appContext), REMINDER_CAPACITY);
+        writeQueue.execute(() -> reminders.start(ReminderNotifier.getFiredThrough(appContext)));
     }
 
     public LiveData<List<Event>> getAllEvents() {
         return calendarDao.getAllEvents();
     }
 
+    public LiveData<PagedList<Event>> getAllEventsPaged() {
+        return new LivePagedListBuilder<>(calendarDao.getAllEventsPaged(), PAGED_LIST_CONFIG)
+                .setFetchExecutor(readExecutor)
+                .build();
+    }
+
     public LiveData<Event> getEventById(UUID id) {
         return calendarDao.getEventById(id);
     }
 
+    /**
+     * Get the events between two dates, with recurring events expanded into their occurrences
+     * between those dates.
+     * @param start the start date
+     * @param end the end date
+     * @return live-data view of the events between those dates, ordered by start time
+     */
     public LiveData<List<Event>> getEventsBetween(Date start, Date end) {
-        return calendarDao.getEventsBetween(start, end);
+        MediatorLiveData<List<Event>> events = new MediatorLiveData<>();
+        events.addSource(calendarDao.getEventsBetween(start, end), rows -> readExecutor.execute(() ->
+                events.postValue(expandOccurrences(rows, start.getTime(), end.getTime() + 1))));
+        return events;
     }
 
+    /**
+     * Paged version of getEventsBetween() for single events only. Recurring events are not
+     * included; use getEventsBetween() or getAgenda() when their occurrences are needed.
+     * @param start the start date
+     * @param end the end date
+     * @return live-data view of the paged single events between those dates
+     */
+    public LiveData<PagedList<Event>> getEventsBetweenPaged(Date start, Date end) {
+        return new LivePagedListBuilder<>(calendarDao.getEventsBetweenPaged(start, end), PAGED_LIST_CONFIG)
+                .setFetchExecutor(readExecutor)
+                .build();
+    }
+
+    /**
+     * Get the events on a day. Days are served from an in-memory cache when possible and only go
+     * to the database the first time they are seen or after a write touches them.
+     * @param day the start of the day
+     * @return live-data view of the events on that day; the list is an immutable snapshot
+     */
     public LiveData<List<Event>> getEventsOnDay(Date day) {
-        return calendarDao.getEventsOnDay(day);
+        return new DayLiveData(day.getTime(), true);
     }
 
-    public void addEvent(Event event) {
-        executor.execute(() -> {
-            calendarDao.addEvent(event);
+    /**
+     * Get an occurrence of a recurring event as expanded from its series, for showing an
+     * occurrence that has not been replaced by an event of its own.
+     * @param seriesId the id of the series
+     * @param start the start of the occurrence in epoch milliseconds
+     * @return live-data view of the occurrence, or of null if the series no longer has it
+     */
+    public LiveData<Event> getOccurrence(UUID seriesId, long start) {
+        return Transformations.map(calendarDao.getEventById(seriesId), series -> {
+            if (series == null || series.recurrence == null) { return null; }
+            for (Event occurrence : expandOccurrences(Collections.singletonList(series), start, start + 1)) {
+                if (occurrence.startTime.getTime() == start) { return occurrence; }
+            }
+            return null;
         });
     }
 
-    public void removeEvent(Event event) {
-        executor.execute(() -> {
-            calendarDao.removeEvent(event);
+    /**
+     * Get the timeline layouts of a run of days, such as a week. Each day is laid out on a
+     * background thread, and is only laid out again when a write touches that day. The days are
+     * prefetched around as one range while the timeline is observed, instead of around each day.
+     * @param firstDay the first day
+     * @param days the number of days
+     * @return live-data view of the layout of each day, in order; only set once all of the days
+     *         have been laid out
+     */
+    public LiveData<List<TimelineLayout>> getTimeline(Date firstDay, int days) {
+        long first = DateUtils.startOfDay(firstDay.getTime());
+        long last = DateUtils.addDays(first, days - 1);
+        MediatorLiveData<List<TimelineLayout>> timeline = new MediatorLiveData<List<TimelineLayout>>() {
+            @Override
+            protected void onActive() {
+                super.onActive();
+                prefetcher.prefetchAround(first, last);
+            }
+        };
+        TimelineLayout[] layouts = new TimelineLayout[days];
+        int[] versions = new int[days];
+        long day = first;
+        for (int i = 0; i < days; i++) {
+            final int index = i;
+            final long dayStart = day;
+            timeline.addSource(new DayLiveData(dayStart, false), events -> {
+                int version = ++versions[index];
+                readExecutor.execute(() -> {
+                    TimelineLayout layout = getLayout(dayStart, events);
+                    mainHandler.post(() -> {
+                        if (version != versions[index]) { return; }
+                        layouts[index] = layout;
+                        for (TimelineLayout l : layouts) {
+                            if (l == null) { return; }
+                        }
+                        timeline.setValue(Collections.unmodifiableList(Arrays.asList(layouts.clone())));
+                    });
+                });
+            });
+            day = DateUtils.addDays(day, 1);
+        }
+        return timeline;
+    }
+
+    /**
+     * Get the layout of a day from the layout cache, or compute it if the events have changed
+     * since it was cached.
+     */
+    private TimelineLayout getLayout(long day, List<Event> events) {
+        synchronized (layoutCache) {
+            TimelineLayout layout = layoutCache.get(day);
+            if (layout != null && layout.source == events) { return layout; }
+        }
+        TimelineLayout layout = TimelineLayout.compute(day, events);
+        synchronized (layoutCache) {
+            layoutCache.put(day, layout);
+        }
+        return layout;
+    }
+
+    /**
+     * Paged version of getEventsOnDay(), backed by the same cache.
+     * @param day the start of the day
+     * @return live-data view of the paged events on that day
+     */
+    public LiveData<PagedList<Event>> getEventsOnDayPaged(Date day) {
+        long dayStart = day.getTime();
+        DataSource.Factory<Integer, Event> factory = new DataSource.Factory<Integer, Event>() {
+            @NonNull
+            @Override
+            public DataSource<Integer, Event> create() {
+                return new DayDataSource(dayStart);
+            }
+        };
+        return new LivePagedListBuilder<>(factory, PAGED_LIST_CONFIG)
+                .setFetchExecutor(readExecutor)
+                .build();
+    }
+
+    /**
+     * Get the summary of the days in a month that have events starting on them, including the
+     * occurrences of recurring series. The single events are summarized by the database and the
+     * series are expanded and merged in on a background thread whenever either changes.
+     * @param year the year (e.g. 2021)
+     * @param month the month (0-11, as used by Calendar)
+     * @return live-data view of the summaries of the days with events, ordered by day
+     */
+    public LiveData<List<DaySummary>> getMonthSummary(int year, int month) {
+        Date start = DateUtils.getDate(year, month, 1);
+        Date end = DateUtils.getDate(year, month + 1, 1);
+        LiveData<List<DaySummary>> singles = calendarDao.getDaySummaries(start, end);
+        LiveData<List<Event>> series = calendarDao.getSeriesBetween(start, end);
+        MediatorLiveData<List<DaySummary>> summaries = new MediatorLiveData<>();
+        int[] versions = new int[1];
+        Observer<Object> merge = ignored -> {
+            List<DaySummary> days = singles.getValue();
+            List<Event> recurring = series.getValue();
+            if (days == null || recurring == null) { return; }
+            int version = ++versions[0];
+            readExecutor.execute(() -> {
+                List<DaySummary> merged = addOccurrences(days, recurring, start.getTime(), end.getTime());
+                mainHandler.post(() -> {
+                    if (version == versions[0]) { summaries.setValue(merged); }
+                });
+            });
+        };
+        summaries.addSource(singles, merge);
+        summaries.addSource(series, merge);
+        return summaries;
+    }
+
+    /**
+     * Add the occurrences of recurring series that start within a range to the summaries of the
+     * days of the single events in that range.
+     * @param summaries the summaries of the single events, ordered by day
+     * @param series the stored events of the series that may occur within the range
+     * @param start the start of the range in epoch milliseconds
+     * @param end the end of the range in epoch milliseconds, exclusive
+     * @return the summaries of the days with events or occurrences, ordered by day
+     */
+    static List<DaySummary> addOccurrences(List<DaySummary> summaries, List<Event> series, long start, long end) {
+        if (series.isEmpty()) { return summaries; }
+        // day -> {count, type mask}
+        TreeMap<Long, int[]> days = new TreeMap<>();
+        for (DaySummary summary : summaries) {
+            days.put(summary.day, new int[] { summary.count, summary.getTypeMask() });
+        }
+        for (Event occurrence : expandOccurrences(series, start, end)) {
+            long occurrenceStart = occurrence.startTime.getTime();
+            // like the single events, only counted on the day they start
+            if (occurrenceStart < start) { continue; }
+            long day = DateUtils.startOfDay(occurrenceStart);
+            int[] summary = days.get(day);
+            if (summary == null) {
+                summary = new int[2];
+                days.put(day, summary);
+            }
+            summary[0]++;
+            summary[1] |= 1 << occurrence.type.ordinal();
+        }
+        List<DaySummary> merged = new ArrayList<>(days.size());
+        for (Map.Entry<Long, int[]> day : days.entrySet()) {
+            merged.add(new DaySummary(day.getKey(), day.getValue()[0], day.getValue()[1]));
+        }
+        return merged;
+    }
+
+    /**
+     * Search the names and descriptions of all events. Every word in the text must match the
+     * start of a word in the event, so this can be called as the user types.
+     * @param text the text typed by the user
+     * @return live-data view of the paged matching events, best matches first
+     */
+    public LiveData<PagedList<Event>> search(String text) {
+        String match = toMatchQuery(text);
+        DataSource.Factory<Integer, Event> factory = match.isEmpty() ?
+                new DataSource.Factory<Integer, Event>() {
+                    @NonNull
+                    @Override
+                    public DataSource<Integer, Event> create() {
+                        return new ListDataSource(Collections.emptyList());
+                    }
+                } : new DataSource.Factory<Integer, Event>() {
+                    @NonNull
+                    @Override
+                    public DataSource<Integer, Event> create() {
+                        return new SearchDataSource(match);
+                    }
+                };
+        return new LivePagedListBuilder<>(factory, PAGED_LIST_CONFIG)
+                .setFetchExecutor(readExecutor)
+                .build();
+    }
+
+    /**
+     * Convert user-typed text to an FTS4 MATCH expression where each word is a prefix query. All
+     * characters that have a special meaning to FTS are dropped.
+     * @param text the text typed by the user
+     * @return the MATCH expression, or an empty string if there are no words to search for
+     */
+    static String toMatchQuery(String text) {
+        StringBuilder match = new StringBuilder();
+        for (String word : text.split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) { continue; }
+            if (match.length() > 0) { match.append(' '); }
+            match.append(word).append('*');
+        }
+        return match.toString();
+    }
+
+    /**
+     * @return the current hit, miss and eviction statistics of the day cache
+     */
+    public DayCache.Stats getDayCacheStats() {
+        return dayCache.getStats();
+    }
+
+    /**
+     * Get a snapshot of the metrics of the app (see Metrics) along with the statistics of the day
+     * cache, prefetching and the write queue.
+     * @return the snapshot as JSON
+     */
+    public JSONObject getMetricsSnapshot() {
+        JSONObject json = Metrics.snapshot();
+        try {
+            DayCache.Stats cache = dayCache.getStats();
+            json.put("dayCache", new JSONObject().put("hits", cache.hits).put("misses", cache.misses)
+                    .put("evictions", cache.evictions).put("size", cache.size).put("hitRate", cache.hitRate()));
+            DayPrefetcher.Stats prefetch = prefetcher.getStats();
+            json.put("prefetch", new JSONObject().put("requests", prefetch.requests).put("prefetched", prefetch.prefetched)
+                    .put("used", prefetch.used).put("cancelled", prefetch.cancelled)
+                    .put("hitRate", prefetch.hitRate()).put("accuracy", prefetch.accuracy()));
+            json.put("writes", new JSONObject().put("submitted", getWritesSubmitted()).put("committed", getWritesCommitted()));
+        } catch (JSONException e) {
+            // only thrown for non-finite numbers, which are never put
+            throw new IllegalStateException(e);
+        }
+        return json;
+    }
+
+    /**
+     * @return the current statistics of prefetching the days around the day being shown
+     */
+    public DayPrefetcher.Stats getPrefetchStats() {
+        return prefetcher.getStats();
+    }
+
+    /**
+     * Set how many days on either side of the day being shown are loaded ahead of time.
+     * @param radius the number of days on each side, 0 to disable prefetching
+     */
+    public void setPrefetchRadius(int radius) {
+        prefetcher.setRadius(radius);
+    }
+
+    /**
+     * Drop everything cached by day after the time zone used by DateUtils changes, since the days
+     * are keyed by their local midnight, and have everything showing a day load it again.
+     */
+    public void onTimeZoneChanged() {
+        dayCache.clear();
+        synchronized (layoutCache) {
+            layoutCache.clear();
+        }
+        List<DayObserver> observers;
+        synchronized (dayObservers) {
+            observers = new ArrayList<>(dayObservers);
+        }
+        for (DayObserver observer : observers) {
+            observer.onDayChanged();
+        }
+    }
+
+    /**
+     * Open the database and load a day into the day cache in the background, so that the first
+     * screen does not pay for opening (and possibly creating or migrating) the database. Meant to
+     * be called once, as soon as the app starts, before anything else uses the repository.
+     * @param day the day that will be shown first, normally today
+     */
+    public void warmUp(Date day) {
+        long dayStart = DateUtils.startOfDay(day.getTime());
+        FutureTask<Void> task = new FutureTask<>(() -> {
+            long start = Metrics.start("startup.warmUp");
+            try {
+                database.getOpenHelper().getWritableDatabase();
+                prefetchDay(dayStart);
+            } finally {
+                Metrics.stop("startup.warmUp", start);
+            }
+        }, null);
+        warmUpDay = dayStart;
+        warmUpTask = task;
+        // the read pool runs tasks in order, so any load that waits for this task was queued
+        // after it and it is already running or done
+        readExecutor.execute(task);
+    }
+
+    /**
+     * If the warm-up is loading the given day, wait for it to finish so its result is used.
+     */
+    private void awaitWarmUp(long day) {
+        FutureTask<Void> task = warmUpTask;
+        if (task == null || day != warmUpDay) { return; }
+        warmUpTask = null;
+        try {
+            task.get();
+            Metrics.increment("startup.warmUpUsed");
+        } catch (ExecutionException e) {
+            // the day is simply loaded again (and fails again if the database is unusable)
+            Log.w(TAG, "Warm-up failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Load the events on a day from the cache or, if they are not cached, from the database.
+     * The days around it are then prefetched in the background. Must not be called on the main
+     * thread.
+     * @param day the start of the day
+     * @return an immutable snapshot of the events on that day
+     */
+    List<Event> loadEventsOnDay(long day) {
+        return loadEventsOnDay(day, true);
+    }
+
+    /**
+     * Same as loadEventsOnDay() but optionally leaving out the prefetcher, for a day shown as
+     * part of a range whose neighbours the caller prefetches.
+     * @param day the start of the day
+     * @param prefetch true to count the day as shown and prefetch the days around it
+     * @return an immutable snapshot of the events on that day
+     */
+    private List<Event> loadEventsOnDay(long day, boolean prefetch) {
+        long start = Metrics.start("repository.loadEventsOnDay");
+        try {
+            awaitWarmUp(day);
+            List<Event> events = dayCache.get(day);
+            if (prefetch) { prefetcher.onDayRequested(day, events != null); }
+            if (events == null) {
+                long generation = dayCache.getGeneration();
+                events = dayCache.put(day, queryDay(day), generation);
+            }
+            if (prefetch) { prefetcher.prefetchAround(day); }
+            return events;
+        } finally {
+            Metrics.stop("repository.loadEventsOnDay", start);
+        }
+    }
+
+    /**
+     * Load a day into the day cache for the prefetcher, without counting it as a cache lookup.
+     */
+    private boolean prefetchDay(long day) {
+        if (dayCache.contains(day)) { return false; }
+        long generation = dayCache.getGeneration();
+        dayCache.put(day, queryDay(day), generation);
+        return true;
+    }
+
+    /**
+     * Load the events on a day from the database, with recurring events expanded.
+     */
+    private List<Event> queryDay(long day) {
+        long start = Metrics.start("dao.loadEventsOnDay");
+        try {
+            return expandOccurrences(calendarDao.loadEventsOnDay(new Date(day)), day, day + DayCache.DAY_MILLIS);
+        } finally {
+            Metrics.stop("dao.loadEventsOnDay", start);
+        }
+    }
+
+    /**
+     * Load the events between two dates, with recurring events expanded. Must not be called on
+     * the main thread.
+     * @param start the start of the range in epoch milliseconds
+     * @param end the end of the range in epoch milliseconds, exclusive
+     * @return the events that overlap the range, ordered by start time
+     */
+    List<Event> loadEventsBetween(long start, long end) {
+        long timer = Metrics.start("dao.loadEventsBetween");
+        try {
+            return expandOccurrences(calendarDao.loadEventsBetween(new Date(start), new Date(end - 1)), start, end);
+        } finally {
+            Metrics.stop("dao.loadEventsBetween", timer);
+        }
+    }
+
+    /**
+     * Get an agenda of all events that can be paged forward and backward from a time. Recurring
+     * events are expanded into their occurrences. The agenda updates itself when events change.
+     * @param start the time to start at; the first events loaded start at or after it
+     * @return the agenda, which has no events until it is observed
+     */
+    AgendaPager getAgenda(Date start) {
+        return new AgendaPager(this::loadAgendaPage, readExecutor, writeObservers, start.getTime());
+    }
+
+    /**
+     * Load a page of the agenda. Single events are paged with keyset queries on their start time
+     * and id. The occurrences of recurring events between the position and the far end of the
+     * page are merged in; if there are no more single events, the page extends up to
+     * AGENDA_HORIZON_MILLIS to look for occurrences. Must not be called on the main thread.
+     */
+    private AgendaPager.Page loadAgendaPage(AgendaPager.Key from, boolean forward, int limit) {
+        Date time = new Date(from.time);
+        List<Event> singles = forward ? calendarDao.loadEventsAfter(time, from.id, limit) : calendarDao.loadEventsBefore(time, from.id, limit);
+        boolean full = singles.size() == limit;
+        AgendaPager.Key end;
+        if (full) {
+            end = AgendaPager.Key.of(singles.get(limit - 1));
+        } else {
+            // every remaining single event is in this page so it must reach at least the last one
+            long horizon = forward ? from.time + AGENDA_HORIZON_MILLIS : from.time - AGENDA_HORIZON_MILLIS;
+            if (!singles.isEmpty()) {
+                long last = singles.get(singles.size() - 1).startTime.getTime();
+                horizon = forward ? Math.max(horizon, last) : Math.min(horizon, last);
+            }
+            end = new AgendaPager.Key(horizon, forward ? AgendaPager.Key.MAX_ID : AgendaPager.Key.MIN_ID);
+        }
+
+        long start = Math.min(from.time, end.time), stop = Math.max(from.time, end.time);
+        List<Event> events = new ArrayList<>(singles);
+        for (Event occurrence : expandOccurrences(calendarDao.loadSeriesBetween(new Date(start), new Date(stop)), start, stop + 1)) {
+            AgendaPager.Key key = AgendaPager.Key.of(occurrence);
+            if (forward ? key.compareTo(from) > 0 && key.compareTo(end) <= 0 : key.compareTo(from) < 0 && key.compareTo(end) >= 0) {
+                events.add(occurrence);
+            }
+        }
+        Collections.sort(events, forward ? Event.ORDER : Collections.reverseOrder(Event.ORDER));
+
+        boolean more = full;
+        if (events.size() > limit) {
+            events = new ArrayList<>(events.subList(0, limit));
+            end = AgendaPager.Key.of(events.get(limit - 1));
+            more = true;
+        } else if (!full) {
+            more = forward ? calendarDao.hasSeriesAfter(new Date(end.time)) : calendarDao.hasSeriesBefore(new Date(end.time));
+        }
+        if (!forward) { Collections.reverse(events); }
+        return new AgendaPager.Page(events, end, more);
+    }
+
+    /**
+     * Load the next reminders for the reminder scheduler: those of single events from the
+     * reminderTime index merged with the occurrences of the recurring series that have reminders.
+     */
+    private List<ReminderScheduler.Reminder> loadRemindersAfter(long time, UUID id, long until, int limit) {
+        List<ReminderScheduler.Reminder> reminders = new ArrayList<>();
+        List<Event> singles = calendarDao.loadRemindersAfter(new Date(time), id, new Date(until), limit);
+        for (Event event : singles) {
+            ReminderScheduler.addReminders(event, time, id, until, reminders);
+        }
+        // when the limit was reached, there may be more single reminders after the last one
+        // loaded, so occurrences are only merged up to it
+        ReminderScheduler.Reminder last = singles.size() == limit && !reminders.isEmpty() ?
+                reminders.get(reminders.size() - 1) : null;
+        long end = last == null ? until : last.time;
+        List<ReminderScheduler.Reminder> occurrences = new ArrayList<>();
+        for (Event series : calendarDao.loadSeriesWithReminders(new Date(time))) {
+            ReminderScheduler.addReminders(series, time, id, end, occurrences);
+        }
+        for (ReminderScheduler.Reminder occurrence : occurrences) {
+            if (last == null || ReminderScheduler.ORDER.compare(occurrence, last) < 0) { reminders.add(occurrence); }
+        }
+        Collections.sort(reminders, ReminderScheduler.ORDER);
+        return reminders.size() > limit ? new ArrayList<>(reminders.subList(0, limit)) : reminders;
+    }
+
+    /**
+     * Fire any reminders that are due and set the alarm for the next one. Runs on the write queue
+     * after any pending writes, so it sees the latest events.
+     * @param done called (on a background thread) once finished, may be null
+     */
+    public void checkReminders(Runnable done) {
+        writeQueue.execute(() -> {
+            try {
+                reminders.onAlarm();
+            } finally {
+                if (done != null) { done.run(); }
+            }
+        });
+    }
+
+    /**
+     * Find the events that an event would conflict with: the events of the blocking types (see
+     * ConflictDetector.BLOCKING_TYPES) that overlap it. Recurring events are checked against
+     * their occurrences.
+     * @param event the event to check, it does not need to be saved yet
+     * @param callback called on the main thread with the conflicting events ordered by start
+     *                 time, empty if there are none
+     */
+    public void findConflicts(Event event, ConflictCallback callback) {
+        if (event.endTime == null) {
+            callback.onConflictsFound(event, Collections.emptyList());
+            return;
+        }
+        Event snapshot = event.copy();
+        readExecutor.execute(() -> {
+            List<Event> conflicts = ConflictDetector.findConflicts(snapshot,
+                    loadEventsBetween(snapshot.startTime.getTime(), snapshot.endTime.getTime()),
+                    ConflictDetector.BLOCKING_TYPES);
+            mainHandler.post(() -> callback.onConflictsFound(event, conflicts));
+        });
+    }
+
+    /**
+     * Find the free time in a range, such as the first free 90 minutes between 9am and 5pm this
+     * week. The events in the range are loaded once, with recurring events expanded, and the free
+     * slots are found in a single pass over them.
+     * @param start the start of the range
+     * @param end the end of the range, exclusive
+     * @param finder the working hours and minimum duration of the slots to find
+     * @param callback called on the main thread with the free slots ordered by start time
+     */
+    public void findFreeSlots(Date start, Date end, FreeSlotFinder finder, FreeSlotCallback callback) {
+        long from = start.getTime(), to = end.getTime();
+        readExecutor.execute(() -> {
+            List<TimeSlot> slots = finder.findFreeSlots(loadEventsBetween(from, to), from, to);
+            mainHandler.post(() -> callback.onFreeSlotsFound(slots));
+        });
+    }
+
+    /**
+     * Replace each recurring series in a list of events with its occurrences that overlap a
+     * window of time. Occurrences get an id derived from the series id and their start time so
+     * they are stable across loads.
+     * @param events events loaded from the database
+     * @param start the start of the window in epoch milliseconds
+     * @param end the end of the window in epoch milliseconds, exclusive
+     * @return the events and occurrences, ordered by start time
+     */
+    static List<Event> expandOccurrences(List<Event> events, long start, long end) {
+        boolean anyRecurring = false;
+        for (Event event : events) {
+            if (event.recurrence != null) { anyRecurring = true; break; }
+        }
+        if (!anyRecurring) { return events; }
+
+        List<Event> expanded = new ArrayList<>(events.size());
+        for (Event event : events) {
+            if (event.recurrence == null) {
+                expanded.add(event);
+                continue;
+            }
+            long seriesStart = event.startTime.getTime();
+            long duration = event.endTime == null ? 0 : event.endTime.getTime() - seriesStart;
+            for (long occurrenceStart : event.recurrence.expand(seriesStart, duration, start, end)) {
+                Event occurrence = event.copy();
+                occurrence.id = occurrenceId(event.id, occurrenceStart);
+                occurrence.startTime = new Date(occurrenceStart);
+                occurrence.endTime = event.endTime == null ? null : new Date(occurrenceStart + duration);
+                occurrence.recurrence = null;
+                occurrence.recurrenceEnd = null;
+                occurrence.seriesId = event.id;
+                occurrence.occurrence = true;
+                expanded.add(occurrence);
+            }
+        }
+        Collections.sort(expanded, Event.ORDER);
+        return expanded;
+    }
+
+    /**
+     * @return the id of the occurrence of a series that starts at the given time
+     */
+    private static UUID occurrenceId(UUID seriesId, long occurrenceStart) {
+        ByteBuffer bytes = ByteBuffer.allocate(24);
+        bytes.putLong(seriesId.getMostSignificantBits());
+        bytes.putLong(seriesId.getLeastSignificantBits());
+        bytes.putLong(occurrenceStart);
+        return UUID.nameUUIDFromBytes(bytes.array());
+    }
+
+    /**
+     * Make the derived fields of an event consistent before writing it.
+     */
+    private static void prepareForWrite(Event event) {
+        if (event.recurrence == null) {
+            event.recurrenceEnd = null;
+        } else {
+            long start = event.startTime.getTime();
+            long duration = event.endTime == null ? 0 : event.endTime.getTime() - start;
+            event.recurrenceEnd = new Date(event.recurrence.getSeriesEnd(start, duration));
+        }
+        // a series has a reminder for every occurrence, so it has no single reminder time
+        event.reminderTime = event.reminderMinutes == null || event.recurrence != null ? null :
+                new Date(event.startTime.getTime() - event.reminderMinutes * 60 * 1000L);
+    }
+
+    /**
+     * Import the events in an iCalendar (.ics) file. The file is streamed on a background thread
+     * and committed in batches on the write queue, so it can be far larger than memory: the import
+     * waits for each batch to be committed before reading the next.
+     * @param in the file contents, closed once the import stops
+     * @param listener receives progress and completion on the main thread, may be null
+     * @return the running import, which can be cancelled
+     */
+    public IcsImporter.Task importIcs(InputStream in, IcsImporter.Listener listener) {
+        IcsImporter.Task task = new IcsImporter.Task();
+        IcsImporter.Sink sink = new IcsImporter.Sink() {
+            @Override
+            public void commit(@NonNull List<Event> events) {
+                for (Event event : events) { prepareForWrite(event); }
+                runOnWriteQueue(() -> {
+                    CalendarRepository.this.commit(new EventBatch().upsert(events));
+                    return null;
+                });
+            }
+
+            @Override
+            public boolean addExceptions(@NonNull UUID seriesId, @NonNull List<Date> occurrenceStarts) {
+                return runOnWriteQueue(() -> {
+                    Event series = calendarDao.loadEventById(seriesId);
+                    if (series == null || series.recurrence == null) { return false; }
+                    for (Date start : occurrenceStarts) {
+                        series.recurrence = series.recurrence.withException(start);
+                    }
+                    prepareForWrite(series);
+                    CalendarRepository.this.commit(new EventBatch().update(Collections.singletonList(series)));
+                    return true;
+                });
+            }
+        };
+        IcsImporter.Listener mainThreadListener = listener == null ? null : new IcsImporter.Listener() {
+            @Override
+            public void onProgress(int imported, long bytesRead) {
+                mainHandler.post(() -> listener.onProgress(imported, bytesRead));
+            }
+
+            @Override
+            public void onComplete(int imported, boolean cancelled, Exception error) {
+                mainHandler.post(() -> listener.onComplete(imported, cancelled, error));
+            }
+        };
+        transferExecutor.execute(() -> {
+            IcsImporter importer = new IcsImporter(sink, IMPORT_BATCH_SIZE);
+            int imported = 0;
+            Exception error = null;
+            try {
+                imported = importer.run(in, task, mainThreadListener);
+            } catch (IOException | RuntimeException e) {
+                error = e;
+            } finally {
+                try { in.close(); } catch (IOException ignored) { }
+            }
+            if (mainThreadListener != null) {
+                mainThreadListener.onComplete(imported, task.isCancelled(), error);
+            }
         });
+        return task;
+    }
+
+    /**
+     * Run a task on the write queue, after any pending writes, and wait for it to finish. Must
+     * not be called on the write queue's thread.
+     * @param task the task
+     * @return the result of the task
+     * @throws RuntimeException whatever the task threw, or IllegalStateException if interrupted
+     */
+    private <T> T runOnWriteQueue(Callable<T> task) {
+        FutureTask<T> future = new FutureTask<>(task);
+        writeQueue.execute(future);
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) { throw (RuntimeException) cause; }
+            if (cause instanceof Error) { throw (Error) cause; }
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(false);
+            throw new IllegalStateException("Interrupted while waiting for a write", e);
+        }
+    }
+
+    /**
+     * Export events as an iCalendar (.ics) file or as JSON lines. Events are streamed from the
+     * database in start time order on a background thread without loading them all at once.
+     * Recurring events are written once with their rule, if any of their occurrences are in
+     * the range.
+     * @param out where to write the events, closed once the export stops
+     * @param format the format to write
+     * @param start only export events starting at or after this time (and series still
+     *              occurring then), or null for no limit
+     * @param end only export events starting before this time, or null for no limit
+     * @param types only export events of these types, or null for all types
+     * @param listener receives the result on the main thread, may be null
+     */
+    public void exportEvents(OutputStream out, EventExporter.Format format, Date start, Date end,
+                             Set<EventType> types, EventExporter.Listener listener) {
+        Date from = start == null ? new Date(Long.MIN_VALUE) : start;
+        Date to = end == null ? new Date(Long.MAX_VALUE) : end;
+        transferExecutor.execute(() -> {
+            int exported = 0;
+            Exception error = null;
+            try (Cursor cursor = calendarDao.getEventCursor(from, to)) {
+                exported = new EventExporter(format, types).export(cursor, out);
+            } catch (IOException | RuntimeException e) {
+                error = e;
+            } finally {
+                try { out.close(); } catch (IOException ignored) { }
+            }
+            if (listener != null) {
+                final int result = exported;
+                final Exception failure = error;
+                mainHandler.post(() -> listener.onComplete(result, failure));
+            }
+        });
+    }
+
+    /**
+     * Commit a batch of writes, invalidate exactly the cached days they touch and update the
+     * reminders of the events they touch. Only called on the write queue's thread.
+     * @param batch the writes to commit
+     */
+    private void commit(EventBatch batch) {
+        write(batch);
+        afterCommit(batch);
+    }
+
+    /**
+     * Write a batch to the database in one transaction, without notifying anything.
+     */
+    private void write(EventBatch batch) {
+        long start = Metrics.start("dao.applyBatch");
+        try {
+            calendarDao.applyBatch(batch);
+        } finally {
+            Metrics.stop("dao.applyBatch", start);
+        }
+    }
+
+    /**
+     * Invalidate the cached days a committed batch touches and notify the day observers, the
+     * reminders and the write observers about it.
+     */
+    private void afterCommit(EventBatch batch) {
+        Set<Long> days = new HashSet<>();
+        invalidate(batch.getAdded(), days);
+        invalidate(batch.getUpdated(), days);
+        invalidate(batch.getUpserted(), days);
+        invalidate(batch.getRemoved(), days);
+        List<Event> written = new ArrayList<>(batch.getAdded());
+        written.addAll(batch.getUpdated());
+        written.addAll(batch.getUpserted());
+        notifyDaysChanged(days, written, batch.getRemoved());
+        reminders.onEventsChanged(written, batch.getRemoved());
+        for (Runnable observer : writeObservers) {
+            observer.run();
+        }
+    }
+
+    private void invalidate(List<Event> events, Set<Long> days) {
+        for (Event event : events) {
+            dayCache.invalidate(event, days);
+        }
+    }
+
+    /**
+     * Notify the observers of the days that were invalidated or that the events overlap (or
+     * showed an older version of the events), whether or not those days were still cached.
+     */
+    private void notifyDaysChanged(Set<Long> days, List<Event> written, List<Event> removed) {
+        List<DayObserver> observers;
+        synchronized (dayObservers) {
+            observers = new ArrayList<>(dayObservers);
+        }
+        for (DayObserver observer : observers) {
+            long day = observer.getDay();
+            if (days.contains(day) || affects(written, day, observer.getEvents()) ||
+                    affects(removed, day, observer.getEvents())) {
+                observer.onDayChanged();
+            }
+        }
+    }
+
+    private static boolean affects(List<Event> events, long day, List<Event> shown) {
+        for (Event event : events) {
+            if (DayCache.affects(event, day, shown)) { return true; }
+        }
+        return false;
+    }
+
+    public void addEvent(Event event) {
+        Metrics.increment("repository.addEvent");
+        prepareForWrite(event);
+        // the queue holds on to the event until it is committed, so give it its own copy
+        writeQueue.add(event.copy());
+    }
+
+    /**
+     * Remove an event. Removing an occurrence of a recurring event only skips that occurrence.
+     * @param event the event to remove
+     */
+    public void removeEvent(Event event) {
+        Metrics.increment("repository.removeEvent");
+        if (event.occurrence) {
+            writeQueue.execute(() -> excludeOccurrence(event, null));
+        } else {
+            writeQueue.remove(event);
+        }
     }
 
     public void updateEvent(Event event) {
-        executor.execute(() -> {
-            calendarDao.updateEvent(event);
+        Metrics.increment("repository.updateEvent");
+        if (event.occurrence) {
+            overrideOccurrence(event);
+            return;
+        }
+        prepareForWrite(event);
+        writeQueue.update(event.copy());
+    }
+
+    /**
+     * Replace a single occurrence of a recurring event with a separate event that can be edited
+     * on its own. The occurrence is skipped by the series and the new event is stored with the
+     * occurrence's id, so it can be loaded with getEventById() once committed. Nothing is written
+     * if the occurrence has not been changed from how the series expands it.
+     * @param occurrence the occurrence, as expanded by this repository, with any edits
+     */
+    public void overrideOccurrence(Event occurrence) {
+        if (!occurrence.occurrence) { return; }
+        Event replacement = occurrence.copy();
+        replacement.occurrence = false;
+        writeQueue.execute(() -> excludeOccurrence(occurrence, replacement));
+    }
+
+    /**
+     * Skip an occurrence in its series and optionally add a replacement, in one transaction. Must
+     * be run on the write queue.
+     */
+    private void excludeOccurrence(Event occurrence, Event replacement) {
+        if (replacement != null && calendarDao.loadEventById(occurrence.id) != null) {
+            // already replaced by an earlier edit, so this is an edit of that replacement
+            prepareForWrite(replacement);
+            commit(new EventBatch().update(Collections.singletonList(replacement)));
+            return;
+        }
+        Event series = calendarDao.loadEventById(occurrence.seriesId);
+        if (series == null || series.recurrence == null) { return; }
+        // the occurrence's id is derived from its original start time, which is the one to skip
+        Date originalStart = null;
+        long start = series.startTime.getTime();
+        long duration = series.endTime == null ? 0 : series.endTime.getTime() - start;
+        for (long time : series.recurrence.expand(start, duration, occurrence.startTime.getTime() - DayCache.DAY_MILLIS * 366, occurrence.startTime.getTime() + DayCache.DAY_MILLIS * 366)) {
+            if (occurrenceId(series.id, time).equals(occurrence.id)) { originalStart = new Date(time); break; }
+        }
+        if (originalStart == null) { return; }
+        if (replacement != null && isUnchanged(replacement, series, originalStart.getTime())) { return; }
+        series.recurrence = series.recurrence.withException(originalStart);
+        prepareForWrite(series);
+        EventBatch batch = new EventBatch().update(Collections.singletonList(series));
+        if (replacement != null) {
+            prepareForWrite(replacement);
+            batch.upsert(Collections.singletonList(replacement));
+        }
+        commit(batch);
+    }
+
+    /**
+     * @return true if an edited occurrence is still the same as the occurrence of the series that
+     *         starts at the given time
+     */
+    private static boolean isUnchanged(Event edited, Event series, long start) {
+        if (edited.startTime.getTime() != start) { return false; }
+        if (edited.endTime == null || series.endTime == null) {
+            if (edited.endTime != series.endTime) { return false; }
+        } else if (edited.endTime.getTime() - start != series.endTime.getTime() - series.startTime.getTime()) {
+            return false;
+        }
+        return edited.name.equals(series.name) && edited.type == series.type &&
+                edited.description.equals(series.description) &&
+                (edited.reminderMinutes == null ? series.reminderMinutes == null : edited.reminderMinutes.equals(series.reminderMinutes));
+    }
+
+    /**
+     * Commit all pending single-event writes now instead of waiting for them to be coalesced with
+     * later writes. Call at lifecycle edges, such as when leaving an editor.
+     */
+    public void flush() {
+        writeQueue.flush();
+    }
+
+    /**
+     * @return the number of single-event writes submitted to the repository
+     */
+    public long getWritesSubmitted() {
+        return writeQueue.getSubmittedCount();
+    }
+
+    /**
+     * @return the number of submitted single-event writes that have been committed; coalescing
+     *         means several submitted writes can be committed as one row write
+     */
+    public long getWritesCommitted() {
+        return writeQueue.getCommittedCount();
+    }
+
+    /**
+     * Apply a batch of writes in a single transaction. Any pending single-event writes are
+     * committed first. The derived fields of the events written are filled in the same way as
+     * for addEvent() and updateEvent().
+     * @param batch the writes to apply
+     * @param callback called on the main thread once the batch has been committed or has failed,
+     *                 may be null
+     */
+    public void applyBatch(EventBatch batch, BatchCallback callback) {
+        for (Event event : batch.getAdded()) { prepareForWrite(event); }
+        for (Event event : batch.getUpdated()) { prepareForWrite(event); }
+        for (Event event : batch.getUpserted()) { prepareForWrite(event); }
+        writeQueue.execute(() -> {
+            Exception error = null;
+            try {
+                commit(batch);
+            } catch (RuntimeException e) {
+                error = e;
+            }
+            if (callback != null) {
+                final Exception result = error;
+                mainHandler.post(() -> callback.onBatchComplete(batch, result));
+            }
         });
     }
 
+    /**
+     * Callback for when a batch of writes finishes.
+     */
+    public interface BatchCallback {
+        /**
+         * Called once the batch has been committed or rolled back.
+         * @param batch the batch that was applied
+         * @param error null if the batch was committed, otherwise the reason it was rolled back
+         */
+        void onBatchComplete(EventBatch batch, Exception error);
+    }
+
+    /**
+     * Callback for when the conflicts of an event have been found.
+     */
+    public interface ConflictCallback {
+        /**
+         * @param event the event that was checked
+         * @param conflicts the events it conflicts with, empty if there are none
+         */
+        void onConflictsFound(Event event, List<Event> conflicts);
+    }
+
+    /**
+     * Callback for when the free slots in a range have been found.
+     */
+    public interface FreeSlotCallback {
+        /**
+         * @param slots the free slots, empty if there are none
+         */
+        void onFreeSlotsFound(List<TimeSlot> slots);
+    }
+
+    /**
+     * Something showing the events of a single day from the day cache.
+     */
+    private interface DayObserver {
+        /**
+         * @return the start of the day being shown
+         */
+        long getDay();
+
+        /**
+         * @return the events being shown, or null if none have been loaded yet
+         */
+        List<Event> getEvents();
+
+        /**
+         * Called (on a background thread) when a write touched the day.
+         */
+        void onDayChanged();
+    }
+
+    /**
+     * Live-data for the events on a single day. Loads from the day cache when it becomes active
+     * and reloads whenever a write touches the day while it is active.
+     */
+    private class DayLiveData extends LiveData<List<Event>> implements DayObserver {
+        private final long day;
+        private final boolean prefetch;
+
+        /**
+         * @param day the start of the day
+         * @param prefetch true to prefetch the days around it on each load (see loadEventsOnDay())
+         */
+        DayLiveData(long day, boolean prefetch) {
+            this.day = day;
+            this.prefetch = prefetch;
+        }
+
+        @Override
+        public long getDay() {
+            return day;
+        }
+
+        @Override
+        public List<Event> getEvents() {
+            return getValue();
+        }
+
+        @Override
+        public void onDayChanged() {
+            load();
+        }
+
+        @Override
+        protected void onActive() {
+            dayObservers.add(this);
+            load();
+        }
+
+        @Override
+        protected void onInactive() {
+            dayObservers.remove(this);
+        }
+
+        private void load() {
+            readExecutor.execute(() -> postValue(loadEventsOnDay(day, prefetch)));
+        }
+    }
+
+    /**
+     * Data source for pages of a fixed list of events.
+     */
+    private static class ListDataSource extends PositionalDataSource<Event> {
+        private final List<Event> events;
+
+        ListDataSource(List<Event> events) {
+            this.events = events;
+        }
+
+        @Override
+        public void loadInitial(@NonNull LoadInitialParams params, @NonNull LoadInitialCallback<Event> callback) {
+            int total = events.size();
+            int position = computeInitialLoadPosition(params, total);
+            int size = computeInitialLoadSize(params, position, total);
+            callback.onResult(events.subList(position, position + size), position, total);
+        }
+
+        @Override
+        public void loadRange(@NonNull LoadRangeParams params, @NonNull LoadRangeCallback<Event> callback) {
+            int end = Math.min(events.size(), params.startPosition + params.loadSize);
+            callback.onResult(events.subList(Math.min(params.startPosition, end), end));
+        }
+    }
+
+    /**
+     * Data source for the pages of a search. The matches are ranked once when the first page is
+     * loaded and each page then only loads its events by id, instead of every page query ranking
+     * and sorting all of the matches again to find its offset. The source is invalidated (causing
+     * a new one to be created) by any write to the events.
+     */
+    private class SearchDataSource extends PositionalDataSource<Event> {
+        private final String match;
+        private final InvalidationTracker.Observer observer = new InvalidationTracker.Observer("Event") {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                invalidate();
+            }
+        };
+        private volatile List<UUID> ranked = Collections.emptyList();
+
+        SearchDataSource(String match) {
+            this.match = match;
+            database.getInvalidationTracker().addWeakObserver(observer);
+            addInvalidatedCallback(() -> database.getInvalidationTracker().removeObserver(observer));
+        }
+
+        @Override
+        public void loadInitial(@NonNull LoadInitialParams params, @NonNull LoadInitialCallback<Event> callback) {
+            ranked = calendarDao.rankSearch(match);
+            int total = ranked.size();
+            int position = computeInitialLoadPosition(params, total);
+            int size = computeInitialLoadSize(params, position, total);
+            callback.onResult(load(position, size), position, total);
+        }
+
+        @Override
+        public void loadRange(@NonNull LoadRangeParams params, @NonNull LoadRangeCallback<Event> callback) {
+            callback.onResult(load(params.startPosition, params.loadSize));
+        }
+
+        /**
+         * Load a page of the ranked events, in rank order.
+         */
+        private List<Event> load(int position, int size) {
+            int end = Math.min(ranked.size(), position + size);
+            List<UUID> ids = ranked.subList(Math.min(position, end), end);
+            if (ids.isEmpty()) { return Collections.emptyList(); }
+            Map<UUID, Event> loaded = new HashMap<>();
+            for (Event event : calendarDao.loadEventsByIds(ids)) {
+                loaded.put(event.id, event);
+            }
+            List<Event> page = new ArrayList<>(ids.size());
+            for (UUID id : ids) {
+                Event event = loaded.get(id);
+                if (event != null) { page.add(event); }
+            }
+            // removed since it was ranked, the invalidation is on its way
+            if (page.size() < ids.size()) { invalidate(); }
+            return page;
+        }
+    }
+
+    /**
+     * Data source for the paged events of a single day. Every page comes from the same snapshot of
+     * the day cache, and the source is invalidated (causing a new one to be created) whenever a
+     * write touches the day.
+     */
+    private class DayDataSource extends PositionalDataSource<Event> implements DayObserver {
+        private final long day;
+        private volatile List<Event> events = Collections.emptyList();
+
+        DayDataSource(long day) {
+            this.day = day;
+            dayObservers.add(this);
+            addInvalidatedCallback(() -> dayObservers.remove(this));
+        }
+
+        @Override
+        public long getDay() {
+            return day;
+        }
+
+        @Override
+        public List<Event> getEvents() {
+            return events;
+        }
+
+        @Override
+        public void onDayChanged() {
+            invalidate();
+        }
+
+        @Override
+        public void loadInitial(@NonNull LoadInitialParams params, @NonNull LoadInitialCallback<Event> callback) {
+            events = loadEventsOnDay(day);
+            int total = events.size();
+            int position = computeInitialLoadPosition(params, total);
+            int size = computeInitialLoadSize(params, position, total);
+            callback.onResult(events.subList(position, position + size), position, total);
+        }
+
+        @Override
+        public void loadRange(@NonNull LoadRangeParams params, @NonNull LoadRangeCallback<Event> callback) {
+            int end = Math.min(events.size(), params.startPosition + params.loadSize);
+            callback.onResult(events.subList(Math.min(params.startPosition, end), end));
+        }
+    }
+
     // The single instance of the repository
     private static CalendarRepository INSTANCE;
 
@@ -69,8 +1370,18 @@ public class CalendarRepository {
     }
 
     public static void initialize(Context context) {
+        initialize(context, DatabaseConfig.getDefault());
+    }
+
+    /**
+     * Initialize the repository with a specific database configuration. Does nothing if the
+     * repository has already been initialized.
+     * @param context any context of the application
+     * @param config how to open and use the database
+     */
+    public static void initialize(Context context, DatabaseConfig config) {
         if (INSTANCE == null) {
-            INSTANCE = new CalendarRepository(context);
+            INSTANCE = new CalendarRepository(context, config);
         }
     }
 }
@@ -0,0 +1,191 @@
+package edu.moravian.csci299.mocalendar;
+
+import android.content.Context;
+import android.os.Process;
+
+import androidx.annotation.NonNull;
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * How the calendar database is opened and which threads use it. By default the database uses
+ * write-ahead logging so reads are never blocked by a write in progress, reads run on a small
+ * pool of their own, and all writes run one at a time on a single dedicated thread. Create one
+ * with the Builder and pass it to CalendarRepository.initialize().
+ * <p>
+ * The synchronous level and page cache size are set with PRAGMAs when the database is opened, on
+ * the primary connection only: with write-ahead logging Android opens the read-only connections
+ * itself and offers no way to run statements on them, so reads keep SQLite's default cache.
+ */
+public final class DatabaseConfig {
+    /**
+     * The SQLite synchronous levels: how often the database waits for data to reach the disk.
+     * With write-ahead logging, NORMAL is still safe from corruption; a power loss may only roll
+     * back the last few commits.
+     */
+    public enum Synchronous { OFF, NORMAL, FULL }
+
+    final String name;
+    final boolean writeAheadLogging;
+    final int readPoolSize;
+    final Synchronous synchronous;
+    final int cacheSizeKib;
+    private final ScheduledExecutorService writeExecutor;
+
+    private DatabaseConfig(Builder builder) {
+        name = builder.name;
+        writeAheadLogging = builder.writeAheadLogging;
+        readPoolSize = builder.readPoolSize;
+        synchronous = builder.synchronous;
+        cacheSizeKib = builder.cacheSizeKib;
+        writeExecutor = builder.writeExecutor;
+    }
+
+    /**
+     * @return the configuration used when none is given
+     */
+    public static DatabaseConfig getDefault() {
+        return new Builder().build();
+    }
+
+    /**
+     * Open the calendar database as configured.
+     * @param context any context of the application
+     * @param queryExecutor the executor Room runs queries on, normally createReadExecutor()
+     * @param transactionExecutor the executor Room runs transactions on, normally
+     *                            createWriteExecutor()
+     * @return the database
+     */
+    CalendarDataBase openDatabase(Context context, Executor queryExecutor, Executor transactionExecutor) {
+        return Room.databaseBuilder(context.getApplicationContext(), CalendarDataBase.class, name)
+                .addMigrations(CalendarDataBase.MIGRATIONS)
+                .setJournalMode(writeAheadLogging ?
+                        RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING : RoomDatabase.JournalMode.TRUNCATE)
+                .setQueryExecutor(queryExecutor)
+                .setTransactionExecutor(transactionExecutor)
+                .addCallback(CalendarDataBase.CALLBACK)
+                .addCallback(createCallback())
+                .build();
+    }
+
+    /**
+     * @return a new pool of the configured size for running queries
+     */
+    Executor createReadExecutor() {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(readPoolSize, runnable ->
+                new Thread(runnable, "calendar-read-" + count.incrementAndGet()));
+    }
+
+    /**
+     * @return the executor that all writes are run on, creating a single thread if none was given
+     */
+    ScheduledExecutorService createWriteExecutor() {
+        if (writeExecutor != null) { return writeExecutor; }
+        return Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(() -> {
+            // writes are what the UI waits on after an edit, so they run slightly ahead of reads
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND + Process.THREAD_PRIORITY_MORE_FAVORABLE);
+            runnable.run();
+        }, "calendar-write"));
+    }
+
+    /**
+     * @return the callback that tunes the primary connection when the database is opened
+     */
+    private RoomDatabase.Callback createCallback() {
+        return new RoomDatabase.Callback() {
+            @Override
+            public void onOpen(@NonNull SupportSQLiteDatabase db) {
+                // onOpen is only given the primary connection, which does all of the writing
+                db.execSQL("PRAGMA synchronous = " + synchronous.name());
+                // a negative cache size is in KiB instead of pages
+                db.execSQL("PRAGMA cache_size = -" + cacheSizeKib);
+            }
+        };
+    }
+
+    /**
+     * Builds a DatabaseConfig, starting from the defaults.
+     */
+    public static class Builder {
+        private String name = "calendar_database";
+        private boolean writeAheadLogging = true;
+        private int readPoolSize = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+        private Synchronous synchronous = Synchronous.NORMAL;
+        private int cacheSizeKib = 4096;
+        private ScheduledExecutorService writeExecutor;
+
+        /**
+         * @param name the name of the database file, default "calendar_database"
+         * @return this builder
+         */
+        public Builder setName(@NonNull String name) {
+            this.name = name;
+            return this;
+        }
+
+        /**
+         * @param enabled true to use write-ahead logging (the default) so reads can run while a
+         *                write is in progress, false to use a rollback journal
+         * @return this builder
+         */
+        public Builder setWriteAheadLogging(boolean enabled) {
+            this.writeAheadLogging = enabled;
+            return this;
+        }
+
+        /**
+         * @param size the number of threads for running queries, default 2 to 4 depending on the
+         *             number of processors
+         * @return this builder
+         */
+        public Builder setReadPoolSize(int size) {
+            if (size < 1) { throw new IllegalArgumentException("read pool size must be positive: " + size); }
+            this.readPoolSize = size;
+            return this;
+        }
+
+        /**
+         * @param synchronous the synchronous level, default NORMAL
+         * @return this builder
+         */
+        public Builder setSynchronous(@NonNull Synchronous synchronous) {
+            this.synchronous = synchronous;
+            return this;
+        }
+
+        /**
+         * @param kib the size of the page cache of the primary connection (the one that writes)
+         *            in KiB, default 4096; the read connections keep SQLite's default
+         * @return this builder
+         */
+        public Builder setCacheSizeKib(int kib) {
+            if (kib < 0) { throw new IllegalArgumentException("cache size must not be negative: " + kib); }
+            this.cacheSizeKib = kib;
+            return this;
+        }
+
+        /**
+         * @param executor the executor to run all writes on; it must run one task at a time in
+         *                 order. By default a dedicated thread is created.
+         * @return this builder
+         */
+        public Builder setWriteExecutor(@NonNull ScheduledExecutorService executor) {
+            this.writeExecutor = executor;
+            return this;
+        }
+
+        /**
+         * @return the configuration
+         */
+        public DatabaseConfig build() {
+            return new DatabaseConfig(this);
+        }
+    }
+}
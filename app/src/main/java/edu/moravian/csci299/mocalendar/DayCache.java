@@ -0,0 +1,190 @@
+package edu.moravian.csci299.mocalendar;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A bounded, least-recently-used cache of the events on each day. Days are keyed by the epoch
+ * milliseconds at the start of the day and hold immutable snapshots of the events that overlap
+ * the 24 hours from that time. Entries are invalidated precisely: a write only removes the days
+ * that the written event overlaps (before or after the write).
+ */
+class DayCache {
+    /** The length of a day bucket, matching the queries in CalendarDao. */
+    static final long DAY_MILLIS = 24 * 60 * 60 * 1000;
+
+    /**
+     * A point-in-time copy of the cache statistics.
+     */
+    static class Stats {
+        public final long hits, misses, evictions;
+        public final int size;
+
+        Stats(long hits, long misses, long evictions, int size) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.size = size;
+        }
+
+        /**
+         * @return the fraction of lookups that were hits, or 0 if there have not been any
+         */
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
+
+    private final int capacity;
+    private final Map<Long, List<Event>> days;
+    private long hits, misses, evictions;
+
+    /**
+     * Incremented by every invalidation so that loads that started before an invalidation do not
+     * put stale snapshots back into the cache.
+     */
+    private long generation;
+
+    /**
+     * @param capacity the maximum number of days to hold
+     */
+    DayCache(int capacity) {
+        this.capacity = capacity;
+        this.days = new LinkedHashMap<Long, List<Event>>(capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Entry<Long, List<Event>> eldest) {
+                if (size() > DayCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @param day the start of the day
+     * @return the snapshot of the events on that day or null if it is not cached
+     */
+    synchronized List<Event> get(long day) {
+        List<Event> events = days.get(day);
+        if (events == null) { misses++; } else { hits++; }
+        return events;
+    }
+
+    /**
+     * Check if a day is cached without counting it as a lookup or as a use of the day.
+     * @param day the start of the day
+     * @return true if the events on that day are cached
+     */
+    synchronized boolean contains(long day) {
+        return days.containsKey(day);
+    }
+
+    /**
+     * @return the current generation, to be passed to put() after loading a day
+     */
+    synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Cache the events loaded for a day. The events are copied so later changes to the given
+     * objects do not affect the cache.
+     * @param day the start of the day
+     * @param events the events on that day
+     * @param generation the value of getGeneration() from before the events were loaded; if
+     *                   anything has been invalidated since then the events are not cached
+     * @return the immutable snapshot of the events
+     */
+    synchronized List<Event> put(long day, @NonNull List<Event> events, long generation) {
+        List<Event> snapshot = snapshot(events);
+        if (generation == this.generation) {
+            days.put(day, snapshot);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Remove every cached day that the event overlaps or that contains an older version of the
+     * event (or, for a recurring event, any of its occurrences).
+     * @param event the event that was written
+     * @param removed the days that were removed are added to this set
+     */
+    synchronized void invalidate(@NonNull Event event, @NonNull Set<Long> removed) {
+        generation++;
+        Iterator<Map.Entry<Long, List<Event>>> it = days.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, List<Event>> entry = it.next();
+            if (affects(event, entry.getKey(), entry.getValue())) {
+                removed.add(entry.getKey());
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Remove every cached day.
+     * @return the days that were removed
+     */
+    synchronized Set<Long> clear() {
+        generation++;
+        Set<Long> removed = new HashSet<>(days.keySet());
+        days.clear();
+        return removed;
+    }
+
+    /**
+     * @return the current statistics of this cache
+     */
+    synchronized Stats getStats() {
+        return new Stats(hits, misses, evictions, days.size());
+    }
+
+    /**
+     * Checks if an event overlaps a day the same way CalendarDao.loadEventsOnDay() does. For a
+     * recurring event this checks if the day is anywhere within the series.
+     */
+    static boolean overlaps(Event event, long day) {
+        long start = event.startTime.getTime();
+        if (event.recurrenceEnd != null) {
+            return start < day + DAY_MILLIS && event.recurrenceEnd.getTime() > day;
+        }
+        return start < day + DAY_MILLIS &&
+                (start >= day || (event.endTime != null && event.endTime.getTime() > day));
+    }
+
+    /**
+     * Checks if a write of an event changes a day: the event overlaps the day or the events
+     * shown for the day contain an older version of it.
+     * @param event the event that was written
+     * @param day the start of the day
+     * @param events the events of the day from before the write, or null if not known
+     * @return true if the day needs to be loaded again
+     */
+    static boolean affects(Event event, long day, List<Event> events) {
+        return overlaps(event, day) || (events != null && containsId(events, event));
+    }
+
+    private static boolean containsId(List<Event> events, Event event) {
+        for (Event e : events) {
+            if (e.id.equals(event.id) || event.id.equals(e.seriesId)) { return true; }
+        }
+        return false;
+    }
+
+    private static List<Event> snapshot(List<Event> events) {
+        List<Event> copy = new ArrayList<>(events.size());
+        for (Event e : events) { copy.add(e.copy()); }
+        return Collections.unmodifiableList(copy);
+    }
+}
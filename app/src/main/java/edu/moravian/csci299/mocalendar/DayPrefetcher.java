@@ -0,0 +1,160 @@
+package edu.moravian.csci299.mocalendar;
+
+import android.os.Process;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Loads the days around the day being shown into the day cache ahead of time, since the next day
+ * shown is very often a neighbour of the current one. Days are loaded nearest first on a single
+ * background-priority thread so they never compete with the loads for the day actually shown.
+ * Whenever a new day is shown, the prefetches still waiting for the old day are cancelled and the
+ * days around the new day are queued instead. Several days shown together (like the week of a
+ * timeline) are treated as one range, with the days on either side of it prefetched.
+ */
+class DayPrefetcher {
+    /**
+     * Loads a single day into the day cache if it is not already there.
+     */
+    interface Loader {
+        /**
+         * @param day the start of the day
+         * @return true if the day was loaded, false if it was already cached
+         */
+        boolean prefetch(long day);
+    }
+
+    /**
+     * A point-in-time copy of the prefetch statistics.
+     */
+    static class Stats {
+        public final long requests, prefetched, used, cancelled;
+
+        Stats(long requests, long prefetched, long used, long cancelled) {
+            this.requests = requests;
+            this.prefetched = prefetched;
+            this.used = used;
+            this.cancelled = cancelled;
+        }
+
+        /**
+         * @return the fraction of the days shown that had already been prefetched, or 0 if no
+         *         days have been shown
+         */
+        public double hitRate() {
+            return requests == 0 ? 0 : (double) used / requests;
+        }
+
+        /**
+         * @return the fraction of the prefetched days that were shown before they were dropped,
+         *         or 0 if nothing has been prefetched
+         */
+        public double accuracy() {
+            return prefetched == 0 ? 0 : (double) used / prefetched;
+        }
+    }
+
+    private final Loader loader;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> new Thread(() -> {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+        runnable.run();
+    }, "day-prefetch"));
+    private volatile int radius;
+
+    // all guarded by this
+    private final List<Future<?>> pending = new ArrayList<>();
+    private final Set<Long> unused = new HashSet<>();
+    // the first and last day of the range being shown
+    private long first = Long.MIN_VALUE, last = Long.MIN_VALUE;
+    private long requests, prefetched, used, cancelled;
+
+    /**
+     * @param loader loads each day into the cache
+     * @param radius the number of days to prefetch on either side of the day being shown
+     */
+    DayPrefetcher(Loader loader, int radius) {
+        this.loader = loader;
+        this.radius = radius;
+    }
+
+    /**
+     * @param radius the number of days to prefetch on either side of the day being shown, 0 to
+     *               stop prefetching
+     */
+    void setRadius(int radius) {
+        this.radius = Math.max(0, radius);
+    }
+
+    /**
+     * Start prefetching the days around a day that is being shown. Prefetches queued for a
+     * previous day are cancelled first. Does nothing if the day is already the one shown.
+     * @param day the start of the day being shown
+     */
+    void prefetchAround(long day) {
+        prefetchAround(day, day);
+    }
+
+    /**
+     * Start prefetching the days on either side of a range of days that are being shown together.
+     * The days in the range are not prefetched since the caller is loading them. Prefetches queued
+     * for a previous range are cancelled first. Does nothing if the range is already the one
+     * shown.
+     * @param first the start of the first day being shown
+     * @param last the start of the last day being shown
+     */
+    synchronized void prefetchAround(long first, long last) {
+        if (first == this.first && last == this.last) { return; }
+        this.first = first;
+        this.last = last;
+        for (Future<?> future : pending) {
+            if (future.cancel(false)) { cancelled++; }
+        }
+        pending.clear();
+        int radius = this.radius;
+        // forget the prefetched days that are too far away to be shown next
+        for (Iterator<Long> it = unused.iterator(); it.hasNext(); ) {
+            long day = it.next();
+            if (DateUtils.daysBetween(day, first) > radius || DateUtils.daysBetween(last, day) > radius) { it.remove(); }
+        }
+        // neighbours are whole calendar days away, which is not 24 hours across a DST change
+        for (int i = 1; i <= radius; i++) {
+            submit(DateUtils.addDays(last, i));
+            submit(DateUtils.addDays(first, -i));
+        }
+    }
+
+    private void submit(long day) {
+        pending.add(executor.submit(() -> {
+            if (loader.prefetch(day)) {
+                synchronized (this) {
+                    prefetched++;
+                    unused.add(day);
+                }
+            }
+        }));
+    }
+
+    /**
+     * Record that a day is being shown, used for the statistics.
+     * @param day the start of the day
+     * @param cached true if the day was served from the cache
+     */
+    synchronized void onDayRequested(long day, boolean cached) {
+        requests++;
+        if (unused.remove(day) && cached) { used++; }
+    }
+
+    /**
+     * @return the current statistics of this prefetcher
+     */
+    synchronized Stats getStats() {
+        return new Stats(requests, prefetched, used, cancelled);
+    }
+}
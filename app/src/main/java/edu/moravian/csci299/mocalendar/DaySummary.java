@@ -0,0 +1,96 @@
+package edu.moravian.csci299.mocalendar;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.room.Ignore;
+
+/**
+ * A summary of the events that start on a single day: how many there are and which types of
+ * events they are. These are produced for a whole month at once by CalendarDao.getDaySummaries()
+ * (with the occurrences of recurring series added by CalendarRepository.getMonthSummary()) so
+ * that busy days can be marked without loading the events themselves.
+ */
+public class DaySummary {
+    /**
+     * The start of the (local) day in epoch milliseconds.
+     */
+    public final long day;
+    /**
+     * The number of events starting on the day.
+     */
+    public final int count;
+    /**
+     * Comma-separated names of the distinct event types starting on the day.
+     */
+    @NonNull
+    public final String types;
+
+    // parsed from types once, since it is checked for every day each time a month is bound
+    @Ignore
+    private final int typeMask;
+
+    /**
+     * Create a summary as read from the database.
+     * @param day the start of the day
+     * @param count the number of events starting on the day
+     * @param types comma-separated names of the types of those events; names that are not types
+     *              (such as from a newer version of the app) are ignored
+     */
+    public DaySummary(long day, int count, @Nullable String types) {
+        this.day = day;
+        this.count = count;
+        this.types = types == null ? "" : types;
+        int mask = 0;
+        for (String name : this.types.split(",")) {
+            EventType type = parseType(name);
+            if (type != null) { mask |= 1 << type.ordinal(); }
+        }
+        this.typeMask = mask;
+    }
+
+    /**
+     * Create a summary from a bitmask of types.
+     * @param day the start of the day
+     * @param count the number of events starting on the day
+     * @param typeMask a bitmask of the types of those events (see getTypeMask())
+     */
+    @Ignore
+    DaySummary(long day, int count, int typeMask) {
+        this.day = day;
+        this.count = count;
+        this.typeMask = typeMask;
+        StringBuilder names = new StringBuilder();
+        for (EventType type : EventType.values()) {
+            if ((typeMask & (1 << type.ordinal())) == 0) { continue; }
+            if (names.length() > 0) { names.append(','); }
+            names.append(type.name());
+        }
+        this.types = names.toString();
+    }
+
+    /**
+     * @return a bitmask of the types of events starting on the day, where the bit for a type is
+     *         1 << type.ordinal()
+     */
+    public int getTypeMask() {
+        return typeMask;
+    }
+
+    /**
+     * @param type the type of event to check for
+     * @return true if at least one event of the given type starts on the day
+     */
+    public boolean hasType(EventType type) {
+        return (typeMask & (1 << type.ordinal())) != 0;
+    }
+
+    @Nullable
+    private static EventType parseType(String name) {
+        if (name.isEmpty()) { return null; }
+        try {
+            return EventType.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
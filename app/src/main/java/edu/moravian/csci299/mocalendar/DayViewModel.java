@@ -0,0 +1,51 @@
+package edu.moravian.csci299.mocalendar;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Transformations;
+import androidx.lifecycle.ViewModel;
+import androidx.paging.PagedList;
+
+import java.util.Date;
+
+/**
+ * Holds the day currently selected and the events on it. The selected day is the single source:
+ * the list of events is switched over to a new query whenever the day changes so only the query
+ * for the selected day is ever live. Since this is scoped to the activity, the selected day and
+ * its events survive configuration changes and are shared by all of the fragments.
+ */
+public class DayViewModel extends ViewModel {
+    private final MutableLiveData<Date> day = new MutableLiveData<>();
+    private final LiveData<Date> distinctDay = Transformations.distinctUntilChanged(day);
+    private final LiveData<PagedList<Event>> events = Transformations.switchMap(distinctDay,
+            day -> CalendarRepository.get().getEventsOnDayPaged(day));
+
+    /**
+     * Select a day. Selecting the day that is already selected does nothing.
+     * @param date any time on the day to select
+     */
+    public void setDay(Date date) {
+        day.setValue(new Date(DateUtils.startOfDay(date.getTime())));
+    }
+
+    /**
+     * @return the day that is selected, null if no day has been selected yet
+     */
+    public Date getSelectedDay() {
+        return day.getValue();
+    }
+
+    /**
+     * @return live-data view of the day that is selected (at midnight)
+     */
+    public LiveData<Date> getDay() {
+        return distinctDay;
+    }
+
+    /**
+     * @return live-data view of the paged events on the selected day
+     */
+    public LiveData<PagedList<Event>> getEvents() {
+        return events;
+    }
+}
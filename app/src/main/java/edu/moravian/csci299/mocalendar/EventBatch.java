@@ -0,0 +1,78 @@
+package edu.moravian.csci299.mocalendar;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A group of event writes that are committed to the database together in a single transaction.
+ * Writes are applied in the order: adds, updates, upserts, then removals.
+ */
+public class EventBatch {
+    private final List<Event> added = new ArrayList<>();
+    private final List<Event> updated = new ArrayList<>();
+    private final List<Event> upserted = new ArrayList<>();
+    private final List<Event> removed = new ArrayList<>();
+
+    /**
+     * Add new events. Fails the whole batch if any of them already exist.
+     * @param events the events to add
+     * @return this batch
+     */
+    public EventBatch add(@NonNull Collection<Event> events) {
+        added.addAll(events);
+        return this;
+    }
+
+    /**
+     * Update existing events. Events that do not exist are ignored.
+     * @param events the events to update
+     * @return this batch
+     */
+    public EventBatch update(@NonNull Collection<Event> events) {
+        updated.addAll(events);
+        return this;
+    }
+
+    /**
+     * Add events, replacing any existing events with the same ids.
+     * @param events the events to add or replace
+     * @return this batch
+     */
+    public EventBatch upsert(@NonNull Collection<Event> events) {
+        upserted.addAll(events);
+        return this;
+    }
+
+    /**
+     * Remove events. Events that do not exist are ignored.
+     * @param events the events to remove
+     * @return this batch
+     */
+    public EventBatch remove(@NonNull Collection<Event> events) {
+        removed.addAll(events);
+        return this;
+    }
+
+    public List<Event> getAdded() { return Collections.unmodifiableList(added); }
+    public List<Event> getUpdated() { return Collections.unmodifiableList(updated); }
+    public List<Event> getUpserted() { return Collections.unmodifiableList(upserted); }
+    public List<Event> getRemoved() { return Collections.unmodifiableList(removed); }
+
+    /**
+     * @return the total number of writes in this batch
+     */
+    public int size() {
+        return added.size() + updated.size() + upserted.size() + removed.size();
+    }
+
+    /**
+     * @return true if this batch has no writes
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+}
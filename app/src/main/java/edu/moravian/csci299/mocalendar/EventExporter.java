@@ -0,0 +1,219 @@
+package edu.moravian.csci299.mocalendar;
+
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+
+import org.json.JSONObject;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TimeZone;
+
+/**
+ * Exports events as an iCalendar (.ics) file or as JSON lines (one JSON object per event per
+ * line). Events are streamed from a forward-only database cursor straight to the output, one row
+ * at a time, so memory use stays flat no matter how many events are exported.
+ */
+public class EventExporter {
+    /** The formats events can be exported in. */
+    public enum Format { ICS, JSON_LINES }
+
+    /**
+     * Receives the result of an export.
+     */
+    public interface Listener {
+        /**
+         * Called once when the export stops.
+         * @param exported the number of events written
+         * @param error null if the export finished, otherwise the reason it failed
+         */
+        void onComplete(int exported, Exception error);
+    }
+
+    /** The longest an iCalendar content line may be, in bytes, before it must be folded. */
+    private static final int MAX_ICS_LINE_OCTETS = 75;
+
+    private final Format format;
+    private final Set<EventType> types;
+    private final SimpleDateFormat utcFormat = new SimpleDateFormat("yyyyMMdd'T'HHmmss'Z'", Locale.US);
+
+    /**
+     * @param format the format to write
+     * @param types the types of events to include, or null to include all types
+     */
+    EventExporter(@NonNull Format format, Set<EventType> types) {
+        this.format = format;
+        this.types = types;
+        utcFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+    }
+
+    /**
+     * Write every event in a cursor of rows from the event table. Blocks until done, so it must
+     * not be called on the main thread. The cursor is read forward once and neither it nor the
+     * stream are closed.
+     * @param cursor rows from the event table, in the order to write them
+     * @param out where to write the events
+     * @return the number of events written
+     * @throws IOException if the output cannot be written
+     */
+    int export(@NonNull Cursor cursor, @NonNull OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        RowReader rows = new RowReader(cursor);
+        int exported = 0;
+        if (format == Format.ICS) {
+            writer.write("BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:-//MoCalendar//EN\r\n");
+        }
+        String stamp = utcFormat.format(new Date());
+        while (cursor.moveToNext()) {
+            Event event = rows.read();
+            if (types != null && !types.contains(event.type)) { continue; }
+            if (format == Format.ICS) { writeIcs(writer, event, stamp); }
+            else { writeJson(writer, event); }
+            exported++;
+        }
+        if (format == Format.ICS) {
+            writer.write("END:VCALENDAR\r\n");
+        }
+        writer.flush();
+        return exported;
+    }
+
+    private void writeIcs(Writer writer, Event event, String stamp) throws IOException {
+        writer.write("BEGIN:VEVENT\r\n");
+        writeIcsLine(writer, "UID:" + event.id);
+        writeIcsLine(writer, "DTSTAMP:" + stamp);
+        writeIcsLine(writer, "DTSTART:" + utcFormat.format(event.startTime));
+        if (event.endTime != null) { writeIcsLine(writer, "DTEND:" + utcFormat.format(event.endTime)); }
+        writeIcsLine(writer, "SUMMARY:" + escapeText(event.name));
+        if (!event.description.isEmpty()) { writeIcsLine(writer, "DESCRIPTION:" + escapeText(event.description)); }
+        writeIcsLine(writer, "CATEGORIES:" + escapeText(event.type.simpleName));
+        writeIcsLine(writer, "X-MOCALENDAR-TYPE:" + event.type.name());
+        if (event.recurrence != null) {
+            writeIcsLine(writer, "RRULE:" + event.recurrence.toRRule());
+            long[] exceptions = event.recurrence.getExceptions();
+            if (exceptions.length > 0) {
+                StringBuilder exdate = new StringBuilder("EXDATE:");
+                for (int i = 0; i < exceptions.length; i++) {
+                    if (i > 0) { exdate.append(','); }
+                    exdate.append(utcFormat.format(new Date(exceptions[i])));
+                }
+                writeIcsLine(writer, exdate.toString());
+            }
+        }
+        if (event.reminderMinutes != null) {
+            writer.write("BEGIN:VALARM\r\nACTION:DISPLAY\r\n");
+            writeIcsLine(writer, "DESCRIPTION:" + escapeText(event.name));
+            writeIcsLine(writer, "TRIGGER:-PT" + event.reminderMinutes + "M");
+            writer.write("END:VALARM\r\n");
+        }
+        writer.write("END:VEVENT\r\n");
+    }
+
+    /**
+     * Write an iCalendar content line, folding it so that no line is longer than 75 bytes.
+     */
+    private static void writeIcsLine(Writer writer, String line) throws IOException {
+        int octets = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            int size = c < 0x80 ? 1 : c < 0x800 ? 2 : Character.isHighSurrogate(c) ? 4 : Character.isLowSurrogate(c) ? 0 : 3;
+            if (octets + size > MAX_ICS_LINE_OCTETS) {
+                writer.write("\r\n ");
+                octets = 1;
+            }
+            writer.write(c);
+            octets += size;
+        }
+        writer.write("\r\n");
+    }
+
+    /**
+     * Escape a TEXT value for an iCalendar file.
+     */
+    static String escapeText(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\\': case ';': case ',': sb.append('\\').append(c); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': break;
+                default: sb.append(c); break;
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void writeJson(Writer writer, Event event) throws IOException {
+        writer.write("{\"id\":");
+        writer.write(JSONObject.quote(event.id.toString()));
+        writer.write(",\"startTime\":");
+        writer.write(Long.toString(event.startTime.getTime()));
+        writer.write(",\"endTime\":");
+        writer.write(event.endTime == null ? "null" : Long.toString(event.endTime.getTime()));
+        writer.write(",\"name\":");
+        writer.write(JSONObject.quote(event.name));
+        writer.write(",\"type\":");
+        writer.write(JSONObject.quote(event.type.name()));
+        writer.write(",\"description\":");
+        writer.write(JSONObject.quote(event.description));
+        if (event.recurrence != null) {
+            writer.write(",\"recurrence\":");
+            writer.write(JSONObject.quote(event.recurrence.toString()));
+        }
+        if (event.seriesId != null) {
+            writer.write(",\"seriesId\":");
+            writer.write(JSONObject.quote(event.seriesId.toString()));
+        }
+        if (event.reminderMinutes != null) {
+            writer.write(",\"reminderMinutes\":");
+            writer.write(Integer.toString(event.reminderMinutes));
+        }
+        writer.write("}\n");
+    }
+
+    /**
+     * Reads events out of rows of the event table. A single Event object is reused for every row
+     * since each one is written out before the next is read.
+     */
+    private static class RowReader {
+        private final Cursor cursor;
+        private final int id, startTime, endTime, name, type, description, recurrence, seriesId, reminderMinutes;
+        private final Event event = new Event();
+
+        RowReader(Cursor cursor) {
+            this.cursor = cursor;
+            id = cursor.getColumnIndexOrThrow("id");
+            startTime = cursor.getColumnIndexOrThrow("startTime");
+            endTime = cursor.getColumnIndexOrThrow("endTime");
+            name = cursor.getColumnIndexOrThrow("name");
+            type = cursor.getColumnIndexOrThrow("type");
+            description = cursor.getColumnIndexOrThrow("description");
+            recurrence = cursor.getColumnIndexOrThrow("recurrence");
+            seriesId = cursor.getColumnIndexOrThrow("seriesId");
+            reminderMinutes = cursor.getColumnIndexOrThrow("reminderMinutes");
+        }
+
+        Event read() {
+            event.id = CalendarTypeConverter.toUuid(cursor.getBlob(id));
+            event.startTime = new Date(cursor.getLong(startTime));
+            event.endTime = cursor.isNull(endTime) ? null : new Date(cursor.getLong(endTime));
+            event.name = cursor.getString(name);
+            event.type = EventType.valueOf(cursor.getString(type));
+            event.description = cursor.getString(description);
+            event.recurrence = cursor.isNull(recurrence) ? null : RecurrenceRule.parse(cursor.getString(recurrence));
+            event.seriesId = cursor.isNull(seriesId) ? null : CalendarTypeConverter.toUuid(cursor.getBlob(seriesId));
+            event.reminderMinutes = cursor.isNull(reminderMinutes) ? null : cursor.getInt(reminderMinutes);
+            return event;
+        }
+    }
+}
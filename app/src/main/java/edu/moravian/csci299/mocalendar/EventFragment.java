@@ -1,8 +1,10 @@
 package edu.moravian.csci299.mocalendar;
 
+import android.content.Context;
 import android.os.Bundle;
 
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.LiveData;
 
 import android.text.Editable;
 import android.text.TextWatcher;
@@ -12,8 +14,10 @@ import android.view.ViewGroup;
 import android.widget.EditText;
 import android.widget.ImageView;
 import android.widget.TextView;
+import android.widget.Toast;
 
 import java.util.Date;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -25,6 +29,8 @@ public class EventFragment extends Fragment implements TextWatcher, EventTypePic
 
     // fragment initialization parameters
     private static final String ARG_EVENT_ID = "event_id";
+    private static final String ARG_SERIES_ID = "series_id";
+    private static final String ARG_OCCURRENCE_START = "occurrence_start";
 
     // dialog fragment tags
     private static final String DIALOG_DATE = "DialogDate";
@@ -45,7 +51,8 @@ public class EventFragment extends Fragment implements TextWatcher, EventTypePic
 
     /**
      * Use this factory method to create a new instance of this fragment that
-     * show the details for the given event.
+     * show the details for the given event. An occurrence of a recurring event is shown as
+     * expanded from its series; it only becomes an event of its own once it is edited.
      *
      * @param event the event to show information about
      * @return a new instance of fragment EventFragment
@@ -54,6 +61,10 @@ public class EventFragment extends Fragment implements TextWatcher, EventTypePic
         EventFragment fragment = new EventFragment();
         Bundle args = new Bundle();
         args.putSerializable(ARG_EVENT_ID, event.id);
+        if (event.occurrence) {
+            args.putSerializable(ARG_SERIES_ID, event.seriesId);
+            args.putLong(ARG_OCCURRENCE_START, event.startTime.getTime());
+        }
         fragment.setArguments(args);
         return fragment;
     }
@@ -64,9 +75,15 @@ public class EventFragment extends Fragment implements TextWatcher, EventTypePic
     @Override
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        assert getArguments() != null;
-        CalendarRepository.get().getEventById((UUID) getArguments()
-                .getSerializable(ARG_EVENT_ID)).observe(this, event -> {
+        Bundle args = getArguments();
+        assert args != null;
+        UUID seriesId = (UUID) args.getSerializable(ARG_SERIES_ID);
+        LiveData<Event> source = seriesId == null ?
+                CalendarRepository.get().getEventById((UUID) args.getSerializable(ARG_EVENT_ID)) :
+                CalendarRepository.get().getOccurrence(seriesId, args.getLong(ARG_OCCURRENCE_START));
+        source.observe(this, event -> {
+            // a new event may not be committed yet, and an edited occurrence leaves its series
+            if (event == null) { return; }
             this.event = event;
             updateUI();
         });
@@ -112,19 +129,23 @@ public class EventFragment extends Fragment implements TextWatcher, EventTypePic
 
 
     /**
-     * Save the edits to the database when the fragment is stopped.
+     * Save the edits to the database when the fragment is stopped. This is the end of the editing
+     * session so the write is committed right away instead of waiting to be coalesced.
      */
     @Override
     public void onStop() {
         super.onStop();
-        CalendarRepository.get().updateEvent(event);
+        if (event != null) {
+            CalendarRepository.get().updateEvent(event);
+            CalendarRepository.get().flush();
+        }
     }
 
     /**
      * Updates the UI to match the event.
      */
     private void updateUI() {
-        typeView.setImageResource(event.type.iconResourceId);
+        typeView.setImageResource(EventTypeIcons.get(event.type));
         eventNameView.setText(event.name);
         dateView.setText(DateUtils.toFullDateString(event.startTime));
         startTimeView.setText(DateUtils.toTimeString(event.startTime));
@@ -137,6 +158,22 @@ public class EventFragment extends Fragment implements TextWatcher, EventTypePic
 
     }
 
+    /**
+     * Warn about the events that an event conflicts with, if there are any.
+     *
+     * @param context the context to show the warning in
+     * @param conflicts the conflicting events, ordered by start time
+     */
+    static void showConflictWarning(Context context, List<Event> conflicts) {
+        if (context == null || conflicts.isEmpty()) { return; }
+        Event first = conflicts.get(0);
+        String time = DateUtils.toTimeString(first.startTime);
+        String message = conflicts.size() == 1 ?
+                context.getString(R.string.conflict_warning, first.name, time) :
+                context.getString(R.string.conflict_warning_more, first.name, time, conflicts.size() - 1);
+        Toast.makeText(context, message, Toast.LENGTH_LONG).show();
+    }
+
     private void showTimePicker(Boolean isStartTime) {
         TimePickerFragment picker;
         if (isStartTime) {
@@ -204,6 +241,7 @@ public class EventFragment extends Fragment implements TextWatcher, EventTypePic
             event.startTime = DateUtils.combineDateAndTime(event.startTime, date);
         }
         updateUI();
+        CalendarRepository.get().findConflicts(event, (e, conflicts) -> showConflictWarning(getContext(), conflicts));
     }
 
     @Override
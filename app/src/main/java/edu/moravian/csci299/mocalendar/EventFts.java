@@ -0,0 +1,25 @@
+package edu.moravian.csci299.mocalendar;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+
+/**
+ * The full-text search index over the names and descriptions of events. This is an external
+ * content FTS4 table: the text itself is only stored in the event table and Room keeps the index
+ * in sync with triggers on the event table. Rows are linked by the event table's rowid.
+ */
+@Fts4(contentEntity = Event.class)
+@Entity
+public class EventFts {
+    /**
+     * Name of the event.
+     */
+    @NonNull
+    public String name = "";
+    /**
+     * The description of the event.
+     */
+    @NonNull
+    public String description = "";
+}
@@ -0,0 +1,25 @@
+package edu.moravian.csci299.mocalendar;
+
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * A single row of statistics about the event table that the queries in CalendarDao use to bound
+ * their index scans. It is kept up to date by triggers on the event table (see
+ * CalendarDataBase.createEventStats()) and is never written directly.
+ */
+@Entity
+public class EventStats {
+    /**
+     * The id of the one row, always 0.
+     */
+    @PrimaryKey
+    public int id = 0;
+    /**
+     * The longest duration in milliseconds of any single (not recurring) event ever written. An
+     * event that overlaps a time must start no earlier than this much before it, so range queries
+     * only need to scan the startTime index from there. It only ever grows: removing the longest
+     * event leaves the bound a little looser than it needs to be, but never wrong.
+     */
+    public long maxDuration = 0;
+}
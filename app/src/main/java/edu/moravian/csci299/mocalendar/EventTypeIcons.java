@@ -0,0 +1,42 @@
+package edu.moravian.csci299.mocalendar;
+
+import androidx.annotation.DrawableRes;
+import androidx.annotation.NonNull;
+
+/**
+ * The icons of the types of events. These are Android resources, so they are kept here instead of
+ * in EventType, which is part of the core module.
+ */
+final class EventTypeIcons {
+    // the icon of each type, indexed by ordinal
+    private static final int[] ICONS = new int[EventType.values().length];
+    static {
+        ICONS[EventType.GENERIC.ordinal()] = R.drawable.event;
+        ICONS[EventType.ASSIGNMENT.ordinal()] = R.drawable.assignment;
+        ICONS[EventType.CLASS.ordinal()] = R.drawable.school;
+        ICONS[EventType.LAB.ordinal()] = R.drawable.science;
+        ICONS[EventType.EXAM.ordinal()] = R.drawable.quiz;
+        ICONS[EventType.ESSAY.ordinal()] = R.drawable.essay;
+        ICONS[EventType.PROGRAMMING.ordinal()] = R.drawable.code;
+        ICONS[EventType.READING.ordinal()] = R.drawable.book;
+        ICONS[EventType.CLUB.ordinal()] = R.drawable.groups;
+        ICONS[EventType.OFFICE_HOURS.ordinal()] = R.drawable.meeting_room;
+        ICONS[EventType.ATHLETIC_PRACTICE.ordinal()] = R.drawable.sports_soccer;
+        ICONS[EventType.MUSIC_PRACTICE.ordinal()] = R.drawable.music_note;
+        ICONS[EventType.COMPETITION.ordinal()] = R.drawable.trophy;
+        ICONS[EventType.PRESENTATION.ordinal()] = R.drawable.present;
+        ICONS[EventType.HOLIDAY.ordinal()] = R.drawable.holiday;
+    }
+
+    private EventTypeIcons() {}
+
+    /**
+     * @param type the type of an event
+     * @return the drawable resource id of the icon of the type
+     */
+    @DrawableRes
+    static int get(@NonNull EventType type) {
+        int icon = ICONS[type.ordinal()];
+        return icon != 0 ? icon : R.drawable.event;
+    }
+}
@@ -0,0 +1,551 @@
+package edu.moravian.csci299.mocalendar;
+
+import androidx.annotation.NonNull;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Imports the VEVENTs of an iCalendar (.ics) file as events. The file is streamed: it is read one
+ * content line at a time and only the event currently being read plus one batch of finished
+ * events are held in memory, so files far larger than the heap can be imported. Finished events
+ * are handed to a Sink in bounded batches, each of which is meant to be committed in its own
+ * transaction.
+ *
+ * Events are given ids derived from their UIDs so importing the same file again replaces the
+ * events instead of duplicating them.
+ */
+public class IcsImporter {
+    /**
+     * Where the imported events go.
+     */
+    interface Sink {
+        /**
+         * Commit a batch of imported events in a single transaction, replacing any events with the
+         * same ids.
+         * @param events the imported events
+         */
+        void commit(@NonNull List<Event> events);
+
+        /**
+         * Add skipped occurrences to a recurring event that has already been committed.
+         * @param seriesId the id of the recurring event
+         * @param occurrenceStarts the start times of the occurrences to skip
+         * @return true if they were added, false if the recurring event is not committed (yet)
+         */
+        boolean addExceptions(@NonNull UUID seriesId, @NonNull List<Date> occurrenceStarts);
+    }
+
+    /**
+     * Receives progress reports during an import.
+     */
+    public interface Listener {
+        /**
+         * Called after each batch is committed.
+         * @param imported the number of events imported so far
+         * @param bytesRead the number of bytes of the file read so far
+         */
+        void onProgress(int imported, long bytesRead);
+
+        /**
+         * Called once when the import stops.
+         * @param imported the number of events imported; these stay imported even if the import
+         *                 was cancelled or failed part way through
+         * @param cancelled true if the import was cancelled
+         * @param error null if the import finished, otherwise the reason it failed
+         */
+        void onComplete(int imported, boolean cancelled, Exception error);
+    }
+
+    /**
+     * A running import that can be cancelled. Cancelling stops the import after the current
+     * line; batches that are already committed are kept.
+     */
+    public static class Task {
+        private volatile boolean cancelled;
+
+        public void cancel() { cancelled = true; }
+
+        public boolean isCancelled() { return cancelled; }
+    }
+
+    /** Content lines longer than this are truncated so one bad line cannot exhaust memory. */
+    private static final int MAX_LINE_LENGTH = 64 * 1024;
+
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000;
+
+    // the words that suggest each type, matched as whole words (and their plurals)
+    private static final Pattern EXAM_WORDS = words("exam", "midterm", "final", "quiz", "quizzes", "test");
+    private static final Pattern LAB_WORDS = words("lab");
+    private static final Pattern OFFICE_HOURS_WORDS = words("office hour");
+    private static final Pattern ESSAY_WORDS = words("essay", "paper");
+    private static final Pattern PROGRAMMING_WORDS = words("program", "programming", "coding", "project");
+    private static final Pattern READING_WORDS = words("reading", "read");
+    private static final Pattern PRESENTATION_WORDS = words("presentation", "talk");
+    private static final Pattern HOLIDAY_WORDS = words("holiday", "break", "vacation", "no class");
+    private static final Pattern CLASS_WORDS = words("lecture", "class", "seminar", "recitation", "course");
+    private static final Pattern CLUB_WORDS = words("club", "society", "societies");
+    private static final Pattern COMPETITION_WORDS = words("tournament", "competition", "match", "game");
+    private static final Pattern MUSIC_WORDS = words("rehearsal", "choir", "band", "orchestra");
+    private static final Pattern ATHLETIC_WORDS = words("practice", "training");
+    private static final Pattern ASSIGNMENT_WORDS = words("due", "assignment", "homework");
+
+    private final Sink sink;
+    private final int batchSize;
+
+    /** One calendar per time zone, reused to parse date-times. */
+    private final Map<String, Calendar> calendars = new HashMap<>();
+
+    private final List<Event> batch = new ArrayList<>();
+    /**
+     * Occurrences to skip for each recurring event, from RECURRENCE-IDs. The ones for a series
+     * that is not committed yet are kept until the series is read, since a file may list the
+     * replaced occurrences before their series.
+     */
+    private final Map<UUID, List<Date>> exceptions = new HashMap<>();
+    /** The series with exceptions that were not committed when the exceptions were sent. */
+    private final Set<UUID> uncommittedSeries = new HashSet<>();
+    private int imported;
+
+    // how many components (VCALENDAR, VEVENT, VALARM, ...) the current line is inside of, and
+    // the depth of the VEVENT being read: properties of components inside it (like a VALARM's
+    // DESCRIPTION) are not the event's, except for the TRIGGER of a VALARM directly inside it
+    private int depth, eventDepth;
+    private boolean inAlarm;
+
+    // the VEVENT being read
+    private Event event;
+    private String uid, categories, rrule, recurrenceId, recurrenceIdZone;
+    private EventType knownType;
+    private long duration = -1;
+    private boolean cancelledStatus, allDay, invalid;
+    private final List<Date> exdates = new ArrayList<>();
+
+    /**
+     * @param sink where the imported events are committed
+     * @param batchSize the maximum number of events in each batch
+     */
+    IcsImporter(@NonNull Sink sink, int batchSize) {
+        if (batchSize < 1) { throw new IllegalArgumentException("batchSize must be at least 1"); }
+        this.sink = sink;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Import all of the events in a file. Blocks until the import finishes, so it must not be
+     * called on the main thread. The stream is not closed.
+     *
+     * @param in the .ics file contents
+     * @param task checked for cancellation between lines
+     * @param listener receives progress, may be null
+     * @return the number of events imported
+     * @throws IOException if the file cannot be read
+     */
+    int run(@NonNull InputStream in, @NonNull Task task, Listener listener) throws IOException {
+        CountingInputStream counter = new CountingInputStream(in);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(counter, StandardCharsets.UTF_8));
+        String line;
+        while (!task.isCancelled() && (line = readContentLine(reader)) != null) {
+            handleLine(line);
+            if (batch.size() >= batchSize) {
+                commitBatch();
+                if (listener != null) { listener.onProgress(imported, counter.count); }
+            }
+        }
+        if (!task.isCancelled() && (!batch.isEmpty() || exceptions.size() > uncommittedSeries.size())) {
+            commitBatch();
+            if (listener != null) { listener.onProgress(imported, counter.count); }
+        }
+        return imported;
+    }
+
+    /**
+     * Read one content line, joining folded lines (lines starting with a space or tab continue
+     * the previous line).
+     * @return the unfolded line or null at the end of the file
+     */
+    private static String readContentLine(BufferedReader reader) throws IOException {
+        int c;
+        do { c = reader.read(); } while (c == '\r' || c == '\n'); // skip blank lines
+        if (c == -1) { return null; }
+        StringBuilder line = new StringBuilder();
+        while (true) {
+            // the rest of this physical line
+            while (c != -1 && c != '\r' && c != '\n') {
+                if (line.length() < MAX_LINE_LENGTH) { line.append((char) c); }
+                c = reader.read();
+            }
+            if (c == '\r') { skipNewline(reader); }
+            if (c == -1) { return line.toString(); }
+            reader.mark(1);
+            c = reader.read();
+            if (c != ' ' && c != '\t') {
+                reader.reset();
+                return line.toString();
+            }
+            c = reader.read(); // continue with the folded line
+        }
+    }
+
+    /** After a CR, skip the LF that may follow it. */
+    private static void skipNewline(BufferedReader reader) throws IOException {
+        reader.mark(1);
+        if (reader.read() != '\n') { reader.reset(); }
+    }
+
+    private void handleLine(String line) {
+        // split "NAME;PARAM=VALUE:value" at the first colon outside of quotes
+        int colon = -1;
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') { quoted = !quoted; }
+            else if (c == ':' && !quoted) { colon = i; break; }
+        }
+        if (colon < 0) { return; }
+        String[] nameAndParams = line.substring(0, colon).split(";(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)");
+        String name = nameAndParams[0].trim().toUpperCase(Locale.US);
+        String value = line.substring(colon + 1);
+        String tzid = null;
+        boolean dateOnly = false, relatedToEnd = false;
+        for (int i = 1; i < nameAndParams.length; i++) {
+            String param = nameAndParams[i];
+            int eq = param.indexOf('=');
+            if (eq < 0) { continue; }
+            String key = param.substring(0, eq).trim().toUpperCase(Locale.US);
+            String paramValue = param.substring(eq + 1).replace("\"", "").trim();
+            if (key.equals("TZID")) { tzid = paramValue; }
+            else if (key.equals("VALUE")) { dateOnly = paramValue.equalsIgnoreCase("DATE"); }
+            else if (key.equals("RELATED")) { relatedToEnd = paramValue.equalsIgnoreCase("END"); }
+        }
+
+        if (name.equals("BEGIN")) {
+            depth++;
+            if (event == null && value.equalsIgnoreCase("VEVENT")) {
+                startEvent();
+                eventDepth = depth;
+            } else if (event != null && depth == eventDepth + 1 && value.equalsIgnoreCase("VALARM")) {
+                inAlarm = true;
+            }
+            return;
+        }
+        if (name.equals("END")) {
+            if (event != null && depth == eventDepth) { finishEvent(); }
+            else if (depth == eventDepth + 1) { inAlarm = false; }
+            depth = Math.max(0, depth - 1);
+            return;
+        }
+        if (event == null) { return; }
+        if (inAlarm && depth == eventDepth + 1) {
+            if (name.equals("TRIGGER")) { handleTrigger(value.trim(), relatedToEnd); }
+            return;
+        }
+        if (depth != eventDepth) { return; } // only properties of events are used
+        try {
+            handleProperty(name, value, tzid, dateOnly);
+        } catch (IllegalArgumentException e) {
+            invalid = true; // skip events with values that cannot be understood
+        }
+    }
+
+    private void handleProperty(String name, String value, String tzid, boolean dateOnly) {
+        switch (name) {
+            case "UID": uid = value; break;
+            case "SUMMARY": event.name = unescape(value); break;
+            case "DESCRIPTION": event.description = unescape(value); break;
+            case "CATEGORIES": categories = unescape(value); break;
+            case "X-MOCALENDAR-TYPE": knownType = parseType(value.trim()); break;
+            case "RRULE": rrule = value; break;
+            case "RECURRENCE-ID":
+                recurrenceId = value;
+                recurrenceIdZone = tzid;
+                break;
+            case "STATUS": cancelledStatus = value.equalsIgnoreCase("CANCELLED"); break;
+            case "DTSTART":
+                allDay = dateOnly || value.length() == 8;
+                event.startTime = parseDateTime(value, tzid);
+                break;
+            case "DTEND": event.endTime = parseDateTime(value, tzid); break;
+            case "DURATION": duration = parseDuration(value); break;
+            case "EXDATE":
+                for (String exdate : value.split(",")) { exdates.add(parseDateTime(exdate.trim(), tzid)); }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Use the TRIGGER of one of the event's alarms as its reminder. Only reminders relative to
+     * the start of the event and not after it can be stored; the earliest of several is kept.
+     */
+    private void handleTrigger(String value, boolean relatedToEnd) {
+        // triggers at a fixed time (VALUE=DATE-TIME) are not durations
+        boolean relative = value.startsWith("P") || value.startsWith("-P") || value.startsWith("+P");
+        if (relatedToEnd || !relative) { return; }
+        long millis = parseDuration(value);
+        if (millis > 0) { return; }
+        int minutes = (int) (-millis / (60 * 1000));
+        if (event.reminderMinutes == null || minutes > event.reminderMinutes) { event.reminderMinutes = minutes; }
+    }
+
+    private void startEvent() {
+        event = new Event();
+        event.name = "";
+        uid = categories = rrule = recurrenceId = recurrenceIdZone = null;
+        knownType = null;
+        duration = -1;
+        cancelledStatus = allDay = invalid = inAlarm = false;
+        exdates.clear();
+    }
+
+    private void finishEvent() {
+        Event e = event;
+        event = null;
+        if (cancelledStatus || invalid) { return; }
+        if (uid == null) { uid = UUID.randomUUID().toString(); }
+        UUID seriesId = UUID.nameUUIDFromBytes(uid.getBytes(StandardCharsets.UTF_8));
+        if (recurrenceId != null) {
+            // a replacement for a single occurrence of a recurring event
+            e.id = UUID.nameUUIDFromBytes((uid + "/" + recurrenceId).getBytes(StandardCharsets.UTF_8));
+            e.seriesId = seriesId;
+            addException(seriesId, parseDateTime(recurrenceId, recurrenceIdZone));
+        } else {
+            e.id = seriesId;
+        }
+        if (e.endTime == null) {
+            if (duration >= 0) { e.endTime = new Date(e.startTime.getTime() + duration); }
+            else if (allDay) { e.endTime = new Date(e.startTime.getTime() + DAY_MILLIS); }
+        }
+        if (e.endTime != null && e.endTime.before(e.startTime)) { e.endTime = e.startTime; }
+        if (e.name.isEmpty()) { e.name = "Imported Event"; }
+        e.type = knownType != null ? knownType : guessType(e.name, categories, e.endTime == null);
+        if (rrule != null && recurrenceId == null) {
+            try {
+                e.recurrence = RecurrenceRule.parse(rrule);
+                for (Date exdate : exdates) { e.recurrence = e.recurrence.withException(exdate); }
+                List<Date> pending = exceptions.remove(e.id);
+                uncommittedSeries.remove(e.id);
+                if (pending != null) {
+                    for (Date exdate : pending) { e.recurrence = e.recurrence.withException(exdate); }
+                }
+                long start = e.startTime.getTime();
+                long length = e.endTime == null ? 0 : e.endTime.getTime() - start;
+                e.recurrenceEnd = new Date(e.recurrence.getSeriesEnd(start, length));
+            } catch (IllegalArgumentException ex) {
+                // unsupported rule, only the first occurrence is imported
+                e.recurrence = null;
+            }
+        }
+        batch.add(e);
+    }
+
+    private void addException(UUID seriesId, Date occurrenceStart) {
+        // if the series is in the current batch update it directly
+        for (Event e : batch) {
+            if (e.id.equals(seriesId) && e.recurrence != null) {
+                e.recurrence = e.recurrence.withException(occurrenceStart);
+                return;
+            }
+        }
+        List<Date> list = exceptions.get(seriesId);
+        if (list == null) {
+            list = new ArrayList<>();
+            exceptions.put(seriesId, list);
+        }
+        list.add(occurrenceStart);
+    }
+
+    private void commitBatch() {
+        if (!batch.isEmpty()) {
+            sink.commit(new ArrayList<>(batch));
+            imported += batch.size();
+            batch.clear();
+        }
+        // series seen in earlier batches (or already in the database); the others are kept for
+        // when their series is read, and are only looked for once
+        for (Iterator<Map.Entry<UUID, List<Date>>> it = exceptions.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<UUID, List<Date>> entry = it.next();
+            if (uncommittedSeries.contains(entry.getKey())) { continue; }
+            if (sink.addExceptions(entry.getKey(), entry.getValue())) {
+                it.remove();
+            } else {
+                uncommittedSeries.add(entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Parse a DATE or DATE-TIME value, in UTC (with a Z), in the given time zone, or otherwise in
+     * the device's time zone.
+     */
+    private Date parseDateTime(String value, String tzid) {
+        String zone = value.endsWith("Z") ? "UTC" : tzid == null ? "" : tzid;
+        Calendar cal = calendars.get(zone);
+        if (cal == null) {
+            TimeZone tz = TimeZone.getDefault();
+            if (!zone.isEmpty()) {
+                TimeZone named = TimeZone.getTimeZone(zone);
+                // unknown zones (like Windows zone names) come back as GMT
+                if (!named.getID().equals("GMT") || zone.equals("GMT") || zone.equals("UTC")) { tz = named; }
+            }
+            cal = Calendar.getInstance(tz);
+            calendars.put(zone, cal);
+        }
+        cal.clear();
+        try {
+            cal.set(Integer.parseInt(value.substring(0, 4)), Integer.parseInt(value.substring(4, 6)) - 1,
+                    Integer.parseInt(value.substring(6, 8)));
+            if (value.length() >= 15 && value.charAt(8) == 'T') {
+                cal.set(Calendar.HOUR_OF_DAY, Integer.parseInt(value.substring(9, 11)));
+                cal.set(Calendar.MINUTE, Integer.parseInt(value.substring(11, 13)));
+                cal.set(Calendar.SECOND, Integer.parseInt(value.substring(13, 15)));
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid date-time: " + value, e);
+        }
+        return cal.getTime();
+    }
+
+    /**
+     * Parse a DURATION value like "PT1H30M" or "P1W".
+     * @return the duration in milliseconds
+     */
+    static long parseDuration(String value) {
+        long millis = 0, number = 0;
+        boolean negative = value.startsWith("-");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') { number = number * 10 + (c - '0'); continue; }
+            switch (c) {
+                case 'W': millis += number * 7 * DAY_MILLIS; break;
+                case 'D': millis += number * DAY_MILLIS; break;
+                case 'H': millis += number * 60 * 60 * 1000; break;
+                case 'M': millis += number * 60 * 1000; break;
+                case 'S': millis += number * 1000; break;
+                default: break; // P, T, + and -
+            }
+            number = 0;
+        }
+        return negative ? -millis : millis;
+    }
+
+    /**
+     * @return the type with the given name, or null if there is none (such as a type from a newer
+     *         version of the app) so that the type is guessed instead
+     */
+    private static EventType parseType(String name) {
+        try {
+            return EventType.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Undo the escaping of TEXT values.
+     */
+    static String unescape(String value) {
+        if (value.indexOf('\\') < 0) { return value; }
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                sb.append(next == 'n' || next == 'N' ? '\n' : next);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Guess the type of an event from its name and categories.
+     * @param name the name (SUMMARY) of the event
+     * @param categories the CATEGORIES of the event, may be null
+     * @param hasNoEnd true if the event has no end time (so is likely something that is due)
+     * @return the best guess of the type of the event
+     */
+    static EventType guessType(String name, String categories, boolean hasNoEnd) {
+        String text = name + " " + (categories == null ? "" : categories);
+        if (EXAM_WORDS.matcher(text).find()) { return EventType.EXAM; }
+        if (LAB_WORDS.matcher(text).find()) { return EventType.LAB; }
+        if (OFFICE_HOURS_WORDS.matcher(text).find()) { return EventType.OFFICE_HOURS; }
+        if (ESSAY_WORDS.matcher(text).find()) { return EventType.ESSAY; }
+        if (PROGRAMMING_WORDS.matcher(text).find()) { return EventType.PROGRAMMING; }
+        if (READING_WORDS.matcher(text).find()) { return EventType.READING; }
+        if (PRESENTATION_WORDS.matcher(text).find()) { return EventType.PRESENTATION; }
+        if (HOLIDAY_WORDS.matcher(text).find()) { return EventType.HOLIDAY; }
+        if (CLASS_WORDS.matcher(text).find()) { return EventType.CLASS; }
+        if (CLUB_WORDS.matcher(text).find()) { return EventType.CLUB; }
+        if (COMPETITION_WORDS.matcher(text).find()) { return EventType.COMPETITION; }
+        if (MUSIC_WORDS.matcher(text).find()) { return EventType.MUSIC_PRACTICE; }
+        if (ATHLETIC_WORDS.matcher(text).find()) { return EventType.ATHLETIC_PRACTICE; }
+        if (hasNoEnd || ASSIGNMENT_WORDS.matcher(text).find()) { return EventType.ASSIGNMENT; }
+        return EventType.GENERIC;
+    }
+
+    /**
+     * @return a case-insensitive pattern matching any of the words (or phrases) as whole words,
+     *         optionally followed by a plural "s" or "es", so "lab" matches "Labs" but not
+     *         "collaboration"
+     */
+    private static Pattern words(String... words) {
+        StringBuilder regex = new StringBuilder("\\b(?:");
+        for (int i = 0; i < words.length; i++) {
+            if (i > 0) { regex.append('|'); }
+            regex.append(Pattern.quote(words[i]).replace(" ", "\\E\\s+\\Q"));
+        }
+        return Pattern.compile(regex.append(")(?:e?s)?\\b").toString(), Pattern.CASE_INSENSITIVE);
+    }
+
+    /**
+     * Counts the bytes read through it, for progress reports.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) { count++; }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) { count += n; }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
@@ -10,7 +10,9 @@ import android.os.Bundle;
 import androidx.annotation.NonNull;
 import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
-import androidx.lifecycle.LiveData;
+import androidx.lifecycle.ViewModelProvider;
+import androidx.paging.PagedListAdapter;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.ItemTouchHelper;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
@@ -26,7 +28,6 @@ import android.widget.TextView;
 
 
 import java.util.Date;
-import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
@@ -45,8 +46,7 @@ public class ListFragment extends Fragment {
     // fragment initialization parameters
     private static final String ARG_DATE = "date";
 
-    private Date date;
-    private List<Event> events = Collections.emptyList();
+    private DayViewModel dayViewModel;
     private TextView dateText;
     private RecyclerView listView;
     private Callbacks callbacks;
@@ -54,6 +54,20 @@ public class ListFragment extends Fragment {
     interface Callbacks {
 
         void onEventSelected(Event event);
+
+        /**
+         * Show the agenda of all events from a day onward.
+         *
+         * @param date the day to start the agenda at
+         */
+        void onAgendaSelected(Date date);
+
+        /**
+         * Show the timeline of the week containing a day.
+         *
+         * @param date a day in the week to show
+         */
+        void onWeekSelected(Date date);
     }
 
 
@@ -78,21 +92,23 @@ public class ListFragment extends Fragment {
      * @param date the new day for the list to show events for
      */
     public void setDay(Date date) {
-        this.date = date;
         assert getArguments() != null;
         getArguments().putSerializable(ARG_DATE, date);
-        onDateChange();
+        dayViewModel.setDay(date);
     }
 
     /**
-     * Upon creation need to enable the options menu and update the view for the initial date.
+     * Upon creation need to enable the options menu and select the initial date (unless a day
+     * is already selected, for example before a configuration change).
      */
     @Override
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        assert getArguments() != null;
-        date = DateUtils.useDateOrNow((Date) getArguments().getSerializable(ARG_DATE));
-        onDateChange();
+        dayViewModel = new ViewModelProvider(requireActivity()).get(DayViewModel.class);
+        if (dayViewModel.getSelectedDay() == null) {
+            assert getArguments() != null;
+            dayViewModel.setDay(DateUtils.useDateOrNow((Date) getArguments().getSerializable(ARG_DATE)));
+        }
 
         setHasOptionsMenu(true);
     }
@@ -122,19 +138,18 @@ public class ListFragment extends Fragment {
     }
 
     /**
-     * When the date is changed for this fragment we need to grab a new list of events and update
-     * the UI.
+     * Once the view exists, show the selected day and its events. These are observed with the
+     * lifecycle of the view so nothing is left observing once the view is destroyed, and the
+     * single query for the selected day is switched over by the view model when the day changes.
      */
-    private void onDateChange() {
-        int[] yearMonthDay = DateUtils.getYearMonthDay(date);
-        // get events for currently selected date from 12 AM to 12 PM
-        LiveData<List<Event>> eventDataItems = CalendarRepository.get().getEventsOnDay(DateUtils.getDate(yearMonthDay[0], yearMonthDay[1], yearMonthDay[2]));
-        eventDataItems.observe(this, events -> {
-            this.events = events;
-            Objects.requireNonNull(listView.getAdapter()).notifyDataSetChanged();
-            dateText.setText(DateUtils.toFullDateString(date));
-
-        });
+    @Override
+    public void onViewCreated(@NonNull View view, Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+        dayViewModel.getDay().observe(getViewLifecycleOwner(),
+                day -> dateText.setText(DateUtils.toFullDateString(day)));
+        dayViewModel.getEvents().observe(getViewLifecycleOwner(),
+                events -> ((EventListAdapter) Objects.requireNonNull(listView.getAdapter()))
+                        .submitList(events, StartupMetrics::onListShown));
     }
 
     @Override
@@ -169,12 +184,16 @@ public class ListFragment extends Fragment {
      */
     @Override
     public boolean onOptionsItemSelected(@NonNull MenuItem item) {
+        Date date = DateUtils.useDateOrNow(dayViewModel.getSelectedDay());
         if (item.getItemId() == R.id.new_event) {
             Event event = new Event();
             event.startTime = DateUtils.useDateOrNow(date);
             event.endTime = new Date(date.getTime() + 3600000);
 
             CalendarRepository.get().addEvent(event);
+            // this fragment is replaced by the editor right away so warn from the application
+            Context context = requireContext().getApplicationContext();
+            CalendarRepository.get().findConflicts(event, (e, conflicts) -> EventFragment.showConflictWarning(context, conflicts));
             callbacks.onEventSelected(event);
             return true;
         } else if (item.getItemId() == R.id.new_assignment) {
@@ -184,6 +203,12 @@ public class ListFragment extends Fragment {
             CalendarRepository.get().addEvent(event);
             callbacks.onEventSelected(event);
             return true;
+        } else if (item.getItemId() == R.id.agenda) {
+            callbacks.onAgendaSelected(date);
+            return true;
+        } else if (item.getItemId() == R.id.week) {
+            callbacks.onWeekSelected(date);
+            return true;
         } else
             return super.onOptionsItemSelected(item);
     }
@@ -209,10 +234,69 @@ public class ListFragment extends Fragment {
 
 
 
+    // The parts of an event row that can be rebound on their own, used as change payloads
+    private static final int CHANGED_NAME = 1, CHANGED_DESCRIPTION = 2, CHANGED_TIMES = 4, CHANGED_TYPE = 8;
+
+    /**
+     * Events are the same item if they have the same id. Used (on a background thread) to work out
+     * which rows changed between lists of events, and which parts of those rows changed so only
+     * those views are rebound.
+     */
+    private static final DiffUtil.ItemCallback<Event> EVENT_DIFF = new DiffUtil.ItemCallback<Event>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Event oldItem, @NonNull Event newItem) {
+            return oldItem.id.equals(newItem.id);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Event oldItem, @NonNull Event newItem) {
+            return changes(oldItem, newItem) == 0;
+        }
+
+        @Override
+        public Object getChangePayload(@NonNull Event oldItem, @NonNull Event newItem) {
+            return changes(oldItem, newItem);
+        }
+
+        private int changes(Event oldItem, Event newItem) {
+            int changes = 0;
+            if (!oldItem.name.equals(newItem.name)) { changes |= CHANGED_NAME; }
+            if (!oldItem.description.equals(newItem.description)) { changes |= CHANGED_DESCRIPTION; }
+            if (!oldItem.startTime.equals(newItem.startTime) || !Objects.equals(oldItem.endTime, newItem.endTime)) { changes |= CHANGED_TIMES; }
+            if (oldItem.type != newItem.type) { changes |= CHANGED_TYPE; }
+            return changes;
+        }
+    };
+
     /**
-     * The adapter for the items list to be displayed in a RecyclerView.
+     * The adapter for the items list to be displayed in a RecyclerView. Events are loaded in pages
+     * as the list is scrolled instead of all at once. New lists are diffed against the current one
+     * on a background thread so only the rows (and parts of rows) that changed are updated.
      */
-    private class EventListAdapter extends RecyclerView.Adapter<EventViewHolder> {
+    private class EventListAdapter extends PagedListAdapter<Event, EventViewHolder> {
+        EventListAdapter() {
+            super(EVENT_DIFF);
+            setHasStableIds(true);
+        }
+
+        /**
+         * @param position the position in the list
+         * @return the event at that position
+         */
+        Event getEvent(int position) {
+            return getItem(position);
+        }
+
+        /**
+         * Item ids come from the event ids so that they are stable across lists.
+         */
+        @Override
+        public long getItemId(int position) {
+            Event event = getItem(position);
+            return event == null ? RecyclerView.NO_ID :
+                    event.id.getMostSignificantBits() ^ event.id.getLeastSignificantBits();
+        }
+
         /**
          * To create the view holder we inflate the layout we want to use for
          * each item and then return an ItemViewHolder holding the inflated
@@ -221,8 +305,11 @@ public class ListFragment extends Fragment {
         @NonNull
         @Override
         public EventViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            long start = Metrics.start("ui.list.create");
             View v = LayoutInflater.from(parent.getContext()).inflate(R.layout.list_item, parent, false);
-            return new EventViewHolder(v);
+            EventViewHolder holder = new EventViewHolder(v);
+            Metrics.stop("ui.list.create", start);
+            return holder;
         }
 
         /**
@@ -235,22 +322,36 @@ public class ListFragment extends Fragment {
          */
         @Override
         public void onBindViewHolder(@NonNull EventViewHolder holder, int position) {
-
-            Event event = events.get(position);
-            holder.event = event;
-            holder.name.setText(event.name);
-            holder.description.setText(event.description);
-            holder.startTime.setText(DateUtils.toTimeString(event.startTime));
-            holder.typeView.setImageResource(event.type.iconResourceId);
-            if (event.endTime != null) { holder.endTime.setText(DateUtils.toTimeString(event.endTime)); }
+            bind(holder, Objects.requireNonNull(getItem(position)), ~0);
         }
 
         /**
-         * @return the total number of items to be displayed in the list
+         * When only some parts of an item changed, only update the views for those parts.
+         *
+         * @param holder   the ItemViewHolder holding the view to be updated
+         * @param position the position in the list of the item to display
+         * @param payloads the parts of the item that changed, empty to update everything
          */
         @Override
-        public int getItemCount() {
-            return events.size();
+        public void onBindViewHolder(@NonNull EventViewHolder holder, int position, @NonNull List<Object> payloads) {
+            int changes = 0;
+            for (Object payload : payloads) {
+                changes |= payload instanceof Integer ? (Integer) payload : ~0;
+            }
+            bind(holder, Objects.requireNonNull(getItem(position)), payloads.isEmpty() ? ~0 : changes);
+        }
+
+        private void bind(EventViewHolder holder, Event event, int changes) {
+            long start = Metrics.start("ui.list.bind");
+            holder.event = event;
+            if ((changes & CHANGED_NAME) != 0) { holder.name.setText(event.name); }
+            if ((changes & CHANGED_DESCRIPTION) != 0) { holder.description.setText(event.description); }
+            if ((changes & CHANGED_TIMES) != 0) {
+                holder.startTime.setText(DateUtils.toTimeString(event.startTime));
+                holder.endTime.setText(event.endTime != null ? DateUtils.toTimeString(event.endTime) : "");
+            }
+            if ((changes & CHANGED_TYPE) != 0) { holder.typeView.setImageResource(EventTypeIcons.get(event.type)); }
+            Metrics.stop("ui.list.bind", start);
         }
     }
 
@@ -284,9 +385,11 @@ public class ListFragment extends Fragment {
         @Override
         public void onSwiped(@NonNull RecyclerView.ViewHolder viewHolder, int direction) {
             int position = viewHolder.getAdapterPosition();
+            if (position == RecyclerView.NO_POSITION) { return; }
 
-            CalendarRepository.get().removeEvent(events.get(position)); // delete from database
-            adapter.notifyItemRemoved(position);
+            // delete from database, the row is removed when the updated list is diffed
+            CalendarRepository.get().removeEvent(adapter.getEvent(position));
+            CalendarRepository.get().flush();
         }
 
         /**
@@ -1,10 +1,10 @@
 package edu.moravian.csci299.mocalendar;
 
 import androidx.appcompat.app.AppCompatActivity;
-import androidx.fragment.app.FragmentManager;
-import androidx.fragment.app.FragmentTransaction;
+import androidx.lifecycle.ViewModelProvider;
 
 import android.os.Bundle;
+import android.util.Log;
 
 import java.util.Date;
 
@@ -25,30 +25,41 @@ import java.util.Date;
  * Authors: Evan, Kyle
  */
 public class MainActivity extends AppCompatActivity implements CalendarFragment.Callbacks, ListFragment.Callbacks {
-    private ListFragment listFragment;
+    private static final String TAG = "MainActivity";
+
+    private DayViewModel dayViewModel;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
+        dayViewModel = new ViewModelProvider(this).get(DayViewModel.class);
 
-        FragmentManager fm = getSupportFragmentManager();
-        FragmentTransaction transaction = fm.beginTransaction();
-        CalendarFragment calendarFragment = (CalendarFragment) fm.findFragmentById(R.id.calendarView);
-
-        listFragment = (ListFragment) fm.findFragmentByTag("list");
-
-        if (calendarFragment == null) {
-            calendarFragment = CalendarFragment.newInstance();
+        // the fragments are restored by the fragment manager after a configuration change
+        if (savedInstanceState == null) {
+            getSupportFragmentManager()
+                    .beginTransaction()
+                    .add(R.id.fragment_container, CalendarFragment.newInstance(), "calendar")
+                    .add(R.id.fragment_container, ListFragment.newInstance(new Date()), "list")
+                    .commit();
         }
-        listFragment = ListFragment.newInstance(new Date());
-        transaction.add(R.id.fragment_container, calendarFragment).add(R.id.fragment_container, listFragment).commit();
+    }
 
+    /**
+     * When the app goes to the background, log the metrics collected so far (if enabled) so they
+     * can be pulled with logcat.
+     */
+    @Override
+    protected void onStop() {
+        super.onStop();
+        if (Metrics.isEnabled()) {
+            Log.i(TAG, "metrics: " + CalendarRepository.get().getMetricsSnapshot());
+        }
     }
 
     @Override
     public void onDayChanged(Date date) {
-        listFragment.setDay(date);
+        dayViewModel.setDay(date);
     }
 
     @Override
@@ -59,4 +70,22 @@ public class MainActivity extends AppCompatActivity implements CalendarFragment.
                 .addToBackStack(null)
                 .commit();
     }
+
+    @Override
+    public void onAgendaSelected(Date date) {
+        getSupportFragmentManager()
+                .beginTransaction()
+                .replace(R.id.fragment_container, AgendaFragment.newInstance(date))
+                .addToBackStack(null)
+                .commit();
+    }
+
+    @Override
+    public void onWeekSelected(Date date) {
+        getSupportFragmentManager()
+                .beginTransaction()
+                .replace(R.id.fragment_container, TimelineFragment.newWeekInstance(date))
+                .addToBackStack(null)
+                .commit();
+    }
 }
@@ -0,0 +1,215 @@
+package edu.moravian.csci299.mocalendar;
+
+import android.os.Trace;
+
+import androidx.annotation.NonNull;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lightweight registry of counters and latency histograms for the hot paths of the app. All
+ * updates are lock-free. Timed sections are also marked as systrace sections so they show up in
+ * profiler traces.
+ * <p>
+ * Metrics are off by default; while off, every call returns after reading a single volatile flag
+ * and nothing is allocated. Typical use:
+ * <pre>
+ *     long start = Metrics.start("dao.loadEventsOnDay");
+ *     try { ... } finally { Metrics.stop("dao.loadEventsOnDay", start); }
+ * </pre>
+ */
+public final class Metrics {
+    private static volatile boolean enabled;
+
+    private static final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+    private static final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    private Metrics() {}
+
+    /**
+     * A histogram of durations in power-of-two buckets of nanoseconds: bucket i counts the
+     * durations from 2^(i-1) (inclusive) to 2^i (exclusive) nanoseconds.
+     */
+    static class Histogram {
+        private final AtomicLongArray buckets = new AtomicLongArray(64);
+        private final AtomicLong count = new AtomicLong(), total = new AtomicLong(), max = new AtomicLong();
+
+        void record(long nanos) {
+            if (nanos < 0) { nanos = 0; }
+            buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(nanos));
+            count.incrementAndGet();
+            total.addAndGet(nanos);
+            long previous;
+            while (nanos > (previous = max.get()) && !max.compareAndSet(previous, nanos)) {
+                // another thread raised the max, check again
+            }
+        }
+
+        /**
+         * @return the upper bound of the bucket containing the given fraction of the durations,
+         *         in nanoseconds
+         */
+        private long percentile(long[] counts, long count, double fraction) {
+            long target = (long) Math.ceil(count * fraction), seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= target && seen > 0) { return i == 0 ? 0 : 1L << Math.min(62, i); }
+            }
+            return max.get();
+        }
+
+        JSONObject toJson() throws JSONException {
+            long[] counts = new long[buckets.length()];
+            for (int i = 0; i < counts.length; i++) { counts[i] = buckets.get(i); }
+            long count = this.count.get();
+            JSONObject json = new JSONObject();
+            json.put("count", count);
+            json.put("meanMicros", count == 0 ? 0 : total.get() / count / 1000.0);
+            json.put("maxMicros", max.get() / 1000.0);
+            json.put("p50Micros", percentile(counts, count, 0.5) / 1000.0);
+            json.put("p90Micros", percentile(counts, count, 0.9) / 1000.0);
+            json.put("p99Micros", percentile(counts, count, 0.99) / 1000.0);
+            JSONArray nonEmpty = new JSONArray();
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != 0) { nonEmpty.put(new JSONArray().put(i == 0 ? 0 : 1L << Math.min(62, i)).put(counts[i])); }
+            }
+            json.put("bucketsNanos", nonEmpty);
+            return json;
+        }
+    }
+
+    /**
+     * @param enabled true to start collecting metrics, false to stop (what was collected is kept)
+     */
+    public static void setEnabled(boolean enabled) {
+        Metrics.enabled = enabled;
+    }
+
+    /**
+     * @return true if metrics are being collected
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Add one to a counter.
+     * @param name the name of the counter
+     */
+    public static void increment(String name) {
+        if (!enabled) { return; }
+        AtomicLong counter = counters.get(name);
+        if (counter == null) {
+            AtomicLong created = new AtomicLong();
+            counter = counters.putIfAbsent(name, created);
+            if (counter == null) { counter = created; }
+        }
+        counter.incrementAndGet();
+    }
+
+    /**
+     * Start timing a section of code, which is also marked as a trace section. Must be followed
+     * by stop() on the same thread.
+     * @param name the name of the section
+     * @return the start time to pass to stop(), 0 if metrics are off
+     */
+    public static long start(String name) {
+        if (!enabled) { return 0; }
+        Trace.beginSection(name);
+        return System.nanoTime();
+    }
+
+    /**
+     * Stop timing a section of code and record how long it took.
+     * @param name the name of the section, the same as given to start()
+     * @param start the value returned by start()
+     */
+    public static void stop(String name, long start) {
+        if (start == 0) { return; }
+        long elapsed = System.nanoTime() - start;
+        Trace.endSection();
+        histogram(name).record(elapsed);
+    }
+
+    /**
+     * Record a duration that was measured some other way, such as across threads.
+     * @param name the name of the histogram
+     * @param nanos the duration in nanoseconds
+     */
+    public static void record(String name, long nanos) {
+        if (!enabled) { return; }
+        histogram(name).record(nanos);
+    }
+
+    /**
+     * Wrap an executor so that the time each task waits in its queue is recorded.
+     * @param name the name of the histogram of queue times
+     * @param executor the executor to wrap
+     * @return an executor that runs tasks on the given one
+     */
+    public static Executor timeQueue(String name, Executor executor) {
+        return task -> {
+            if (!enabled) {
+                executor.execute(task);
+                return;
+            }
+            long queued = System.nanoTime();
+            executor.execute(() -> {
+                record(name, System.nanoTime() - queued);
+                task.run();
+            });
+        };
+    }
+
+    /**
+     * Forget everything that has been collected.
+     */
+    public static void reset() {
+        counters.clear();
+        histograms.clear();
+    }
+
+    /**
+     * @return a snapshot of all counters and histograms as JSON, with the durations in
+     *         microseconds
+     */
+    @NonNull
+    public static JSONObject snapshot() {
+        JSONObject json = new JSONObject();
+        try {
+            json.put("enabled", enabled);
+            JSONObject counterJson = new JSONObject();
+            for (Map.Entry<String, AtomicLong> entry : counters.entrySet()) {
+                counterJson.put(entry.getKey(), entry.getValue().get());
+            }
+            json.put("counters", counterJson);
+            JSONObject histogramJson = new JSONObject();
+            for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+                histogramJson.put(entry.getKey(), entry.getValue().toJson());
+            }
+            json.put("histograms", histogramJson);
+        } catch (JSONException e) {
+            // only thrown for non-finite numbers, which are never put
+            throw new IllegalStateException(e);
+        }
+        return json;
+    }
+
+    private static Histogram histogram(String name) {
+        Histogram histogram = histograms.get(name);
+        if (histogram == null) {
+            Histogram created = new Histogram();
+            histogram = histograms.putIfAbsent(name, created);
+            if (histogram == null) { histogram = created; }
+        }
+        return histogram;
+    }
+}
@@ -0,0 +1,121 @@
+package edu.moravian.csci299.mocalendar;
+
+import android.app.AlarmManager;
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+import androidx.core.app.AlarmManagerCompat;
+import androidx.core.app.NotificationCompat;
+import androidx.core.app.NotificationManagerCompat;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Connects the ReminderScheduler to Android: keeps the single alarm for the next reminder set with
+ * AlarmManager (which wakes ReminderReceiver), shows due reminders as notifications, and saves
+ * how far reminders have been fired so nothing is repeated or missed across restarts.
+ */
+class ReminderNotifier implements ReminderScheduler.Listener {
+    private static final String CHANNEL_ID = "reminders";
+    private static final String PREFERENCES = "reminders";
+    private static final String KEY_FIRED_THROUGH = "firedThrough";
+
+    // when more reminders than this are due at once (such as after the device was off) only the
+    // latest are shown and the rest are summarized
+    private static final int MAX_NOTIFICATIONS = 5;
+    private static final int SUMMARY_ID = 0;
+
+    private final Context context;
+
+    /**
+     * @param context the application context
+     */
+    ReminderNotifier(Context context) {
+        this.context = context;
+    }
+
+    /**
+     * @param context any context of the application
+     * @return the time reminders were last fired through (see onFiredThrough()), or -1 if they
+     *         never have been
+     */
+    static long getFiredThrough(Context context) {
+        return context.getSharedPreferences(PREFERENCES, Context.MODE_PRIVATE).getLong(KEY_FIRED_THROUGH, -1);
+    }
+
+    @Override
+    public void onAlarmChanged(long time) {
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        PendingIntent alarm = ReminderReceiver.createAlarmIntent(context);
+        if (time < 0) {
+            alarmManager.cancel(alarm);
+        } else {
+            AlarmManagerCompat.setExactAndAllowWhileIdle(alarmManager, AlarmManager.RTC_WAKEUP, time, alarm);
+        }
+    }
+
+    @Override
+    public void onRemindersDue(@NonNull List<ReminderScheduler.Reminder> reminders) {
+        createChannel();
+        NotificationManagerCompat manager = NotificationManagerCompat.from(context);
+        PendingIntent open = PendingIntent.getActivity(context, 0, new Intent(context, MainActivity.class), PendingIntent.FLAG_UPDATE_CURRENT);
+        int shown = Math.min(reminders.size(), MAX_NOTIFICATIONS);
+        for (int i = reminders.size() - shown; i < reminders.size(); i++) {
+            ReminderScheduler.Reminder reminder = reminders.get(i);
+            Date start = new Date(reminder.start);
+            String text = context.getString(R.string.reminder_text, DateUtils.toDateString(start), DateUtils.toTimeString(start));
+            manager.notify(notificationId(reminder), builder(open)
+                    .setContentTitle(reminder.name)
+                    .setContentText(text)
+                    .setWhen(reminder.start)
+                    .setShowWhen(true)
+                    .build());
+        }
+        if (reminders.size() > shown) {
+            manager.notify(SUMMARY_ID, builder(open)
+                    .setContentTitle(context.getString(R.string.reminders_more, reminders.size() - shown))
+                    .build());
+        }
+    }
+
+    @Override
+    public void onFiredThrough(long time) {
+        context.getSharedPreferences(PREFERENCES, Context.MODE_PRIVATE).edit().putLong(KEY_FIRED_THROUGH, time).apply();
+    }
+
+    private NotificationCompat.Builder builder(PendingIntent open) {
+        return new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setSmallIcon(R.drawable.event)
+                .setCategory(NotificationCompat.CATEGORY_EVENT)
+                .setPriority(NotificationCompat.PRIORITY_HIGH)
+                .setContentIntent(open)
+                .setAutoCancel(true);
+    }
+
+    /**
+     * Create the notification channel for reminders, which is needed on Android 8.0 and up.
+     * Creating a channel that already exists does nothing.
+     */
+    private void createChannel() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) { return; }
+        NotificationChannel channel = new NotificationChannel(CHANNEL_ID,
+                context.getString(R.string.reminder_channel), NotificationManager.IMPORTANCE_HIGH);
+        context.getSystemService(NotificationManager.class).createNotificationChannel(channel);
+    }
+
+    /**
+     * @return the id of the notification of a reminder, the same each time the same reminder is
+     *         shown so it replaces the earlier one
+     */
+    private static int notificationId(ReminderScheduler.Reminder reminder) {
+        int id = reminder.eventId.hashCode() * 31 + (int) (reminder.start ^ (reminder.start >>> 32));
+        return id == SUMMARY_ID ? 1 : id;
+    }
+}
@@ -0,0 +1,32 @@
+package edu.moravian.csci299.mocalendar;
+
+import android.app.PendingIntent;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+
+/**
+ * Receives the reminder alarm set by ReminderNotifier, and the boot broadcast since alarms do not
+ * survive a reboot. Either way the repository (created with the application) fires the reminders
+ * that are due and sets the alarm for the next one.
+ */
+public class ReminderReceiver extends BroadcastReceiver {
+    static final String ACTION_ALARM = "edu.moravian.csci299.mocalendar.action.REMINDER_ALARM";
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        // keep the process alive until the reminders have been checked in the background
+        PendingResult result = goAsync();
+        CalendarRepository.get().checkReminders(result::finish);
+    }
+
+    /**
+     * @param context any context of the application
+     * @return the intent the alarm sends, the same one each time so setting it replaces the
+     *         previous alarm
+     */
+    static PendingIntent createAlarmIntent(Context context) {
+        Intent intent = new Intent(context, ReminderReceiver.class).setAction(ACTION_ALARM);
+        return PendingIntent.getBroadcast(context, 0, intent, PendingIntent.FLAG_UPDATE_CURRENT);
+    }
+}
@@ -0,0 +1,44 @@
+package edu.moravian.csci299.mocalendar;
+
+import android.os.Build;
+import android.os.Process;
+import android.os.SystemClock;
+
+/**
+ * Measures how long the app takes from starting to showing its first list of events. The time is
+ * from the start of the process when the platform reports it (Android 7.0 and up) and otherwise
+ * from when the application is created. Unlike Metrics this is always collected since it is a
+ * single measurement.
+ */
+public final class StartupMetrics {
+    private static volatile long startMillis = -1;
+    private static volatile long timeToFirstListMillis = -1;
+
+    private StartupMetrics() {}
+
+    /**
+     * Called when the application is created to mark the start of startup.
+     */
+    static void onApplicationCreated() {
+        startMillis = Build.VERSION.SDK_INT >= Build.VERSION_CODES.N ?
+                Process.getStartElapsedRealtime() : SystemClock.elapsedRealtime();
+        timeToFirstListMillis = -1;
+    }
+
+    /**
+     * Called each time a list of events is shown. Only the first one after startup is measured.
+     */
+    static void onListShown() {
+        if (startMillis < 0 || timeToFirstListMillis >= 0) { return; }
+        timeToFirstListMillis = SystemClock.elapsedRealtime() - startMillis;
+        Metrics.record("startup.timeToFirstList", timeToFirstListMillis * 1000000);
+    }
+
+    /**
+     * @return the milliseconds from the start of the app to its first list of events being shown,
+     *         or -1 if no list has been shown yet
+     */
+    public static long getTimeToFirstListMillis() {
+        return timeToFirstListMillis;
+    }
+}
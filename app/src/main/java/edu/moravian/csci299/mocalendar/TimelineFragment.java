@@ -0,0 +1,120 @@
+package edu.moravian.csci299.mocalendar;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ScrollView;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.fragment.app.Fragment;
+
+import java.util.Calendar;
+import java.util.Date;
+
+/**
+ * A fragment that displays a timeline of the week containing a day: a time grid with a column for
+ * each day and the events drawn in it. The layout of overlapping events is computed by the
+ * repository off the main thread and only for the days that change. When an event is tapped, the
+ * hosting activity is informed the same way as for the ListFragment.
+ */
+public class TimelineFragment extends Fragment {
+    // fragment initialization parameters
+    private static final String ARG_DATE = "date";
+    private static final String ARG_DAYS = "days";
+
+    // the hour scrolled to when first shown
+    private static final int FIRST_HOUR = 8;
+
+    private long firstDay;
+    private int days;
+    private ListFragment.Callbacks callbacks;
+
+    /**
+     * Use this factory method to create a new instance of this fragment that shows the week
+     * containing the given day.
+     *
+     * @param date a day in the week to show
+     * @return a new instance of fragment TimelineFragment
+     */
+    public static TimelineFragment newWeekInstance(Date date) {
+        Calendar calendar = Calendar.getInstance(DateUtils.getTimeZone());
+        calendar.setTime(date);
+        int offset = calendar.get(Calendar.DAY_OF_WEEK) - calendar.getFirstDayOfWeek();
+        if (offset < 0) { offset += 7; }
+        int ymd = DateUtils.yearMonthDay(date.getTime());
+        long firstDay = DateUtils.dateMillis(DateUtils.year(ymd), DateUtils.month(ymd), DateUtils.dayOfMonth(ymd) - offset);
+        return newInstance(new Date(firstDay), 7);
+    }
+
+    /**
+     * Use this factory method to create a new instance of this fragment that shows a run of days.
+     *
+     * @param date the first day to show
+     * @param days the number of days to show
+     * @return a new instance of fragment TimelineFragment
+     */
+    public static TimelineFragment newInstance(Date date, int days) {
+        TimelineFragment fragment = new TimelineFragment();
+        Bundle args = new Bundle();
+        args.putSerializable(ARG_DATE, date);
+        args.putInt(ARG_DAYS, days);
+        fragment.setArguments(args);
+        return fragment;
+    }
+
+    @Override
+    public void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        assert getArguments() != null;
+        firstDay = DateUtils.startOfDay(DateUtils.useDateOrNow((Date) getArguments().getSerializable(ARG_DATE)).getTime());
+        days = getArguments().getInt(ARG_DAYS, 7);
+    }
+
+    /**
+     * Create the view for this layout, showing the range of days and scrolling to the morning.
+     */
+    @Override
+    public View onCreateView(LayoutInflater inflater, ViewGroup container,
+                             Bundle savedInstanceState) {
+        View base = inflater.inflate(R.layout.fragment_timeline, container, false);
+
+        long lastDay = DateUtils.addDays(firstDay, days - 1);
+        TextView rangeText = base.findViewById(R.id.range_text);
+        rangeText.setText(days == 1 ? DateUtils.toFullDateString(new Date(firstDay)) :
+                getString(R.string.date_range, DateUtils.toDateString(new Date(firstDay)), DateUtils.toDateString(new Date(lastDay))));
+
+        TimelineView timelineView = base.findViewById(R.id.timeline_view);
+        timelineView.setOnEventClickListener(event -> callbacks.onEventSelected(event));
+        if (savedInstanceState == null) {
+            ScrollView scrollView = base.findViewById(R.id.timeline_scroll);
+            scrollView.post(() -> scrollView.scrollTo(0, timelineView.getHourTop(FIRST_HOUR)));
+        }
+        return base;
+    }
+
+    /**
+     * Once the view exists, draw the layouts of the days whenever they are (re)computed.
+     */
+    @Override
+    public void onViewCreated(@NonNull View view, Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+        TimelineView timelineView = view.findViewById(R.id.timeline_view);
+        CalendarRepository.get().getTimeline(new Date(firstDay), days)
+                .observe(getViewLifecycleOwner(), timelineView::setDays);
+    }
+
+    @Override
+    public void onAttach(@NonNull Context context) {
+        super.onAttach(context);
+        callbacks = (ListFragment.Callbacks) context;
+    }
+
+    @Override
+    public void onDetach() {
+        super.onDetach();
+        callbacks = null;
+    }
+}
@@ -0,0 +1,194 @@
+package edu.moravian.csci299.mocalendar;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A time grid of one or more days side by side, with the events of each day drawn as blocks from
+ * their start to end times. Overlapping events are drawn side by side as given by their
+ * TimelineLayout, which is computed elsewhere (off the main thread). Everything is drawn directly
+ * to the canvas instead of using a child view for each event.
+ * <p>
+ * The view is as tall as 24 hours at a fixed height per hour, so it is meant to be placed inside
+ * a ScrollView.
+ */
+public class TimelineView extends View {
+    /**
+     * Callback for when an event on the timeline is tapped.
+     */
+    public interface OnEventClickListener {
+        void onEventClicked(Event event);
+    }
+
+    // the colors of the blocks, chosen by the type of the event
+    private static final int[] COLORS = {
+            0xFF3F51B5, 0xFF009688, 0xFFE91E63, 0xFF8BC34A, 0xFFFF9800,
+            0xFF9C27B0, 0xFF03A9F4, 0xFF795548, 0xFF607D8B, 0xFFCDDC39,
+    };
+
+    private final float hourHeight, gutterWidth, padding;
+    private final Paint gridPaint = new Paint();
+    private final Paint labelPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint blockPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final RectF rect = new RectF();
+    private final String[] hourLabels = new String[24];
+    private final GestureDetector gestureDetector;
+
+    private List<TimelineLayout> days = Collections.emptyList();
+    private OnEventClickListener listener;
+
+    public TimelineView(Context context) {
+        this(context, null);
+    }
+
+    public TimelineView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        hourHeight = dp(48);
+        gutterWidth = dp(56);
+        padding = dp(2);
+
+        gridPaint.setColor(Color.LTGRAY);
+        gridPaint.setStrokeWidth(dp(1) / 2);
+        labelPaint.setColor(Color.GRAY);
+        labelPaint.setTextSize(sp(12));
+        textPaint.setColor(Color.WHITE);
+        textPaint.setTextSize(sp(12));
+        for (int hour = 0; hour < 24; hour++) {
+            hourLabels[hour] = DateUtils.toTimeString(new Date(DateUtils.timeMillis(hour, 0)));
+        }
+
+        gestureDetector = new GestureDetector(context, new GestureDetector.SimpleOnGestureListener() {
+            @Override
+            public boolean onDown(MotionEvent e) {
+                return true;
+            }
+
+            @Override
+            public boolean onSingleTapUp(MotionEvent e) {
+                TimelineLayout.Block block = findBlock(e.getX(), e.getY());
+                if (block == null || listener == null) { return false; }
+                performClick();
+                listener.onEventClicked(block.event);
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Set the days to show, one column per day.
+     * @param days the layouts of the days in order
+     */
+    public void setDays(@NonNull List<TimelineLayout> days) {
+        this.days = days;
+        invalidate();
+    }
+
+    /**
+     * @param listener called when an event is tapped, may be null
+     */
+    public void setOnEventClickListener(OnEventClickListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * @param hour an hour of the day (0-23)
+     * @return the y coordinate of the top of that hour
+     */
+    public int getHourTop(int hour) {
+        return (int) (hour * hourHeight);
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int width = MeasureSpec.getSize(widthMeasureSpec);
+        setMeasuredDimension(width, (int) Math.ceil(24 * hourHeight));
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        float width = getWidth();
+        for (int hour = 0; hour < 24; hour++) {
+            float y = hour * hourHeight;
+            canvas.drawLine(gutterWidth, y, width, y, gridPaint);
+            canvas.drawText(hourLabels[hour], padding, y - labelPaint.ascent(), labelPaint);
+        }
+        if (days.isEmpty()) { return; }
+
+        float dayWidth = (width - gutterWidth) / days.size();
+        for (int i = 0; i < days.size(); i++) {
+            float left = gutterWidth + i * dayWidth;
+            canvas.drawLine(left, 0, left, getHeight(), gridPaint);
+            TimelineLayout day = days.get(i);
+            for (TimelineLayout.Block block : day.blocks) {
+                blockRect(day, block, left, dayWidth);
+                blockPaint.setColor(COLORS[block.event.type.ordinal() % COLORS.length]);
+                canvas.drawRoundRect(rect, padding * 2, padding * 2, blockPaint);
+                canvas.save();
+                canvas.clipRect(rect);
+                canvas.drawText(block.event.name, rect.left + padding * 2, rect.top + padding - textPaint.ascent(), textPaint);
+                canvas.restore();
+            }
+        }
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        return gestureDetector.onTouchEvent(event) || super.onTouchEvent(event);
+    }
+
+    @Override
+    public boolean performClick() {
+        return super.performClick();
+    }
+
+    /**
+     * @return the block drawn at a point, or null if there is none
+     */
+    private TimelineLayout.Block findBlock(float x, float y) {
+        if (days.isEmpty() || x < gutterWidth) { return null; }
+        float dayWidth = (getWidth() - gutterWidth) / days.size();
+        int i = Math.min(days.size() - 1, (int) ((x - gutterWidth) / dayWidth));
+        TimelineLayout day = days.get(i);
+        for (TimelineLayout.Block block : day.blocks) {
+            blockRect(day, block, gutterWidth + i * dayWidth, dayWidth);
+            if (rect.contains(x, y)) { return block; }
+        }
+        return null;
+    }
+
+    /**
+     * Set rect to the area of a block within the column of its day.
+     */
+    private void blockRect(TimelineLayout day, TimelineLayout.Block block, float left, float dayWidth) {
+        // the day may not be exactly 24 hours long, so scale to its real length
+        float scale = 24 * hourHeight / (day.dayEnd - day.day);
+        float columnWidth = dayWidth / block.columns;
+        rect.set(left + block.column * columnWidth + padding, (block.start - day.day) * scale + padding / 2,
+                left + (block.column + 1) * columnWidth - padding, (block.end - day.day) * scale - padding / 2);
+    }
+
+    private float dp(float value) {
+        return TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, value, getResources().getDisplayMetrics());
+    }
+
+    private float sp(float value) {
+        return TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, value, getResources().getDisplayMetrics());
+    }
+}
@@ -0,0 +1,267 @@
+package edu.moravian.csci299.mocalendar;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Buffers event writes for a short window before committing them to the database. Writes to the
+ * same event within the window are coalesced into a single write (so editing an event that was
+ * just added only inserts it once, and adding then removing an event never touches the database).
+ * Everything pending is committed together as a single batch on one background thread.
+ */
+class WriteBehindQueue {
+    private static final String TAG = "WriteBehindQueue";
+
+    /**
+     * Receives the coalesced batches. Always called on the queue's writer thread.
+     */
+    interface Sink {
+        /**
+         * Commit the batch in a single transaction. Throwing causes the writes in the batch to be
+         * retried one at a time so that one bad write does not lose all of the others, so this
+         * must only write to the database and not notify anything.
+         * @param batch the writes to commit
+         */
+        void commit(@NonNull EventBatch batch);
+
+        /**
+         * Called once the writes have been committed, to update caches and notify observers. This
+         * is never retried, throwing only logs the failure since the writes are already stored.
+         * @param batch the writes that were committed
+         */
+        void onCommitted(@NonNull EventBatch batch);
+    }
+
+    /** The kinds of writes that can be pending for an event. */
+    private enum Op { ADD, UPDATE, UPSERT, REMOVE }
+
+    /** The latest pending write for an event along with how many writes it stands in for. */
+    private static class PendingWrite {
+        final Op op;
+        final Event event;
+        final int count;
+
+        PendingWrite(Op op, Event event, int count) {
+            this.op = op;
+            this.event = event;
+            this.count = count;
+        }
+    }
+
+    private final Sink sink;
+    private final long windowMillis;
+    private final ScheduledExecutorService writer;
+
+    // guarded by this
+    private final Map<UUID, PendingWrite> pending = new LinkedHashMap<>();
+    private ScheduledFuture<?> scheduledFlush;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong committed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong failedTasks = new AtomicLong();
+
+    /**
+     * @param sink where the coalesced batches are committed
+     * @param windowMillis how long a write may wait for others before being committed
+     */
+    WriteBehindQueue(@NonNull Sink sink, long windowMillis) {
+        this(sink, windowMillis, Executors.newSingleThreadScheduledExecutor());
+    }
+
+    /**
+     * @param sink where the coalesced batches are committed
+     * @param windowMillis how long a write may wait for others before being committed
+     * @param writer the executor batches are committed on, it must run one task at a time
+     */
+    WriteBehindQueue(@NonNull Sink sink, long windowMillis, @NonNull ScheduledExecutorService writer) {
+        this.sink = sink;
+        this.windowMillis = windowMillis;
+        this.writer = writer;
+    }
+
+    void add(@NonNull Event event) { submit(Op.ADD, event); }
+    void update(@NonNull Event event) { submit(Op.UPDATE, event); }
+    void remove(@NonNull Event event) { submit(Op.REMOVE, event); }
+
+    /**
+     * Commit everything that is pending as soon as possible instead of waiting for the window to
+     * close. Meant for lifecycle edges like a fragment stopping.
+     */
+    void flush() {
+        synchronized (this) {
+            if (pending.isEmpty()) { return; }
+            if (scheduledFlush != null) { scheduledFlush.cancel(false); }
+            scheduledFlush = writer.schedule(this::drain, 0, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Run a task on the writer thread after everything currently pending has been committed. This
+     * keeps other writes (like bulk batches) ordered with respect to the queued ones. The writer
+     * keeps any exception a task throws in a future no one reads, so failures are logged here.
+     * @param task the task to run
+     */
+    void execute(@NonNull Runnable task) {
+        long queued = Metrics.isEnabled() ? System.nanoTime() : 0;
+        writer.execute(() -> {
+            if (queued != 0) { Metrics.record("queue.write", System.nanoTime() - queued); }
+            drain();
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Queued write task failed", e);
+                failedTasks.incrementAndGet();
+                Metrics.increment("queue.taskFailed");
+            }
+        });
+    }
+
+    private void submit(Op op, Event event) {
+        submitted.incrementAndGet();
+        synchronized (this) {
+            PendingWrite previous = pending.remove(event.id);
+            if (previous == null) {
+                pending.put(event.id, new PendingWrite(op, event, 1));
+            } else {
+                Op merged = coalesce(previous.op, op);
+                if (merged == null) {
+                    // added then removed before ever being committed
+                    dropped.addAndGet(previous.count + 1);
+                } else {
+                    pending.put(event.id, new PendingWrite(merged, event, previous.count + 1));
+                }
+            }
+            if (scheduledFlush == null && !pending.isEmpty()) {
+                scheduledFlush = writer.schedule(this::drain, windowMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Combine a pending write with a newer write to the same event.
+     * @return the single write with the same effect, or null if they cancel out
+     */
+    private static Op coalesce(Op previous, Op next) {
+        switch (next) {
+            case REMOVE:
+                return previous == Op.ADD ? null : Op.REMOVE;
+            case UPDATE:
+                // an update of a removed event does nothing, otherwise keep the stronger write
+                return previous == Op.UPDATE ? Op.UPDATE : previous;
+            case ADD:
+            case UPSERT:
+            default:
+                return previous == Op.ADD ? Op.ADD : Op.UPSERT;
+        }
+    }
+
+    /**
+     * Commit everything pending as one batch. Only ever runs on the writer thread.
+     */
+    private void drain() {
+        List<PendingWrite> writes;
+        synchronized (this) {
+            scheduledFlush = null;
+            if (pending.isEmpty()) { return; }
+            writes = new ArrayList<>(pending.values());
+            pending.clear();
+        }
+        EventBatch batch = toBatch(writes);
+        try {
+            sink.commit(batch);
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Batch of " + batch.size() + " writes failed, retrying individually", e);
+            List<PendingWrite> succeeded = new ArrayList<>(writes.size());
+            for (PendingWrite write : writes) {
+                try {
+                    sink.commit(toBatch(Collections.singletonList(write)));
+                } catch (RuntimeException e2) {
+                    Log.e(TAG, "Dropping failed " + write.op + " of event " + write.event.id, e2);
+                    dropped.addAndGet(write.count);
+                    continue;
+                }
+                recordCommitted(Collections.singletonList(write));
+                succeeded.add(write);
+            }
+            if (!succeeded.isEmpty()) { notifyCommitted(toBatch(succeeded)); }
+            return;
+        }
+        recordCommitted(writes);
+        notifyCommitted(batch);
+    }
+
+    /**
+     * Tell the sink about committed writes. Kept out of the retry since the writes are stored
+     * either way, and retrying would write them (and notify about them) again.
+     */
+    private void notifyCommitted(EventBatch batch) {
+        try {
+            sink.onCommitted(batch);
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Handling a committed batch of " + batch.size() + " writes failed", e);
+        }
+    }
+
+    private void recordCommitted(List<PendingWrite> writes) {
+        for (PendingWrite write : writes) {
+            committed.addAndGet(write.count);
+        }
+        batches.incrementAndGet();
+    }
+
+    private static EventBatch toBatch(List<PendingWrite> writes) {
+        List<Event> added = new ArrayList<>(), updated = new ArrayList<>(),
+                upserted = new ArrayList<>(), removed = new ArrayList<>();
+        for (PendingWrite write : writes) {
+            switch (write.op) {
+                case ADD: added.add(write.event); break;
+                case UPDATE: updated.add(write.event); break;
+                case UPSERT: upserted.add(write.event); break;
+                case REMOVE: removed.add(write.event); break;
+            }
+        }
+        return new EventBatch().add(added).update(updated).upsert(upserted).remove(removed);
+    }
+
+    /**
+     * @return the number of writes submitted to this queue
+     */
+    long getSubmittedCount() { return submitted.get(); }
+
+    /**
+     * @return the number of submitted writes whose effect has been committed to the database; each
+     *         committed row can stand for several coalesced submitted writes
+     */
+    long getCommittedCount() { return committed.get(); }
+
+    /**
+     * @return the number of submitted writes that were never committed because they cancelled out
+     *         or failed
+     */
+    long getDroppedCount() { return dropped.get(); }
+
+    /**
+     * @return the number of batches (transactions) committed
+     */
+    long getBatchCount() { return batches.get(); }
+
+    /**
+     * @return the number of tasks run with execute() that threw
+     */
+    long getFailedTaskCount() { return failedTasks.get(); }
+}
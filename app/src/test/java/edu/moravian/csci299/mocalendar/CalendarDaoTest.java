@@ -0,0 +1,149 @@
+package edu.moravian.csci299.mocalendar;
+
+import android.app.Application;
+import android.database.Cursor;
+
+import androidx.room.Room;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(application = Application.class)
+public class CalendarDaoTest {
+    private CalendarDataBase database;
+    private CalendarDao dao;
+    private SupportSQLiteDatabase db;
+
+    @Before
+    public void setUp() {
+        database = Room.inMemoryDatabaseBuilder(ApplicationProvider.getApplicationContext(), CalendarDataBase.class)
+                .allowMainThreadQueries()
+                .addCallback(CalendarDataBase.CALLBACK)
+                .build();
+        dao = database.calendarDao();
+        db = database.getOpenHelper().getWritableDatabase();
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void upsertUpdatesExistingEventsAndTheSearchIndex() {
+        Event first = event("Alpha meeting", 0);
+        Event second = event("Beta review", 3600000);
+        dao.addEvents(Arrays.asList(first, second));
+
+        Event changed = first.copy();
+        changed.name = "Gamma meeting";
+        Event added = event("Delta lab", 7200000);
+        dao.upsertEvents(Arrays.asList(changed, added));
+
+        assertEquals("Gamma meeting", dao.loadEventById(first.id).name);
+        assertEquals("Delta lab", dao.loadEventById(added.id).name);
+        assertEquals(0, countMatches("alpha"));
+        assertEquals(1, countMatches("gamma"));
+        assertEquals(2, countMatches("meeting OR lab"));
+        assertTrue(CalendarDataBase.isSearchIndexConsistent(db));
+    }
+
+    @Test
+    public void upsertOfOnlyExistingEventsKeepsOneDocumentEach() {
+        Event event = event("Alpha", 0);
+        dao.addEvent(event);
+        for (int i = 0; i < 3; i++) {
+            Event changed = event.copy();
+            changed.name = "Alpha " + i;
+            dao.upsertEvents(Collections.singletonList(changed));
+        }
+        assertEquals(1, countMatches("alpha"));
+        assertTrue(CalendarDataBase.isSearchIndexConsistent(db));
+    }
+
+    @Test
+    public void staleSearchEntriesAreFoundAndRebuiltOnUpgrade() {
+        Event event = event("Alpha", 0);
+        dao.addEvent(event);
+        // the old upsert: the row REPLACE deletes does not fire the delete triggers
+        db.execSQL("INSERT OR REPLACE INTO Event (id, startTime, endTime, name, type, description) " +
+                "SELECT id, startTime, endTime, 'Beta', type, description FROM Event");
+        assertFalse(CalendarDataBase.isSearchIndexConsistent(db));
+
+        CalendarDataBase.MIGRATION_6_7.migrate(db);
+        assertTrue(CalendarDataBase.isSearchIndexConsistent(db));
+        assertEquals(0, countMatches("alpha"));
+        assertEquals(1, countMatches("beta"));
+    }
+
+    @Test
+    public void searchIsRankedByMatchesThenStartTime() {
+        Event later = event("Exam review", 3600000);
+        Event earlier = event("Exam", 0);
+        Event most = event("Exam", 7200000);
+        most.description = "Practice exam";
+        dao.addEvents(Arrays.asList(later, earlier, most, event("Lab", 0)));
+
+        List<UUID> ranked = dao.rankSearch("exam*");
+        assertEquals(Arrays.asList(most.id, earlier.id, later.id), ranked);
+        assertEquals(3, dao.loadEventsByIds(ranked).size());
+    }
+
+    @Test
+    public void exportCursorIncludesSeriesOccurringInTheRange() {
+        long day = 24 * 3600000L;
+        Event before = event("Before", 0);
+        Event inside = event("Inside", 12 * day);
+        Event weekly = series("Weekly", new RecurrenceRule(RecurrenceRule.Frequency.WEEKLY, 1, 0, null, 0));
+        Event ended = series("Ended", new RecurrenceRule(RecurrenceRule.Frequency.WEEKLY, 1, 0, null, 2));
+        dao.addEvents(Arrays.asList(before, inside, weekly, ended));
+
+        try (Cursor cursor = dao.getEventCursor(new Date(10 * day), new Date(20 * day))) {
+            int name = cursor.getColumnIndexOrThrow("name");
+            assertTrue(cursor.moveToNext());
+            assertEquals("Weekly", cursor.getString(name));
+            assertTrue(cursor.moveToNext());
+            assertEquals("Inside", cursor.getString(name));
+            assertFalse(cursor.moveToNext());
+        }
+    }
+
+    private int countMatches(String match) {
+        try (Cursor cursor = db.query("SELECT COUNT(*) FROM EventFts WHERE EventFts MATCH ?", new Object[]{match})) {
+            cursor.moveToFirst();
+            return cursor.getInt(0);
+        }
+    }
+
+    private static Event event(String name, long start) {
+        Event event = new Event();
+        event.name = name;
+        event.startTime = new Date(start);
+        event.endTime = new Date(start + 3600000);
+        return event;
+    }
+
+    private static Event series(String name, RecurrenceRule recurrence) {
+        Event event = event(name, 0);
+        event.recurrence = recurrence;
+        event.recurrenceEnd = new Date(recurrence.getSeriesEnd(0, 3600000));
+        return event;
+    }
+}
@@ -0,0 +1,24 @@
+package edu.moravian.csci299.mocalendar;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DaySummaryTest {
+    @Test
+    public void typesAreParsedOnce() {
+        DaySummary summary = new DaySummary(0, 3, "EXAM,LAB");
+        assertEquals((1 << EventType.EXAM.ordinal()) | (1 << EventType.LAB.ordinal()), summary.getTypeMask());
+        assertTrue(summary.hasType(EventType.LAB));
+        assertFalse(summary.hasType(EventType.CLASS));
+    }
+
+    @Test
+    public void unknownTypesAreSkipped() {
+        DaySummary summary = new DaySummary(0, 2, "SOME_NEWER_TYPE,CLASS,");
+        assertEquals(1 << EventType.CLASS.ordinal(), summary.getTypeMask());
+        assertEquals(0, new DaySummary(0, 0, null).getTypeMask());
+    }
+}
@@ -0,0 +1,151 @@
+package edu.moravian.csci299.mocalendar;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class IcsImporterTest {
+    /** An event as Google Calendar exports it, with a reminder. */
+    private static final String GOOGLE_EVENT =
+            "BEGIN:VCALENDAR\r\n" +
+            "PRODID:-//Google Inc//Google Calendar 70.9054//EN\r\n" +
+            "VERSION:2.0\r\n" +
+            "BEGIN:VEVENT\r\n" +
+            "DTSTART:20210401T140000Z\r\n" +
+            "DTEND:20210401T150000Z\r\n" +
+            "UID:abc123@google.com\r\n" +
+            "DESCRIPTION:Bring a calculator\r\n" +
+            "SUMMARY:Physics lab\r\n" +
+            "BEGIN:VALARM\r\n" +
+            "ACTION:DISPLAY\r\n" +
+            "DESCRIPTION:This is an event reminder\r\n" +
+            "SUMMARY:Alarm notification\r\n" +
+            "TRIGGER:-P0DT0H30M0S\r\n" +
+            "END:VALARM\r\n" +
+            "STATUS:CONFIRMED\r\n" +
+            "END:VEVENT\r\n" +
+            "END:VCALENDAR\r\n";
+
+    @Test
+    public void propertiesOfAlarmsAreNotTheEvents() throws IOException {
+        List<Event> events = importEvents(GOOGLE_EVENT);
+        assertEquals(1, events.size());
+        Event event = events.get(0);
+        assertEquals("Physics lab", event.name);
+        assertEquals("Bring a calculator", event.description);
+        assertEquals(EventType.LAB, event.type);
+        assertEquals(1617289200000L, event.endTime.getTime());
+        assertEquals(Integer.valueOf(30), event.reminderMinutes);
+    }
+
+    @Test
+    public void earliestReminderBeforeTheStartIsUsed() throws IOException {
+        List<Event> events = importEvents("BEGIN:VCALENDAR\r\n" +
+                "BEGIN:VEVENT\r\n" +
+                "UID:1\r\n" +
+                "DTSTART:20210401T140000Z\r\n" +
+                "SUMMARY:Essay due\r\n" +
+                "BEGIN:VALARM\r\n" +
+                "ACTION:DISPLAY\r\n" +
+                "TRIGGER:-PT15M\r\n" +
+                "END:VALARM\r\n" +
+                "BEGIN:VALARM\r\n" +
+                "ACTION:DISPLAY\r\n" +
+                "TRIGGER:-P1D\r\n" +
+                "END:VALARM\r\n" +
+                "BEGIN:VALARM\r\n" +
+                "ACTION:DISPLAY\r\n" +
+                "TRIGGER;RELATED=END:-P2D\r\n" +
+                "END:VALARM\r\n" +
+                "END:VEVENT\r\n" +
+                "BEGIN:VEVENT\r\n" +
+                "UID:2\r\n" +
+                "DTSTART:20210402T140000Z\r\n" +
+                "SUMMARY:Reading\r\n" +
+                "BEGIN:VALARM\r\n" +
+                "ACTION:DISPLAY\r\n" +
+                "TRIGGER;VALUE=DATE-TIME:20210402T130000Z\r\n" +
+                "END:VALARM\r\n" +
+                "BEGIN:VALARM\r\n" +
+                "ACTION:DISPLAY\r\n" +
+                "TRIGGER:PT10M\r\n" +
+                "END:VALARM\r\n" +
+                "END:VEVENT\r\n" +
+                "END:VCALENDAR\r\n");
+        assertEquals(2, events.size());
+        assertEquals(Integer.valueOf(24 * 60), events.get(0).reminderMinutes);
+        assertNull(events.get(1).reminderMinutes);
+    }
+
+    @Test
+    public void unknownTypeIsGuessed() throws IOException {
+        List<Event> events = importEvents("BEGIN:VCALENDAR\r\n" +
+                "BEGIN:VEVENT\r\n" +
+                "UID:1\r\n" +
+                "DTSTART:20210401T140000Z\r\n" +
+                "DTEND:20210401T150000Z\r\n" +
+                "SUMMARY:Calculus midterm\r\n" +
+                "X-MOCALENDAR-TYPE:SOME_NEWER_TYPE\r\n" +
+                "END:VEVENT\r\n" +
+                "BEGIN:VEVENT\r\n" +
+                "UID:2\r\n" +
+                "DTSTART:20210402T140000Z\r\n" +
+                "DTEND:20210402T150000Z\r\n" +
+                "SUMMARY:Calculus midterm\r\n" +
+                "X-MOCALENDAR-TYPE:CLUB\r\n" +
+                "END:VEVENT\r\n" +
+                "END:VCALENDAR\r\n");
+        assertEquals(2, events.size());
+        assertEquals(EventType.EXAM, events.get(0).type);
+        assertEquals(EventType.CLUB, events.get(1).type);
+    }
+
+    @Test
+    public void typesAreGuessedFromWholeWords() {
+        assertEquals(EventType.GENERIC, IcsImporter.guessType("Check the latest news", null, false));
+        // "contest" is not a test
+        assertEquals(EventType.PROGRAMMING, IcsImporter.guessType("Coding contest signup", null, false));
+        assertEquals(EventType.GENERIC, IcsImporter.guessType("Research collaboration", null, false));
+        assertEquals(EventType.GENERIC, IcsImporter.guessType("Label the samples", null, false));
+        assertEquals(EventType.GENERIC, IcsImporter.guessType("Breakfast with Sam", null, false));
+        assertEquals(EventType.GENERIC, IcsImporter.guessType("Finalize the budget", null, false));
+
+        assertEquals(EventType.EXAM, IcsImporter.guessType("Final Exam", null, false));
+        assertEquals(EventType.EXAM, IcsImporter.guessType("Weekly quizzes", null, false));
+        assertEquals(EventType.LAB, IcsImporter.guessType("Chemistry Labs", null, false));
+        assertEquals(EventType.OFFICE_HOURS, IcsImporter.guessType("Office  Hours", null, false));
+        assertEquals(EventType.READING, IcsImporter.guessType("Chapter 3 to read", null, false));
+        assertEquals(EventType.HOLIDAY, IcsImporter.guessType("Spring Break", null, false));
+        assertEquals(EventType.HOLIDAY, IcsImporter.guessType("No classes", null, false));
+        assertEquals(EventType.CLASS, IcsImporter.guessType("CSCI 299", "Lecture", false));
+        assertEquals(EventType.ASSIGNMENT, IcsImporter.guessType("Worksheet", null, true));
+    }
+
+    private static List<Event> importEvents(String ics) throws IOException {
+        List<Event> events = new ArrayList<>();
+        IcsImporter importer = new IcsImporter(new IcsImporter.Sink() {
+            @Override
+            public void commit(@NonNull List<Event> batch) {
+                events.addAll(batch);
+            }
+
+            @Override
+            public boolean addExceptions(@NonNull UUID seriesId, @NonNull List<Date> occurrenceStarts) {
+                return false;
+            }
+        }, 100);
+        importer.run(new ByteArrayInputStream(ics.getBytes(StandardCharsets.UTF_8)), new IcsImporter.Task(), null);
+        return events;
+    }
+}
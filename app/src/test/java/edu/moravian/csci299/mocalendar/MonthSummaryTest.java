@@ -0,0 +1,70 @@
+package edu.moravian.csci299.mocalendar;
+
+import android.app.Application;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(application = Application.class)
+public class MonthSummaryTest {
+    @Test
+    public void weeklySeriesCountsOnEveryOccurrence() {
+        // every Monday at 10:00 starting in the month before, so the stored row is outside April
+        Event series = new Event();
+        series.name = "CSCI 299";
+        series.type = EventType.CLASS;
+        series.startTime = new Date(DateUtils.atMinuteOfDay(DateUtils.dateMillis(2021, 2, 1), 10 * 60));
+        series.endTime = new Date(series.startTime.getTime() + 3600000);
+        series.recurrence = new RecurrenceRule(RecurrenceRule.Frequency.WEEKLY, 1, 0, null, 0);
+
+        long start = DateUtils.dateMillis(2021, 3, 1);
+        long end = DateUtils.dateMillis(2021, 4, 1);
+        long examDay = DateUtils.dateMillis(2021, 3, 12);
+        long otherDay = DateUtils.dateMillis(2021, 3, 15);
+        List<DaySummary> singles = Arrays.asList(
+                new DaySummary(examDay, 1, "EXAM"), new DaySummary(otherDay, 2, "LAB"));
+
+        List<DaySummary> summaries = CalendarRepository.addOccurrences(
+                singles, Collections.singletonList(series), start, end);
+
+        // the Mondays of April 2021 are the 5th, 12th, 19th and 26th
+        assertEquals(5, summaries.size());
+        int[] mondays = {5, 12, 19, 26};
+        int monday = 0;
+        for (DaySummary summary : summaries) {
+            if (summary.day == otherDay) {
+                assertEquals(2, summary.count);
+                assertEquals(1 << EventType.LAB.ordinal(), summary.getTypeMask());
+                continue;
+            }
+            assertEquals(DateUtils.dateMillis(2021, 3, mondays[monday++]), summary.day);
+            assertTrue(summary.hasType(EventType.CLASS));
+            if (summary.day == examDay) {
+                assertEquals(2, summary.count);
+                assertTrue(summary.hasType(EventType.EXAM));
+                assertEquals("CLASS,EXAM", summary.types);
+            } else {
+                assertEquals(1, summary.count);
+                assertEquals("CLASS", summary.types);
+            }
+        }
+        assertEquals(4, monday);
+    }
+
+    @Test
+    public void summariesAreUnchangedWithoutSeries() {
+        List<DaySummary> singles = Collections.singletonList(new DaySummary(0, 1, "EXAM"));
+        assertEquals(singles, CalendarRepository.addOccurrences(singles, Collections.<Event>emptyList(), 0, 1));
+    }
+}
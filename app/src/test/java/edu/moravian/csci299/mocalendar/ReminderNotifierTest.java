@@ -0,0 +1,133 @@
+package edu.moravian.csci299.mocalendar;
+
+import android.app.AlarmManager;
+import android.app.Application;
+import android.app.Notification;
+import android.app.NotificationManager;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.ResolveInfo;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowAlarmManager;
+import org.robolectric.shadows.ShadowNotificationManager;
+import org.robolectric.shadows.ShadowPendingIntent;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+// the plain Application so the repository and its database are not created
+@RunWith(RobolectricTestRunner.class)
+@Config(application = Application.class)
+public class ReminderNotifierTest {
+    private static final long T0 = 1617249600000L;
+
+    private Context context;
+    private ReminderNotifier notifier;
+    private ShadowAlarmManager alarms;
+    private ShadowNotificationManager notifications;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        notifier = new ReminderNotifier(context);
+        alarms = shadowOf((AlarmManager) context.getSystemService(Context.ALARM_SERVICE));
+        notifications = shadowOf((NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE));
+    }
+
+    @Test
+    public void alarmWakesTheReceiverAndIsReplacedThenCancelled() {
+        notifier.onAlarmChanged(T0);
+        notifier.onAlarmChanged(T0 + 60000);
+        assertEquals(1, alarms.getScheduledAlarms().size());
+        ShadowAlarmManager.ScheduledAlarm alarm = alarms.getNextScheduledAlarm();
+        assertEquals(AlarmManager.RTC_WAKEUP, alarm.type);
+        assertEquals(T0 + 60000, alarm.triggerAtTime);
+
+        ShadowPendingIntent operation = shadowOf(alarm.operation);
+        assertTrue(operation.isBroadcastIntent());
+        Intent intent = operation.getSavedIntent();
+        assertEquals(ReminderReceiver.ACTION_ALARM, intent.getAction());
+        assertEquals(new ComponentName(context, ReminderReceiver.class), intent.getComponent());
+
+        notifier.onAlarmChanged(-1);
+        assertNull(alarms.getNextScheduledAlarm());
+    }
+
+    @Test
+    public void dueRemindersAreShownAsNotifications() {
+        List<ReminderScheduler.Reminder> due = new ArrayList<>();
+        due.add(new ReminderScheduler.Reminder(UUID.randomUUID(), T0, T0 + 600000, "Alpha"));
+        due.add(new ReminderScheduler.Reminder(UUID.randomUUID(), T0, T0 + 600000, "Beta"));
+        notifier.onRemindersDue(due);
+
+        assertEquals(2, notifications.size());
+        assertEquals(names(due), titles(notifications.getAllNotifications()));
+        assertNotNull(notifications.getNotificationChannel("reminders"));
+
+        // showing the same reminder again replaces its notification
+        notifier.onRemindersDue(due.subList(0, 1));
+        assertEquals(2, notifications.size());
+    }
+
+    @Test
+    public void manyDueRemindersShowTheLatestAndASummary() {
+        List<ReminderScheduler.Reminder> due = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            due.add(new ReminderScheduler.Reminder(UUID.randomUUID(), T0 + i, T0 + i + 600000, "Event " + i));
+        }
+        notifier.onRemindersDue(due);
+
+        Set<String> expected = names(due.subList(3, 8));
+        expected.add(context.getString(R.string.reminders_more, 3));
+        assertEquals(6, notifications.size());
+        assertEquals(expected, titles(notifications.getAllNotifications()));
+    }
+
+    @Test
+    public void firedThroughIsSaved() {
+        assertEquals(-1, ReminderNotifier.getFiredThrough(context));
+        notifier.onFiredThrough(T0);
+        assertEquals(T0, ReminderNotifier.getFiredThrough(context));
+        new ReminderNotifier(context).onFiredThrough(T0 + 1);
+        assertEquals(T0 + 1, ReminderNotifier.getFiredThrough(context));
+    }
+
+    @Test
+    public void receiverGetsTheBootBroadcast() {
+        Intent boot = new Intent(Intent.ACTION_BOOT_COMPLETED).setPackage(context.getPackageName());
+        List<ResolveInfo> receivers = context.getPackageManager().queryBroadcastReceivers(boot, 0);
+        assertEquals(1, receivers.size());
+        assertEquals(ReminderReceiver.class.getName(), receivers.get(0).activityInfo.name);
+    }
+
+    private static Set<String> names(List<ReminderScheduler.Reminder> reminders) {
+        Set<String> names = new HashSet<>();
+        for (ReminderScheduler.Reminder reminder : reminders) { names.add(reminder.name); }
+        return names;
+    }
+
+    private static Set<String> titles(List<Notification> notifications) {
+        Set<String> titles = new HashSet<>();
+        for (Notification notification : notifications) {
+            titles.add(String.valueOf(notification.extras.getCharSequence(Notification.EXTRA_TITLE)));
+        }
+        return titles;
+    }
+}
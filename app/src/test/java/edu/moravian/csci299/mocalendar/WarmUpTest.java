@@ -0,0 +1,44 @@
+package edu.moravian.csci299.mocalendar;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Starts the app the way the system does, with CalendarApplication warming up the repository,
+ * and checks that the first screen's load of today is served by the warm-up.
+ * <p>
+ * The repository is a singleton that Robolectric does not reset between tests, so this is the
+ * only test that uses CalendarApplication (the others use a plain Application) and it has a
+ * single test method: the repository here is always the one this test's application created.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class WarmUpTest {
+    @Test
+    public void firstLoadOfTodayIsServedByTheWarmUp() throws Exception {
+        CalendarRepository repository = CalendarRepository.get();
+        long today = DateUtils.startOfDay(System.currentTimeMillis());
+        // the repository must not be used on the main thread, which runs the test
+        ExecutorService background = Executors.newSingleThreadExecutor();
+        try {
+            // waits for the warm-up, which must finish rather than hang
+            List<Event> first = background.submit(() -> repository.loadEventsOnDay(today)).get(10, TimeUnit.SECONDS);
+            DayCache.Stats stats = repository.getDayCacheStats();
+            assertEquals(1, stats.hits);
+            assertEquals(0, stats.misses);
+
+            List<Event> second = background.submit(() -> repository.loadEventsOnDay(today)).get(10, TimeUnit.SECONDS);
+            assertSame(first, second);
+        } finally {
+            background.shutdown();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package edu.moravian.csci299.mocalendar;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.UUID;
+
+/**
+ * Generates the events used by the benchmarks. Everything is seeded so every run sees the same
+ * data, and uses a time zone with daylight saving time so the date arithmetic is not trivial.
+ */
+final class BenchmarkData {
+    static final long MINUTE_MILLIS = 60 * 1000;
+    static final long DAY_MILLIS = 24 * 60 * MINUTE_MILLIS;
+    static final TimeZone ZONE = TimeZone.getTimeZone("America/New_York");
+
+    private BenchmarkData() {}
+
+    /**
+     * Use the benchmark time zone for all date calculations.
+     */
+    static void useZone() {
+        TimeZone.setDefault(ZONE);
+        DateUtils.setTimeZone(ZONE);
+    }
+
+    /**
+     * @return the start of a fixed day to place events around
+     */
+    static long firstDay() {
+        return DateUtils.dateMillis(2021, 3, 1);
+    }
+
+    /**
+     * Create events that start at random five-minute marks in a range of time and last 15 minutes
+     * to 3 hours. About one in ten has no end time, like an assignment.
+     * @param seed the seed of the random numbers
+     * @param count the number of events
+     * @param start the start of the range in epoch milliseconds
+     * @param span the length of the range in milliseconds
+     * @return the events, in no particular order
+     */
+    static List<Event> randomEvents(long seed, int count, long start, long span) {
+        Random random = new Random(seed);
+        EventType[] types = EventType.values();
+        List<Event> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Event event = new Event();
+            event.id = new UUID(random.nextLong(), random.nextLong());
+            long startTime = start + (long) (random.nextDouble() * span) / (5 * MINUTE_MILLIS) * (5 * MINUTE_MILLIS);
+            event.startTime = new Date(startTime);
+            if (random.nextInt(10) != 0) {
+                event.endTime = new Date(startTime + (3 + random.nextInt(36)) * 5 * MINUTE_MILLIS);
+            }
+            event.name = "Event " + i;
+            event.type = types[random.nextInt(types.length)];
+            events.add(event);
+        }
+        return events;
+    }
+
+    /**
+     * @param seed the seed of the random numbers
+     * @param count the number of times
+     * @param start the start of the range in epoch milliseconds
+     * @param span the length of the range in milliseconds
+     * @return random times in the range
+     */
+    static long[] randomTimes(long seed, int count, long start, long span) {
+        Random random = new Random(seed);
+        long[] times = new long[count];
+        for (int i = 0; i < count; i++) {
+            times[i] = start + (long) (random.nextDouble() * span);
+        }
+        return times;
+    }
+}
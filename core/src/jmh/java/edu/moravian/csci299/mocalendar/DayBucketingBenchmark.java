@@ -0,0 +1,85 @@
+package edu.moravian.csci299.mocalendar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finding the day that times fall on: the arithmetic of DateUtils (backed by ZoneOffsetTable)
+ * against java.util.Calendar, and grouping events into days the way the list and timeline do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DayBucketingBenchmark {
+    @Param({"1000", "100000"})
+    public int count;
+
+    private long[] times;
+    private List<Event> events;
+
+    @Setup
+    public void setUp() {
+        BenchmarkData.useZone();
+        long start = BenchmarkData.firstDay();
+        // two years so the times cross several daylight saving time changes
+        times = BenchmarkData.randomTimes(1, count, start, 730 * BenchmarkData.DAY_MILLIS);
+        events = BenchmarkData.randomEvents(2, count, start, 730 * BenchmarkData.DAY_MILLIS);
+    }
+
+    @Benchmark
+    public long startOfDay() {
+        long sum = 0;
+        for (long time : times) { sum += DateUtils.startOfDay(time); }
+        return sum;
+    }
+
+    @Benchmark
+    public long startOfDayWithCalendar() {
+        Calendar calendar = Calendar.getInstance(BenchmarkData.ZONE);
+        long sum = 0;
+        for (long time : times) {
+            calendar.setTimeInMillis(time);
+            calendar.set(Calendar.HOUR_OF_DAY, 0);
+            calendar.set(Calendar.MINUTE, 0);
+            calendar.set(Calendar.SECOND, 0);
+            calendar.set(Calendar.MILLISECOND, 0);
+            sum += calendar.getTimeInMillis();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long yearMonthDay() {
+        long sum = 0;
+        for (long time : times) { sum += DateUtils.yearMonthDay(time); }
+        return sum;
+    }
+
+    @Benchmark
+    public Map<Long, List<Event>> bucketEventsByDay() {
+        Map<Long, List<Event>> days = new HashMap<>();
+        for (Event event : events) {
+            Long day = DateUtils.startOfDay(event.startTime.getTime());
+            List<Event> list = days.get(day);
+            if (list == null) {
+                list = new ArrayList<>();
+                days.put(day, list);
+            }
+            list.add(event);
+        }
+        return days;
+    }
+}
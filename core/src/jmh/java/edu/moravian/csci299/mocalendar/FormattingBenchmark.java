@@ -0,0 +1,75 @@
+package edu.moravian.csci299.mocalendar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Formatting dates and times for display: the cached formatters of DateFormatter against the
+ * shared SimpleDateFormats, over a spread of dates like those shown while scrolling.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FormattingBenchmark {
+    private static final int DATES = 1024;
+
+    private Date[] dates;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        BenchmarkData.useZone();
+        long[] times = BenchmarkData.randomTimes(3, DATES, BenchmarkData.firstDay(), 90 * BenchmarkData.DAY_MILLIS);
+        dates = new Date[DATES];
+        for (int i = 0; i < DATES; i++) { dates[i] = new Date(times[i]); }
+    }
+
+    private Date nextDate() {
+        next = (next + 1) & (DATES - 1);
+        return dates[next];
+    }
+
+    @Benchmark
+    public String timeString() {
+        return DateUtils.toTimeString(nextDate());
+    }
+
+    @Benchmark
+    public String timeStringWithSimpleDateFormat() {
+        return DateUtils.timeFormat.format(nextDate());
+    }
+
+    @Benchmark
+    public String dateString() {
+        return DateUtils.toDateString(nextDate());
+    }
+
+    @Benchmark
+    public String fullDateString() {
+        return DateUtils.toFullDateString(nextDate());
+    }
+
+    @Benchmark
+    public String fullDateStringWithSimpleDateFormat() {
+        return DateUtils.fullDateFormat.format(nextDate());
+    }
+
+    /**
+     * A row of the list: the start and end times of an event.
+     */
+    @Benchmark
+    public void listRow(Blackhole blackhole) {
+        Date start = nextDate();
+        blackhole.consume(DateUtils.toTimeString(start));
+        blackhole.consume(DateUtils.toTimeString(new Date(start.getTime() + 60 * BenchmarkData.MINUTE_MILLIS)));
+    }
+}
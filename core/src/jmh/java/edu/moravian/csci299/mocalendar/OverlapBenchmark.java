@@ -0,0 +1,76 @@
+package edu.moravian.csci299.mocalendar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The interval logic run on the events of a day or a week: finding conflicts, laying out the
+ * timeline and finding free time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OverlapBenchmark {
+    /** The number of events in a week, up to a stress case far beyond any real calendar. */
+    @Param({"10", "100", "1000", "50000"})
+    public int count;
+
+    private long weekStart, weekEnd, day;
+    private List<Event> week;
+    private List<Event> dayEvents;
+    private Event newEvent;
+    private FreeSlotFinder finder;
+
+    @Setup
+    public void setUp() {
+        BenchmarkData.useZone();
+        weekStart = BenchmarkData.firstDay();
+        weekEnd = DateUtils.atMinuteOfDay(weekStart + 6 * BenchmarkData.DAY_MILLIS, FreeSlotFinder.MINUTES_PER_DAY);
+        week = BenchmarkData.randomEvents(4, count, weekStart, weekEnd - weekStart);
+        day = DateUtils.startOfDay(weekStart + 3 * BenchmarkData.DAY_MILLIS);
+        long dayEnd = DateUtils.atMinuteOfDay(day, FreeSlotFinder.MINUTES_PER_DAY);
+
+        // the events of one day in order, as the repository gives them to the timeline
+        dayEvents = new ArrayList<>();
+        for (Event event : week) {
+            long start = event.startTime.getTime();
+            long end = event.endTime == null ? start : event.endTime.getTime();
+            if (start < dayEnd && end >= day) { dayEvents.add(event); }
+        }
+        Collections.sort(dayEvents, Event.ORDER);
+
+        newEvent = BenchmarkData.randomEvents(5, 1, day + 9 * 60 * BenchmarkData.MINUTE_MILLIS, 8 * 60 * BenchmarkData.MINUTE_MILLIS).get(0);
+        finder = new FreeSlotFinder(8 * 60, 22 * 60, 30 * BenchmarkData.MINUTE_MILLIS);
+    }
+
+    @Benchmark
+    public List<List<Event>> findConflictGroups() {
+        return ConflictDetector.findConflicts(week);
+    }
+
+    @Benchmark
+    public List<Event> findConflictsWithNewEvent() {
+        return ConflictDetector.findConflicts(newEvent, week, ConflictDetector.BLOCKING_TYPES);
+    }
+
+    @Benchmark
+    public TimelineLayout layOutDay() {
+        return TimelineLayout.compute(day, dayEvents);
+    }
+
+    @Benchmark
+    public List<TimeSlot> findFreeSlotsInWeek() {
+        return finder.findFreeSlots(week, weekStart, weekEnd);
+    }
+}
@@ -0,0 +1,57 @@
+package edu.moravian.csci299.mocalendar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sorting many events into the order of the queries, as done when recurring occurrences are
+ * merged with stored events and when importing. Each run sorts a fresh copy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SortingBenchmark {
+    @Param({"1000", "100000"})
+    public int count;
+
+    private List<Event> shuffled;
+    private List<Event> nearlySorted;
+
+    @Setup
+    public void setUp() {
+        BenchmarkData.useZone();
+        shuffled = BenchmarkData.randomEvents(6, count, BenchmarkData.firstDay(), 365 * BenchmarkData.DAY_MILLIS);
+
+        // sorted rows with a few out of place, like query results with occurrences appended
+        nearlySorted = new ArrayList<>(shuffled);
+        Collections.sort(nearlySorted, Event.ORDER);
+        for (int i = 0; i + 1 < nearlySorted.size(); i += 50) {
+            Collections.swap(nearlySorted, i, nearlySorted.size() - 1 - i);
+        }
+    }
+
+    @Benchmark
+    public List<Event> sortShuffled() {
+        List<Event> events = new ArrayList<>(shuffled);
+        Collections.sort(events, Event.ORDER);
+        return events;
+    }
+
+    @Benchmark
+    public List<Event> sortNearlySorted() {
+        List<Event> events = new ArrayList<>(nearlySorted);
+        Collections.sort(events, Event.ORDER);
+        return events;
+    }
+}
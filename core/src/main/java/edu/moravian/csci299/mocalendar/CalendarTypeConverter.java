@@ -0,0 +1,120 @@
+package edu.moravian.csci299.mocalendar;
+
+import androidx.room.TypeConverter;
+
+import java.util.Date;
+import java.util.UUID;
+
+public class CalendarTypeConverter {
+    /**
+     * Convert Date object to a Long usable by the database
+     *
+     * @param date Date object to be converted to a Long
+     * @return Long value of Date parameter
+     */
+    @TypeConverter
+    public static Long fromDate(Date date) {
+        if (date == null) { return null; }
+        return date.getTime();
+    }
+
+    /**
+     * Convert date in ms to Date object
+     *
+     * @param ms the date represented in ms
+     * @return date represented as Date object
+     */
+    @TypeConverter
+    public static Date toDate(Long ms) {
+        if (ms == null) { return null; }
+        return new Date(ms);
+    }
+
+    /**
+     * Converts a UUID to the 16 bytes usable by the database. The bytes are the most significant
+     * bits followed by the least significant bits, both big-endian, so that the stored values sort
+     * the same way compareUuids() orders UUIDs.
+     *
+     * @param uuid The UUID object to be converted to bytes
+     * @return 16 byte value of the UUID
+     */
+    @TypeConverter
+    public static byte[] fromUuid(UUID uuid) {
+        if (uuid == null) { return null; }
+        byte[] bytes = new byte[16];
+        putLong(bytes, 0, uuid.getMostSignificantBits());
+        putLong(bytes, 8, uuid.getLeastSignificantBits());
+        return bytes;
+    }
+
+    /**
+     * Convert a UUID from the 16 bytes used in the database to a UUID
+     *
+     * @param bytes 16 byte value of UUID
+     * @return UUID object of bytes parameter
+     */
+    @TypeConverter
+    public static UUID toUuid(byte[] bytes) {
+        if (bytes == null) { return null; }
+        if (bytes.length != 16) { throw new IllegalArgumentException("UUIDs must be 16 bytes"); }
+        return new UUID(getLong(bytes, 0), getLong(bytes, 8));
+    }
+
+    /**
+     * Compare UUIDs in the same order as their stored bytes, which SQLite compares as unsigned
+     * bytes. This is not the same as UUID.compareTo(), which compares signed longs.
+     *
+     * @param a the first UUID
+     * @param b the second UUID
+     * @return negative, zero, or positive if a sorts before, the same as, or after b
+     */
+    public static int compareUuids(UUID a, UUID b) {
+        int cmp = Long.compare(a.getMostSignificantBits() ^ Long.MIN_VALUE, b.getMostSignificantBits() ^ Long.MIN_VALUE);
+        return cmp != 0 ? cmp : Long.compare(a.getLeastSignificantBits() ^ Long.MIN_VALUE, b.getLeastSignificantBits() ^ Long.MIN_VALUE);
+    }
+
+    /**
+     * Converts a RecurrenceRule to a String usable by the database
+     *
+     * @param rule The RecurrenceRule to be converted to a String
+     * @return String value of the rule
+     */
+    @TypeConverter
+    public static String fromRecurrenceRule(RecurrenceRule rule) {
+        if (rule == null) { return null; }
+        return rule.toString();
+    }
+
+    /**
+     * Convert a RecurrenceRule from a String used in the database to a RecurrenceRule
+     *
+     * @param rule String value of the rule
+     * @return RecurrenceRule object of String parameter
+     */
+    @TypeConverter
+    public static RecurrenceRule toRecurrenceRule(String rule) {
+        if (rule == null) { return null; }
+        return RecurrenceRule.parse(rule);
+    }
+
+    /**
+     * Write a long into 8 bytes of an array, big-endian.
+     */
+    private static void putLong(byte[] bytes, int offset, long value) {
+        for (int i = 7; i >= 0; i--) {
+            bytes[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    /**
+     * Read a long from 8 bytes of an array, big-endian.
+     */
+    private static long getLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (bytes[offset + i] & 0xFF);
+        }
+        return value;
+    }
+}
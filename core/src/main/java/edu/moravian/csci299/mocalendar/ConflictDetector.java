@@ -0,0 +1,88 @@
+package edu.moravian.csci299.mocalendar;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Finds events whose times overlap. Instead of comparing every pair of events, the events are
+ * swept in order of their start times while keeping track of the latest end time seen in the
+ * current group: an event that starts before that end time overlaps the group, anything else
+ * starts a new group. This takes O(n log n) time for unsorted events and O(n) for sorted ones.
+ * <p>
+ * Events without an end time (such as assignments) take no time and never conflict.
+ */
+public final class ConflictDetector {
+    /**
+     * The types of events that cannot be double-booked, so that a new event overlapping one of
+     * these is worth a warning.
+     */
+    public static final Set<EventType> BLOCKING_TYPES = Collections.unmodifiableSet(
+            EnumSet.of(EventType.CLASS, EventType.EXAM, EventType.LAB));
+
+    private static final Comparator<Event> BY_START_TIME = (a, b) -> a.startTime.compareTo(b.startTime);
+
+    private ConflictDetector() {}
+
+    /**
+     * Find the groups of overlapping events. Each group is a maximal set of events connected by
+     * overlaps: every event in the group overlaps at least one other event in the group, and no
+     * event outside of the group overlaps any of them. Events that touch (one ends exactly when
+     * the next starts) do not overlap.
+     * @param events the events to check, they do not need to be sorted
+     * @return the groups of two or more overlapping events, each ordered by start time, with the
+     *         groups ordered by their first start time
+     */
+    public static List<List<Event>> findConflicts(List<Event> events) {
+        List<Event> sorted = new ArrayList<>(events.size());
+        boolean isSorted = true;
+        for (Event event : events) {
+            if (event.endTime == null) { continue; }
+            if (isSorted && !sorted.isEmpty() && BY_START_TIME.compare(sorted.get(sorted.size() - 1), event) > 0) {
+                isSorted = false;
+            }
+            sorted.add(event);
+        }
+        if (!isSorted) { Collections.sort(sorted, BY_START_TIME); }
+
+        List<List<Event>> conflicts = new ArrayList<>();
+        List<Event> group = new ArrayList<>();
+        long groupEnd = Long.MIN_VALUE;
+        for (Event event : sorted) {
+            long start = event.startTime.getTime();
+            if (start >= groupEnd) {
+                if (group.size() > 1) { conflicts.add(group); }
+                group = new ArrayList<>();
+                groupEnd = Long.MIN_VALUE;
+            }
+            group.add(event);
+            groupEnd = Math.max(groupEnd, event.endTime.getTime());
+        }
+        if (group.size() > 1) { conflicts.add(group); }
+        return conflicts;
+    }
+
+    /**
+     * Find the events that overlap a single event.
+     * @param event the event to check
+     * @param others the events to check against, ones with the same id as the event (such as an
+     *               older version of it) are skipped
+     * @param types only events of these types are returned
+     * @return the events that overlap the event, in the order given
+     */
+    public static List<Event> findConflicts(Event event, List<Event> others, Set<EventType> types) {
+        List<Event> conflicts = new ArrayList<>();
+        if (event.endTime == null) { return conflicts; }
+        long start = event.startTime.getTime(), end = event.endTime.getTime();
+        for (Event other : others) {
+            if (other.endTime != null && types.contains(other.type) && !other.id.equals(event.id) &&
+                    other.startTime.getTime() < end && other.endTime.getTime() > start) {
+                conflicts.add(other);
+            }
+        }
+        return conflicts;
+    }
+}
@@ -0,0 +1,173 @@
+package edu.moravian.csci299.mocalendar;
+
+import androidx.annotation.NonNull;
+
+import java.text.DateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Thread-safe formatting of dates and times for a locale, in the locale's own full and long date
+ * styles and short time style. DateFormat is not thread-safe so each thread gets its own
+ * formatters, and the formatted strings are cached by minute (for times) and by day (for dates)
+ * since the same few are formatted over and over while binding lists. The caches are small,
+ * fixed-size and lock-free: each key maps to a single slot and a newer string simply replaces
+ * whatever was in its slot.
+ *
+ * Dates and times are formatted in DateUtils' time zone.
+ */
+public final class DateFormatter {
+    private static final int TIME_CACHE_SIZE = 256; // must be a power of 2
+    private static final int DATE_CACHE_SIZE = 64; // must be a power of 2
+
+    private static final ConcurrentMap<Locale, DateFormatter> FORMATTERS = new ConcurrentHashMap<>();
+    private static volatile DateFormatter defaultFormatter;
+
+    /**
+     * Get the formatter for a locale.
+     * @param locale the locale
+     * @return the shared formatter for that locale
+     */
+    public static DateFormatter forLocale(@NonNull Locale locale) {
+        DateFormatter formatter = FORMATTERS.get(locale);
+        if (formatter == null) {
+            DateFormatter created = new DateFormatter(locale);
+            formatter = FORMATTERS.putIfAbsent(locale, created);
+            if (formatter == null) { formatter = created; }
+        }
+        return formatter;
+    }
+
+    /**
+     * @return the formatter for the device's current locale
+     */
+    public static DateFormatter getDefault() {
+        DateFormatter formatter = defaultFormatter;
+        Locale locale = Locale.getDefault();
+        if (formatter == null || !formatter.locale.equals(locale)) {
+            formatter = forLocale(locale);
+            defaultFormatter = formatter;
+        }
+        return formatter;
+    }
+
+    /** A cached formatted string. Immutable so it can be shared between threads. */
+    private static final class Entry {
+        final long key;
+        final TimeZone zone;
+        final String text;
+
+        Entry(long key, TimeZone zone, String text) {
+            this.key = key;
+            this.zone = zone;
+            this.text = text;
+        }
+    }
+
+    /** One thread's formatters. */
+    private final class Formats {
+        final DateFormat fullDate = DateFormat.getDateInstance(DateFormat.FULL, locale);
+        final DateFormat date = DateFormat.getDateInstance(DateFormat.LONG, locale);
+        final DateFormat time = DateFormat.getTimeInstance(DateFormat.SHORT, locale);
+        TimeZone zone;
+
+        Formats use(TimeZone zone) {
+            if (this.zone != zone) {
+                fullDate.setTimeZone(zone);
+                date.setTimeZone(zone);
+                time.setTimeZone(zone);
+                this.zone = zone;
+            }
+            return this;
+        }
+    }
+
+    private final Locale locale;
+    private final ThreadLocal<Formats> formats = new ThreadLocal<Formats>() {
+        @Override
+        protected Formats initialValue() {
+            return new Formats();
+        }
+    };
+    private final AtomicReferenceArray<Entry> fullDates = new AtomicReferenceArray<>(DATE_CACHE_SIZE);
+    private final AtomicReferenceArray<Entry> dates = new AtomicReferenceArray<>(DATE_CACHE_SIZE);
+    private final AtomicReferenceArray<Entry> times = new AtomicReferenceArray<>(TIME_CACHE_SIZE);
+
+    private DateFormatter(Locale locale) {
+        this.locale = locale;
+    }
+
+    /**
+     * @return the locale of this formatter
+     */
+    public Locale getLocale() {
+        return locale;
+    }
+
+    /**
+     * Get the textual representation of a date including the day of the week, like
+     * "Thursday, April 1, 2021" in the US or "jeudi 1 avril 2021" in France.
+     * @param time epoch milliseconds
+     * @return the String like "Thursday, April 1, 2021"
+     */
+    public String toFullDateString(long time) {
+        TimeZone zone = DateUtils.getTimeZone();
+        long day = DateUtils.startOfDay(time);
+        Entry entry = lookup(fullDates, day, zone);
+        if (entry == null) {
+            entry = store(fullDates, day, zone, formats.get().use(zone).fullDate.format(new Date(day)));
+        }
+        return entry.text;
+    }
+
+    /**
+     * Get the textual representation of a date NOT including the day of the week, like
+     * "April 1, 2021" in the US or "1 avril 2021" in France.
+     * @param time epoch milliseconds
+     * @return the String like "April 1, 2021"
+     */
+    public String toDateString(long time) {
+        TimeZone zone = DateUtils.getTimeZone();
+        long day = DateUtils.startOfDay(time);
+        Entry entry = lookup(dates, day, zone);
+        if (entry == null) {
+            entry = store(dates, day, zone, formats.get().use(zone).date.format(new Date(day)));
+        }
+        return entry.text;
+    }
+
+    /**
+     * Get the textual representation of the time, like "3:42 PM" in the US or "15:42" in France.
+     * @param time epoch milliseconds
+     * @return the String like "3:42 PM"
+     */
+    public String toTimeString(long time) {
+        TimeZone zone = DateUtils.getTimeZone();
+        long minute = time >= 0 ? time / 60000 : (time - 59999) / 60000;
+        Entry entry = lookup(times, minute, zone);
+        if (entry == null) {
+            entry = store(times, minute, zone, formats.get().use(zone).time.format(new Date(minute * 60000)));
+        }
+        return entry.text;
+    }
+
+    private static Entry lookup(AtomicReferenceArray<Entry> cache, long key, TimeZone zone) {
+        Entry entry = cache.get(slot(cache, key));
+        return entry != null && entry.key == key && entry.zone == zone ? entry : null;
+    }
+
+    private static Entry store(AtomicReferenceArray<Entry> cache, long key, TimeZone zone, String text) {
+        Entry entry = new Entry(key, zone, text);
+        cache.set(slot(cache, key), entry);
+        return entry;
+    }
+
+    private static int slot(AtomicReferenceArray<Entry> cache, long key) {
+        long h = key * 0x9E3779B97F4A7C15L; // spread nearby keys across the slots
+        return (int) (h >>> 40) & (cache.length() - 1);
+    }
+}
@@ -0,0 +1,411 @@
+package edu.moravian.csci299.mocalendar;
+
+import androidx.annotation.NonNull;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * This class provides a ton a static utility functions for working with Date
+ * objects. All of these are completed and working, but you will likely need to
+ * use most of them so read them over.
+ *
+ * In Java, Date objects actually contain information about the year, month,
+ * day, hour, minute, and second. This makes talking about them very confusing
+ * since saying "Date" could refer to an object that is just a date (year,
+ * month, and day), an object that is just a time (hours, minutes, seconds), or
+ * both. In the documentation for this function, capitalized Date refers to the
+ * Java class and not specific date or time. Lowercase date refers to just a
+ * date (year, month, and day). The phrase date/time refers to having/using
+ * both the date and time of a Date object.
+ */
+public class DateUtils {
+    /**
+     * Formatter to convert Date objects to textual dates like "Thursday April 1, 2021". Includes
+     * the weekday. Ignores any time.
+     * @deprecated not thread-safe, use toFullDateString() or DateFormatter instead
+     */
+    @Deprecated
+    public static final SimpleDateFormat fullDateFormat = new SimpleDateFormat("EEEE MMMM d, yyyy", Locale.US);
+
+    /**
+     * Formatter to convert Date objects to textual dates like "April 1, 2021". Does not include the
+     * weekday. Ignores any time.
+     * @deprecated not thread-safe, use toDateString() or DateFormatter instead
+     */
+    @Deprecated
+    public static final SimpleDateFormat dateFormat = new SimpleDateFormat("MMMM d, yyyy", Locale.US);
+
+    /**
+     * Formatter for converting Date objects to textual times like "3:42 pm". Ignores any date.
+     * @deprecated not thread-safe, use toTimeString() or DateFormatter instead
+     */
+    @Deprecated
+    public static final SimpleDateFormat timeFormat = new SimpleDateFormat("h:mm a", Locale.US);
+
+    /**
+     * Returns the given date/time or the current date/time if the given Date is null.
+     * @param date the date/time to return (or null to return the current date/time)
+     * @return a date/time, either the one given or the current date/time
+     */
+    @NonNull
+    public static Date useDateOrNow(Date date) {
+        return date == null ? new Date() : date;
+    }
+
+    /**
+     * Gets a Date object for the given year, month, and day. The time is at
+     * the start of that day (i.e. midnight).
+     * @param year the year (e.g. 2021)
+     * @param month the month (0-11, as used by Calendar)
+     * @param dayOfMonth the day of that month (1-31)
+     * @return a Date object for midnight at the start of that day
+     */
+    public static Date getDate(int year, int month, int dayOfMonth) {
+        return new Date(dateMillis(year, month, dayOfMonth));
+    }
+
+    /**
+     * Gets the year, month, and day from a Date object. The time is ignored.
+     * @param date the Date object to extract information from
+     * @return an array of the year, month (0-11), and day from that Date
+     */
+    public static int[] getYearMonthDay(Date date) {
+        int ymd = yearMonthDay(date.getTime());
+        return new int[]{year(ymd), month(ymd), dayOfMonth(ymd)};
+    }
+
+    /**
+     * Gets a Date object for the given hour and minute. The time is put on an
+     * arbitrary day.
+     * @param hour the hour (0-23)
+     * @param minute the minute (0-59)
+     * @return a Date object for the given time on an arbitrary day
+     */
+    public static Date getTime(int hour, int minute) {
+        return new Date(timeMillis(hour, minute));
+    }
+
+    /**
+     * Gets the hour and minute from a Date object. The date is ignored.
+     * @param date the Date object to extract information from
+     * @return an array of the hour (0-11, as with Calendar.HOUR) and minute from that Date
+     */
+    public static int[] getHourMinute(Date date) {
+        long time = date.getTime();
+        return new int[]{hourOfDay(time) % 12, minuteOfHour(time)};
+    }
+
+    /**
+     * Returns a new Date that has the date of the first argument and the time
+     * of the second argument. The time on the date is ignored and the date on
+     * the time is ignored.
+     * @param date the Date to use for the date portion
+     * @param time the Date to use for the time portion
+     * @return a Date that is the combination of the arguments given
+     */
+    @NonNull
+    public static Date combineDateAndTime(Date date, Date time) {
+        return new Date(combineDateAndTime(date.getTime(), time.getTime()));
+    }
+
+    /**
+     * Gets the new end Date based on how the start time changed, keeping the
+     * end time the same amount of time after the start that it was originally.
+     *
+     * @param origStart the original start Date
+     * @param newStart the new start Date
+     * @param origEnd the original end Date
+     * @return the new end Date to keep the amount of time between start and
+     *         end the same
+     */
+    public static Date getNewEndTime(Date origStart, Date newStart, Date origEnd) {
+        return new Date(getNewEndTime(origStart.getTime(), newStart.getTime(), origEnd.getTime()));
+    }
+
+    /**
+     * Fixes the end time so that it comes after the given start time and at
+     * most 24 hours after it. If the end time comes before the start time then
+     * it is moved to the next day but at the same time. If it after the start
+     * time but by more than 24 hours it keeps the same time but its date is
+     * changed to the same day as the start day.
+     *
+     * @param start the reference Date to determine how to move the end Date
+     * @param end the Date to adjust to make sure comes after start by at most 24 hours
+     * @return the adjusted end Date (or possibly the same end Date if no adjustment needed)
+     */
+    public static Date fixEndTime(Date start, Date end) {
+        return new Date(fixEndTime(start.getTime(), end.getTime()));
+    }
+
+    //////////////////// Epoch milliseconds ////////////////////
+    // The methods below work directly on epoch milliseconds (as in Date.getTime()) in the current
+    // time zone. They do not allocate any objects, so they are safe to use in hot paths like
+    // binding list items. Dates are packed into a single int by yearMonthDay().
+
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000;
+
+    /**
+     * The offsets of the current time zone, built from the default zone the first time they are
+     * needed. They are not rebuilt when the default zone changes: the app calls setTimeZone()
+     * when the device's zone changes (see CalendarApplication).
+     */
+    private static volatile ZoneOffsetTable zoneTable;
+
+    /**
+     * Use a different time zone for all date calculations, such as after the device's time zone
+     * changes. Rebuilding the zone's offset table takes a few milliseconds.
+     * @param zone the new time zone
+     */
+    public static void setTimeZone(@NonNull TimeZone zone) {
+        zoneTable = ZoneOffsetTable.of(zone);
+    }
+
+    /**
+     * @return the time zone used for all date calculations, the device's time zone by default
+     */
+    public static TimeZone getTimeZone() {
+        return zone().getZone();
+    }
+
+    private static ZoneOffsetTable zone() {
+        ZoneOffsetTable table = zoneTable;
+        if (table == null) {
+            table = ZoneOffsetTable.of(TimeZone.getDefault());
+            zoneTable = table;
+        }
+        return table;
+    }
+
+    /**
+     * Gets the time at the start of the given year, month, and day. Months and days outside of
+     * their normal ranges roll over into the next or previous months and years.
+     * @param year the year (e.g. 2021)
+     * @param month the month (0-11, as used by Calendar)
+     * @param dayOfMonth the day of that month (1-31)
+     * @return epoch milliseconds of midnight at the start of that day
+     */
+    public static long dateMillis(int year, int month, int dayOfMonth) {
+        year += floorDiv(month, 12);
+        month = (int) floorMod(month, 12);
+        return zone().toUtc(daysFromCivil(year, month + 1, dayOfMonth) * DAY_MILLIS);
+    }
+
+    /**
+     * Gets a time on the current day.
+     * @param hour the hour (0-23)
+     * @param minute the minute (0-59)
+     * @return epoch milliseconds of the given time today
+     */
+    public static long timeMillis(int hour, int minute) {
+        ZoneOffsetTable zone = zone();
+        long today = floorDiv(zone.toLocal(System.currentTimeMillis()), DAY_MILLIS) * DAY_MILLIS;
+        return zone.toUtc(today + (hour * 60L + minute) * 60 * 1000);
+    }
+
+    /**
+     * @param time epoch milliseconds
+     * @return epoch milliseconds of midnight at the start of the day of the given time
+     */
+    public static long startOfDay(long time) {
+        ZoneOffsetTable zone = zone();
+        return zone.toUtc(floorDiv(zone.toLocal(time), DAY_MILLIS) * DAY_MILLIS);
+    }
+
+    /**
+     * Gets a time of day on the day of a given time. Using 24 * 60 minutes gives the start of the
+     * next day.
+     * @param time epoch milliseconds
+     * @param minuteOfDay the number of minutes since midnight (0-1440)
+     * @return epoch milliseconds of that time of day on the same day as the given time
+     */
+    public static long atMinuteOfDay(long time, int minuteOfDay) {
+        ZoneOffsetTable zone = zone();
+        return zone.toUtc(floorDiv(zone.toLocal(time), DAY_MILLIS) * DAY_MILLIS + minuteOfDay * 60L * 1000);
+    }
+
+    /**
+     * Gets the start of a day a number of calendar days from the day of a given time. Unlike
+     * adding multiples of 24 hours this stays on midnight across daylight saving time changes.
+     * @param time epoch milliseconds
+     * @param days the number of days to move, negative to move back
+     * @return epoch milliseconds of midnight at the start of that day
+     */
+    public static long addDays(long time, int days) {
+        ZoneOffsetTable zone = zone();
+        return zone.toUtc((floorDiv(zone.toLocal(time), DAY_MILLIS) + days) * DAY_MILLIS);
+    }
+
+    /**
+     * Gets the number of calendar days from the day of one time to the day of another, which is
+     * not always a multiple of 24 hours apart.
+     * @param from epoch milliseconds
+     * @param to epoch milliseconds
+     * @return the number of days, negative if to is on an earlier day
+     */
+    public static long daysBetween(long from, long to) {
+        ZoneOffsetTable zone = zone();
+        return floorDiv(zone.toLocal(to), DAY_MILLIS) - floorDiv(zone.toLocal(from), DAY_MILLIS);
+    }
+
+    /**
+     * Gets the date of a time packed into an int. Use year(), month() and dayOfMonth() to get
+     * each part.
+     * @param time epoch milliseconds
+     * @return the packed year, month, and day of that time
+     */
+    public static int yearMonthDay(long time) {
+        return civilFromDays(floorDiv(zone().toLocal(time), DAY_MILLIS));
+    }
+
+    /**
+     * @param yearMonthDay a date packed by yearMonthDay()
+     * @return the year (e.g. 2021)
+     */
+    public static int year(int yearMonthDay) {
+        return yearMonthDay >> 9;
+    }
+
+    /**
+     * @param yearMonthDay a date packed by yearMonthDay()
+     * @return the month (0-11, as used by Calendar)
+     */
+    public static int month(int yearMonthDay) {
+        return ((yearMonthDay >> 5) & 0xF) - 1;
+    }
+
+    /**
+     * @param yearMonthDay a date packed by yearMonthDay()
+     * @return the day of the month (1-31)
+     */
+    public static int dayOfMonth(int yearMonthDay) {
+        return yearMonthDay & 0x1F;
+    }
+
+    /**
+     * @param time epoch milliseconds
+     * @return the hour of the day of the time (0-23)
+     */
+    public static int hourOfDay(long time) {
+        return (int) (floorMod(zone().toLocal(time), DAY_MILLIS) / (60 * 60 * 1000));
+    }
+
+    /**
+     * @param time epoch milliseconds
+     * @return the minute of the hour of the time (0-59)
+     */
+    public static int minuteOfHour(long time) {
+        return (int) (floorMod(zone().toLocal(time), 60 * 60 * 1000) / (60 * 1000));
+    }
+
+    /**
+     * Combine the date of one time and the time of day (to the second) of another.
+     * @param date epoch milliseconds to use for the date portion
+     * @param time epoch milliseconds to use for the time portion
+     * @return epoch milliseconds of the combination of the arguments
+     */
+    public static long combineDateAndTime(long date, long time) {
+        ZoneOffsetTable zone = zone();
+        long day = floorDiv(zone.toLocal(date), DAY_MILLIS) * DAY_MILLIS;
+        long timeOfDay = floorMod(zone.toLocal(time), DAY_MILLIS) / 1000 * 1000;
+        return zone.toUtc(day + timeOfDay);
+    }
+
+    /**
+     * Gets the new end time based on how the start time changed, keeping the
+     * end time the same amount of time after the start that it was originally.
+     * @param origStart the original start time in epoch milliseconds
+     * @param newStart the new start time in epoch milliseconds
+     * @param origEnd the original end time in epoch milliseconds
+     * @return the new end time in epoch milliseconds
+     */
+    public static long getNewEndTime(long origStart, long newStart, long origEnd) {
+        return newStart + origEnd - origStart;
+    }
+
+    /**
+     * Same as fixEndTime(Date, Date) but for epoch milliseconds.
+     * @param start the reference start time in epoch milliseconds
+     * @param end the end time to adjust in epoch milliseconds
+     * @return the adjusted end time in epoch milliseconds
+     */
+    public static long fixEndTime(long start, long end) {
+        end = combineDateAndTime(start, end);
+        if (end < start) {
+            // move the end date to the day after start but at the same time
+            ZoneOffsetTable zone = zone();
+            return zone.toUtc(zone.toLocal(end) + DAY_MILLIS);
+        }
+        return end;
+    }
+
+    /**
+     * Convert a year, month (1-12), and day to the number of days since 1970-01-01 in the
+     * proleptic Gregorian calendar.
+     */
+    private static long daysFromCivil(long year, int month, int day) {
+        year -= month <= 2 ? 1 : 0;
+        long era = floorDiv(year, 400);
+        long yearOfEra = year - era * 400;
+        long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /**
+     * Convert a number of days since 1970-01-01 to a packed year, month (1-12) and day.
+     */
+    private static int civilFromDays(long days) {
+        days += 719468;
+        long era = floorDiv(days, 146097);
+        long dayOfEra = days - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+        return (year << 9) | (month << 5) | day;
+    }
+
+    private static long floorDiv(long x, long y) {
+        long q = x / y;
+        return (x % y != 0 && ((x ^ y) < 0)) ? q - 1 : q;
+    }
+
+    private static long floorMod(long x, long y) {
+        return x - floorDiv(x, y) * y;
+    }
+
+    /**
+     * Get the textual representation of a date including the day of the week in the device's
+     * locale, like "Thursday, April 1, 2021" in the US.
+     * @param date the Date to get the information from
+     * @return the String like "Thursday, April 1, 2021"
+     */
+    public static String toFullDateString(Date date) {
+        return DateFormatter.getDefault().toFullDateString(date.getTime());
+    }
+
+    /**
+     * Get the textual representation of a date NOT including the day of the week in the device's
+     * locale, like "April 1, 2021" in the US.
+     * @param date the Date to get the information from
+     * @return the String like "April 1, 2021"
+     */
+    public static String toDateString(Date date) {
+        return DateFormatter.getDefault().toDateString(date.getTime());
+    }
+
+    /**
+     * Get the textual representation of the time in the device's locale, like "3:42 PM" in the
+     * US.
+     * @param date the Date to get the information from
+     * @return the String like "3:42 PM"
+     */
+    public static String toTimeString(Date date) {
+        return DateFormatter.getDefault().toTimeString(date.getTime());
+    }
+}
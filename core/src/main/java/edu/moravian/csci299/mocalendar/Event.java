@@ -0,0 +1,135 @@
+package edu.moravian.csci299.mocalendar;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Ignore;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+import java.util.Comparator;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * An Event object contains all of the information about a single event or
+ * assignment due date.
+ *
+ * The start and end times are indexed so that the range queries in CalendarDao can look up the
+ * events for a day without scanning the whole table. The reminder times are indexed so the next
+ * reminders can be found the same way.
+ *
+ * NOTE: this class is complete.
+ */
+@Entity(indices = {@Index("startTime"), @Index("endTime"), @Index("recurrenceEnd"), @Index("reminderTime")})
+public class Event {
+    /**
+     * Orders events by start time then id, the same as the ORDER BY of the queries.
+     */
+    public static final Comparator<Event> ORDER = (a, b) -> {
+        int cmp = a.startTime.compareTo(b.startTime);
+        return cmp != 0 ? cmp : CalendarTypeConverter.compareUuids(a.id, b.id);
+    };
+
+    /**
+     * The id of the event is the primary key in the database.
+     */
+    @PrimaryKey
+    @NonNull
+    public UUID id;
+    /**
+     * Start time for the event. If the endTIme is null, this represents the due date.
+     */
+    @NonNull
+    public Date startTime;
+    /**
+     * The ending time. If the endTime is null then this "event" is actually an
+     * assignment with a due date (the start time).
+     */
+    public Date endTime;
+    /**
+     * Name of the event.
+     */
+    @NonNull
+    public String name;
+    /**
+     * The type of the event.
+     */
+    @NonNull
+    public EventType type;
+    /**
+     * The description of the event.
+     */
+    @NonNull
+    public String description;
+    /**
+     * How this event repeats, or null if it does not. An event with a rule is the single stored
+     * row for the whole series; its start and end times are those of the first occurrence.
+     */
+    public RecurrenceRule recurrence;
+    /**
+     * When the last occurrence of the series ends (Long.MAX_VALUE if it never ends), or null if
+     * this event does not repeat. This is derived from the rule when the event is written and is
+     * indexed so the series that might occur in a window of time can be found quickly.
+     */
+    public Date recurrenceEnd;
+    /**
+     * If this event replaces a single occurrence of a recurring event, the id of that series.
+     */
+    public UUID seriesId;
+    /**
+     * How many minutes before the start to be reminded of the event (or of each occurrence of a
+     * series), or null for no reminder.
+     */
+    public Integer reminderMinutes;
+    /**
+     * When the reminder of this event goes off, or null if it has no reminder or is a recurring
+     * series (whose reminders are found from the rule). This is derived from the start time and
+     * reminderMinutes when the event is written and is indexed so the next reminders can be found
+     * quickly.
+     */
+    public Date reminderTime;
+    /**
+     * True if this event is an occurrence expanded from a recurring series instead of an event
+     * stored in the database. Occurrences are never written directly.
+     */
+    @Ignore
+    public boolean occurrence;
+
+    /**
+     * Create a new event with a random id that starts now.
+     */
+    public Event() {
+        id = UUID.randomUUID();
+        startTime = new Date();
+        name = "New Event";
+        type = EventType.GENERIC;
+        description = "";
+    }
+
+    /**
+     * Copies every field directly. The defaults are set in the public constructor instead of the
+     * field declarations so that copying (which the caches do for every event they hold) does not
+     * generate a random id and a date only to overwrite them.
+     */
+    private Event(Event other) {
+        id = other.id;
+        startTime = other.startTime;
+        endTime = other.endTime;
+        name = other.name;
+        type = other.type;
+        description = other.description;
+        recurrence = other.recurrence;
+        recurrenceEnd = other.recurrenceEnd;
+        seriesId = other.seriesId;
+        reminderMinutes = other.reminderMinutes;
+        reminderTime = other.reminderTime;
+        occurrence = other.occurrence;
+    }
+
+    /**
+     * @return a new Event with the same id and values as this one
+     */
+    public Event copy() {
+        return new Event(this);
+    }
+}
@@ -0,0 +1,32 @@
+package edu.moravian.csci299.mocalendar;
+
+/**
+ * The types of events (and assignments). This is gives each type a name so that it can be
+ * displayed with the events for easy identification. The icon of each type is an Android resource
+ * so it is given by EventTypeIcons in the app instead.
+ *
+ * NOTE: If you want to, you can add additional types here. Each one requires a name here and a
+ * drawable in EventTypeIcons so that it can be selected and have an icon displayed.
+ */
+public enum EventType {
+    GENERIC("Event"),
+    ASSIGNMENT("Assignment"),
+    CLASS("Class"),
+    LAB("Lab"),
+    EXAM("Exam"),
+    ESSAY("Essay"),
+    PROGRAMMING("Programming Assignment"),
+    READING("Reading Assignment"),
+    CLUB("Club"),
+    OFFICE_HOURS("Office Hours"),
+    ATHLETIC_PRACTICE("Athletic Practice"),
+    MUSIC_PRACTICE("Music Practice"),
+    COMPETITION("Competition"),
+    PRESENTATION("Presentation"),
+    HOLIDAY("Holiday");
+
+    public final String simpleName;
+    EventType(String name) {
+        this.simpleName = name;
+    }
+}
@@ -0,0 +1,177 @@
+package edu.moravian.csci299.mocalendar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds the free time between events, limited to working hours on each day and to slots of at
+ * least a minimum length. The busy times of the events are sorted and merged into disjoint
+ * intervals once, then a single pass over the working hours of each day collects the gaps between
+ * them, so finding the slots takes O(n log n) time for n events.
+ * <p>
+ * Events without an end time (such as assignments) take no time and never make a slot busy.
+ */
+public final class FreeSlotFinder {
+    /** The number of minutes in a day, usable as the end of the working hours. */
+    public static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final int workdayStart, workdayEnd;
+    private final long minimumDuration;
+
+    /**
+     * @param workdayStart the start of the working hours in minutes since midnight (0-1440)
+     * @param workdayEnd the end of the working hours in minutes since midnight, after the start
+     * @param minimumDuration the minimum length of a slot in milliseconds
+     */
+    public FreeSlotFinder(int workdayStart, int workdayEnd, long minimumDuration) {
+        if (workdayStart < 0 || workdayEnd > MINUTES_PER_DAY || workdayStart >= workdayEnd) {
+            throw new IllegalArgumentException("invalid working hours: " + workdayStart + "-" + workdayEnd);
+        }
+        if (minimumDuration < 0) {
+            throw new IllegalArgumentException("negative minimum duration: " + minimumDuration);
+        }
+        this.workdayStart = workdayStart;
+        this.workdayEnd = workdayEnd;
+        this.minimumDuration = minimumDuration;
+    }
+
+    /**
+     * Create a finder for slots at any time of day.
+     * @param minimumDuration the minimum length of a slot in milliseconds
+     * @return the new finder
+     */
+    public static FreeSlotFinder anyTime(long minimumDuration) {
+        return new FreeSlotFinder(0, MINUTES_PER_DAY, minimumDuration);
+    }
+
+    /**
+     * Find the free slots in a range of time.
+     * @param events the events in the range, they do not need to be sorted
+     * @param start the start of the range in epoch milliseconds
+     * @param end the end of the range in epoch milliseconds, exclusive
+     * @return the free slots in the range, ordered by start time
+     */
+    public List<TimeSlot> findFreeSlots(List<Event> events, long start, long end) {
+        return find(events, start, end, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Find the first free slot in a range of time.
+     * @param events the events in the range, they do not need to be sorted
+     * @param start the start of the range in epoch milliseconds
+     * @param end the end of the range in epoch milliseconds, exclusive
+     * @return the first free slot in the range, or null if there are none
+     */
+    public TimeSlot findFirstFreeSlot(List<Event> events, long start, long end) {
+        List<TimeSlot> slots = find(events, start, end, 1);
+        return slots.isEmpty() ? null : slots.get(0);
+    }
+
+    private List<TimeSlot> find(List<Event> events, long start, long end, int limit) {
+        // sort the busy intervals by start time then merge the ones that overlap or touch
+        long[] busy = new long[events.size() * 2];
+        int count = 0;
+        for (Event event : events) {
+            if (event.endTime == null || event.endTime.getTime() <= start || event.startTime.getTime() >= end) { continue; }
+            busy[count++] = event.startTime.getTime();
+            busy[count++] = event.endTime.getTime();
+        }
+        int n = merge(busy, count / 2);
+
+        Collector slots = new Collector(Math.max(minimumDuration, 1));
+        int i = 0;
+        for (long day = DateUtils.startOfDay(start); day < end && slots.size() < limit; day = DateUtils.atMinuteOfDay(day, MINUTES_PER_DAY)) {
+            long cursor = Math.max(start, DateUtils.atMinuteOfDay(day, workdayStart));
+            long to = Math.min(end, DateUtils.atMinuteOfDay(day, workdayEnd));
+            // busy intervals that ended before today's working hours are never needed again
+            while (i < n && busy[2 * i + 1] <= cursor) { i++; }
+            for (int j = i; j < n && cursor < to && busy[2 * j] < to; j++) {
+                slots.add(cursor, busy[2 * j]);
+                cursor = Math.max(cursor, busy[2 * j + 1]);
+            }
+            slots.add(cursor, to);
+        }
+        return slots.finish();
+    }
+
+    /**
+     * Collects the free gaps into slots. Gaps that meet (such as at midnight when working all day)
+     * are joined into one slot before the minimum duration is checked.
+     */
+    private static class Collector {
+        private final long minimumDuration;
+        private final List<TimeSlot> slots = new ArrayList<>();
+        private long start, end = Long.MIN_VALUE;
+
+        Collector(long minimumDuration) {
+            this.minimumDuration = minimumDuration;
+        }
+
+        void add(long start, long end) {
+            if (end <= start) { return; }
+            if (start != this.end) {
+                flush();
+                this.start = start;
+            }
+            this.end = end;
+        }
+
+        int size() {
+            return slots.size();
+        }
+
+        List<TimeSlot> finish() {
+            flush();
+            return slots;
+        }
+
+        private void flush() {
+            if (end != Long.MIN_VALUE && end - start >= minimumDuration) {
+                slots.add(new TimeSlot(start, end));
+            }
+        }
+    }
+
+    /**
+     * Sort and merge intervals stored as start/end pairs, in place.
+     * @param intervals the start and end of each interval, one after the other
+     * @param n the number of intervals
+     * @return the number of merged intervals now at the front of the array
+     */
+    private static int merge(long[] intervals, int n) {
+        if (n == 0) { return 0; }
+        sortPairs(intervals, n);
+        int merged = 0;
+        for (int k = 1; k < n; k++) {
+            if (intervals[2 * k] <= intervals[2 * merged + 1]) {
+                intervals[2 * merged + 1] = Math.max(intervals[2 * merged + 1], intervals[2 * k + 1]);
+            } else {
+                merged++;
+                intervals[2 * merged] = intervals[2 * k];
+                intervals[2 * merged + 1] = intervals[2 * k + 1];
+            }
+        }
+        return merged + 1;
+    }
+
+    /**
+     * Sort start/end pairs by their start. Events come from the database already ordered by start
+     * time, so the sort is skipped when it isn't needed.
+     */
+    private static void sortPairs(long[] intervals, int n) {
+        boolean sorted = true;
+        for (int k = 1; k < n && sorted; k++) {
+            sorted = intervals[2 * k - 2] <= intervals[2 * k];
+        }
+        if (sorted) { return; }
+        Integer[] order = new Integer[n];
+        for (int k = 0; k < n; k++) { order[k] = k; }
+        Arrays.sort(order, (a, b) -> Long.compare(intervals[2 * a], intervals[2 * b]));
+        long[] copy = Arrays.copyOf(intervals, 2 * n);
+        for (int k = 0; k < n; k++) {
+            intervals[2 * k] = copy[2 * order[k]];
+            intervals[2 * k + 1] = copy[2 * order[k] + 1];
+        }
+    }
+}
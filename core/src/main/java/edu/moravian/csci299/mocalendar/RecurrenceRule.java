@@ -0,0 +1,319 @@
+package edu.moravian.csci299.mocalendar;
+
+import androidx.annotation.NonNull;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * The rule for how a recurring event repeats. This supports a subset of the iCalendar RRULE:
+ * daily, weekly, and monthly frequencies, an interval, the days of the week (for weekly rules),
+ * and ending either at a date (UNTIL) or after a number of occurrences (COUNT). It also holds the
+ * exception dates: occurrences that have been removed or replaced by a separate event.
+ *
+ * A series is stored once as a single event row with a rule. Occurrences are never stored, they
+ * are expanded from the rule only for the window of time being looked at. Rules are immutable.
+ *
+ * The stored form is the RRULE text, followed by ";EXDATE=" and the comma-separated epoch
+ * milliseconds of the exception dates if there are any, for example
+ * "FREQ=WEEKLY;INTERVAL=1;BYDAY=MO,WE;UNTIL=20210501T000000Z".
+ */
+public class RecurrenceRule {
+    /** How often the event repeats. */
+    public enum Frequency { DAILY, WEEKLY, MONTHLY }
+
+    /** The RRULE codes for the days of the week, indexed by Calendar.SUNDAY - 1 and so on. */
+    private static final String[] DAY_CODES = {"SU", "MO", "TU", "WE", "TH", "FR", "SA"};
+
+    /** The format of UNTIL values. */
+    private static final String UNTIL_FORMAT = "yyyyMMdd'T'HHmmss'Z'";
+
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000;
+
+    public final Frequency frequency;
+    /** The number of days, weeks or months between occurrences, at least 1. */
+    public final int interval;
+    /**
+     * The days of the week a weekly rule occurs on, as a bitmask where the bit for a day is
+     * 1 << (day - Calendar.SUNDAY). 0 means the same day of the week as the start of the series.
+     */
+    public final int byDay;
+    /** The last time an occurrence may start, or null if there is no such limit. */
+    public final Date until;
+    /** The maximum number of occurrences, or 0 if there is no such limit. */
+    public final int count;
+    /** The start times (in epoch milliseconds) of occurrences that are skipped, sorted. */
+    private final long[] exceptions;
+
+    public RecurrenceRule(@NonNull Frequency frequency, int interval, int byDay, Date until, int count) {
+        this(frequency, interval, byDay, until, count, new long[0]);
+    }
+
+    private RecurrenceRule(Frequency frequency, int interval, int byDay, Date until, int count, long[] exceptions) {
+        if (interval < 1) { throw new IllegalArgumentException("interval must be at least 1"); }
+        if (count < 0) { throw new IllegalArgumentException("count must not be negative"); }
+        this.frequency = frequency;
+        this.interval = interval;
+        this.byDay = byDay & 0x7F;
+        this.until = until;
+        this.count = count;
+        this.exceptions = exceptions;
+    }
+
+    /**
+     * Get a copy of this rule that skips an additional occurrence.
+     * @param occurrenceStart the start time of the occurrence to skip
+     * @return the new rule
+     */
+    public RecurrenceRule withException(Date occurrenceStart) {
+        long time = occurrenceStart.getTime();
+        if (isException(time)) { return this; }
+        long[] newExceptions = Arrays.copyOf(exceptions, exceptions.length + 1);
+        newExceptions[exceptions.length] = time;
+        Arrays.sort(newExceptions);
+        return new RecurrenceRule(frequency, interval, byDay, until, count, newExceptions);
+    }
+
+    /**
+     * @param occurrenceStart the start time of an occurrence in epoch milliseconds
+     * @return true if the occurrence is skipped
+     */
+    public boolean isException(long occurrenceStart) {
+        return Arrays.binarySearch(exceptions, occurrenceStart) >= 0;
+    }
+
+    /**
+     * Find the start times of the occurrences of a series that overlap a window of time. An
+     * occurrence overlaps if it starts before the window ends and either starts within the window
+     * or ends after the window starts. Only the periods around the window are looked at, unless
+     * the rule has a COUNT in which case every occurrence before the window must be counted.
+     *
+     * @param seriesStart the start time of the first occurrence
+     * @param duration the length of each occurrence in milliseconds
+     * @param windowStart the start of the window
+     * @param windowEnd the end of the window, exclusive
+     * @return the start times of the overlapping occurrences (in epoch milliseconds), in order
+     */
+    public List<Long> expand(long seriesStart, long duration, long windowStart, long windowEnd) {
+        List<Long> starts = new ArrayList<>();
+        long last = until == null ? Long.MAX_VALUE : until.getTime();
+        // days, weeks and months are those of the zone the rest of the app uses, so occurrences
+        // stay at the same local time across daylight saving time changes there
+        Calendar start = Calendar.getInstance(DateUtils.getTimeZone());
+        start.setTimeInMillis(seriesStart);
+        Calendar period = (Calendar) start.clone();
+        if (frequency == Frequency.WEEKLY) {
+            // weeks start on Monday, as is the default in RRULEs
+            period.add(Calendar.DAY_OF_MONTH, -((start.get(Calendar.DAY_OF_WEEK) + 5) % 7));
+        }
+        int firstPeriod = count > 0 ? 0 : firstPeriodNear(seriesStart, windowStart - duration);
+        advance(period, firstPeriod);
+        int n = 0;
+        while (period.getTimeInMillis() < windowEnd && period.getTimeInMillis() <= last) {
+            for (long candidate : candidatesInPeriod(period, start)) {
+                if (candidate < seriesStart) { continue; }
+                if (candidate > last || candidate >= windowEnd) { return starts; }
+                if (count > 0 && ++n > count) { return starts; }
+                boolean overlaps = candidate >= windowStart || candidate + duration > windowStart;
+                if (overlaps && !isException(candidate)) { starts.add(candidate); }
+            }
+            advance(period, 1);
+        }
+        return starts;
+    }
+
+    /**
+     * Get the time the last occurrence of a series ends, used to find the series that might have
+     * occurrences in a window of time.
+     * @param seriesStart the start time of the first occurrence
+     * @param duration the length of each occurrence in milliseconds
+     * @return the end of the last occurrence in epoch milliseconds, or Long.MAX_VALUE if the
+     *         series never ends
+     */
+    public long getSeriesEnd(long seriesStart, long duration) {
+        if (count > 0) {
+            List<Long> starts = new RecurrenceRule(frequency, interval, byDay, until, count)
+                    .expand(seriesStart, duration, seriesStart, Long.MAX_VALUE);
+            return starts.isEmpty() ? seriesStart + duration : starts.get(starts.size() - 1) + duration;
+        }
+        return until == null ? Long.MAX_VALUE : Math.max(seriesStart, until.getTime()) + duration;
+    }
+
+    /**
+     * Estimate the index of the first period that could have an occurrence overlapping a time,
+     * erring early.
+     */
+    private int firstPeriodNear(long seriesStart, long time) {
+        if (time <= seriesStart) { return 0; }
+        long periods;
+        switch (frequency) {
+            case DAILY: periods = (time - seriesStart) / (DAY_MILLIS * interval); break;
+            case WEEKLY: periods = (time - seriesStart) / (7 * DAY_MILLIS * interval); break;
+            default: periods = (time - seriesStart) / (31 * DAY_MILLIS * interval); break;
+        }
+        // back off a period to allow for daylight saving time and leap days
+        return (int) Math.max(0, Math.min(Integer.MAX_VALUE, periods - 1));
+    }
+
+    /** Move the calendar forward by a number of periods. */
+    private void advance(Calendar period, int periods) {
+        if (periods == 0) { return; }
+        switch (frequency) {
+            case DAILY: period.add(Calendar.DAY_OF_MONTH, periods * interval); break;
+            case WEEKLY: period.add(Calendar.WEEK_OF_YEAR, periods * interval); break;
+            case MONTHLY: period.add(Calendar.MONTH, periods * interval); break;
+        }
+    }
+
+    /** Get the occurrences in a period, in order. Periods are at the time of day of the start. */
+    private long[] candidatesInPeriod(Calendar period, Calendar start) {
+        switch (frequency) {
+            case DAILY:
+                return new long[]{period.getTimeInMillis()};
+            case WEEKLY: {
+                int days = byDay == 0 ? 1 << (start.get(Calendar.DAY_OF_WEEK) - Calendar.SUNDAY) : byDay;
+                long[] candidates = new long[Integer.bitCount(days)];
+                Calendar day = (Calendar) period.clone();
+                int i = 0;
+                for (int offset = 0; offset < 7; offset++) { // Monday through Sunday
+                    if ((days & (1 << (day.get(Calendar.DAY_OF_WEEK) - Calendar.SUNDAY))) != 0) {
+                        candidates[i++] = day.getTimeInMillis();
+                    }
+                    day.add(Calendar.DAY_OF_MONTH, 1);
+                }
+                return candidates;
+            }
+            default: {
+                // months without the start's day of the month are skipped
+                Calendar month = (Calendar) period.clone();
+                month.set(Calendar.DAY_OF_MONTH, 1);
+                int dayOfMonth = start.get(Calendar.DAY_OF_MONTH);
+                if (dayOfMonth > month.getActualMaximum(Calendar.DAY_OF_MONTH)) { return new long[0]; }
+                month.set(Calendar.DAY_OF_MONTH, dayOfMonth);
+                return new long[]{month.getTimeInMillis()};
+            }
+        }
+    }
+
+    /**
+     * Parse the stored form of a rule.
+     * @param text the RRULE text, optionally with the EXDATE list
+     * @return the parsed rule
+     * @throws IllegalArgumentException if the text is not a supported rule
+     */
+    public static RecurrenceRule parse(@NonNull String text) {
+        Frequency frequency = null;
+        int interval = 1, byDay = 0, count = 0;
+        Date until = null;
+        long[] exceptions = new long[0];
+        for (String part : text.split(";")) {
+            int eq = part.indexOf('=');
+            if (eq < 0) { continue; }
+            String key = part.substring(0, eq).trim().toUpperCase(Locale.US);
+            String value = part.substring(eq + 1).trim();
+            switch (key) {
+                case "FREQ":
+                    frequency = Frequency.valueOf(value.toUpperCase(Locale.US));
+                    break;
+                case "INTERVAL":
+                    interval = Integer.parseInt(value);
+                    break;
+                case "BYDAY":
+                    for (String code : value.split(",")) {
+                        int day = Arrays.asList(DAY_CODES).indexOf(code.trim().toUpperCase(Locale.US));
+                        if (day < 0) { throw new IllegalArgumentException("Unsupported BYDAY: " + code); }
+                        byDay |= 1 << day;
+                    }
+                    break;
+                case "UNTIL":
+                    until = parseUntil(value);
+                    break;
+                case "COUNT":
+                    count = Integer.parseInt(value);
+                    break;
+                case "EXDATE":
+                    String[] times = value.isEmpty() ? new String[0] : value.split(",");
+                    exceptions = new long[times.length];
+                    for (int i = 0; i < times.length; i++) { exceptions[i] = Long.parseLong(times[i].trim()); }
+                    Arrays.sort(exceptions);
+                    break;
+                default:
+                    // ignore parts of RRULEs that are not supported (like WKST)
+                    break;
+            }
+        }
+        if (frequency == null) { throw new IllegalArgumentException("Missing FREQ: " + text); }
+        return new RecurrenceRule(frequency, interval, byDay, until, count, exceptions);
+    }
+
+    /**
+     * @return the RRULE text of this rule without any exceptions
+     */
+    public String toRRule() {
+        StringBuilder sb = new StringBuilder("FREQ=").append(frequency.name());
+        sb.append(";INTERVAL=").append(interval);
+        if (byDay != 0) {
+            sb.append(";BYDAY=");
+            boolean first = true;
+            for (int day = 0; day < 7; day++) {
+                if ((byDay & (1 << day)) != 0) {
+                    if (!first) { sb.append(','); }
+                    sb.append(DAY_CODES[day]);
+                    first = false;
+                }
+            }
+        }
+        if (until != null) { sb.append(";UNTIL=").append(untilFormat().format(until)); }
+        if (count > 0) { sb.append(";COUNT=").append(count); }
+        return sb.toString();
+    }
+
+    /**
+     * @return the start times (in epoch milliseconds) of the skipped occurrences, sorted
+     */
+    public long[] getExceptions() {
+        return exceptions.clone();
+    }
+
+    /**
+     * @return the stored form of this rule, which can be read back with parse()
+     */
+    @NonNull
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(toRRule());
+        if (exceptions.length > 0) {
+            sb.append(";EXDATE=");
+            for (int i = 0; i < exceptions.length; i++) {
+                if (i > 0) { sb.append(','); }
+                sb.append(exceptions[i]);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static Date parseUntil(String value) {
+        try {
+            if (value.length() == 8) { // a date without a time means the end of that day
+                SimpleDateFormat format = new SimpleDateFormat("yyyyMMdd", Locale.US);
+                return new Date(format.parse(value).getTime() + DAY_MILLIS - 1);
+            }
+            return untilFormat().parse(value);
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("Invalid UNTIL: " + value, e);
+        }
+    }
+
+    private static SimpleDateFormat untilFormat() {
+        SimpleDateFormat format = new SimpleDateFormat(UNTIL_FORMAT, Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return format;
+    }
+}
@@ -0,0 +1,311 @@
+package edu.moravian.csci299.mocalendar;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Keeps track of the upcoming reminders so that only a single alarm is ever needed: the one for
+ * the next reminder. Instead of every future reminder, only the next few (the capacity) are kept
+ * in a min-heap, loaded from the database with an indexed query. When they run out the next few
+ * are loaded.
+ * <p>
+ * Reminders are ordered by their time then the id of their event (the series for an occurrence of
+ * a recurring event), the same as the query. The scheduler remembers the key of the last reminder
+ * fired and the key up to which reminders have been loaded; the heap always holds exactly the
+ * reminders between the two. So when events change, only those events need to be looked at:
+ * their old reminders are dropped from the heap and their new ones are added if they fall in the
+ * loaded range, without going back to the database.
+ * <p>
+ * All methods are synchronized and may be called on any thread except the main thread, since
+ * they may load from the database.
+ */
+public class ReminderScheduler {
+    /** How far ahead reminders are looked for when there are fewer than the capacity. */
+    static final long HORIZON_MILLIS = 366L * 24 * 60 * 60 * 1000;
+
+    private static final long MINUTE_MILLIS = 60 * 1000;
+    private static final UUID MAX_ID = new UUID(-1, -1);
+
+    /**
+     * The source of the current time, so that the scheduler can be tested with a fake clock.
+     */
+    public interface Clock {
+        Clock SYSTEM = System::currentTimeMillis;
+
+        /**
+         * @return the current time in epoch milliseconds
+         */
+        long now();
+    }
+
+    /**
+     * Loads reminders from the database.
+     */
+    public interface Source {
+        /**
+         * Load the next reminders after a position, including the occurrences of recurring
+         * events. Called on the thread calling the scheduler.
+         * @param time the time of the position
+         * @param id the event id of the position, breaking ties between reminders at the same time
+         * @param until the latest time to load reminders up to, inclusive
+         * @param limit the maximum number of reminders to load
+         * @return the first reminders after the position, ordered by time then event id
+         */
+        List<Reminder> loadAfter(long time, UUID id, long until, int limit);
+    }
+
+    /**
+     * Told when the alarm needs to change and when reminders are due.
+     */
+    public interface Listener {
+        /**
+         * The time of the next alarm has changed.
+         * @param time when the alarm should go off in epoch milliseconds, or -1 if no alarm is
+         *             needed
+         */
+        void onAlarmChanged(long time);
+
+        /**
+         * Reminders are due and should be shown.
+         * @param reminders the due reminders in order, never empty
+         */
+        void onRemindersDue(@NonNull List<Reminder> reminders);
+
+        /**
+         * Every reminder up to a time has been fired. This should be saved and passed to start()
+         * when the app next starts so that no reminders are repeated or missed.
+         * @param time the time in epoch milliseconds
+         */
+        void onFiredThrough(long time);
+    }
+
+    /**
+     * A single reminder of an event or of an occurrence of a recurring event.
+     */
+    public static final class Reminder {
+        /** The id of the event, or of the series for an occurrence. */
+        @NonNull
+        public final UUID eventId;
+        /** When the reminder goes off, in epoch milliseconds. */
+        public final long time;
+        /** When the event (or occurrence) starts, in epoch milliseconds. */
+        public final long start;
+        /** The name of the event. */
+        @NonNull
+        public final String name;
+
+        public Reminder(@NonNull UUID eventId, long time, long start, @NonNull String name) {
+            this.eventId = eventId;
+            this.time = time;
+            this.start = start;
+            this.name = name;
+        }
+    }
+
+    /** Orders reminders by time then event id, the same as the query. */
+    static final Comparator<Reminder> ORDER = (a, b) -> compare(a.time, a.eventId, b.time, b.eventId);
+
+    private final Clock clock;
+    private final Source source;
+    private final Listener listener;
+    private final int capacity;
+
+    private final PriorityQueue<Reminder> heap;
+    // the key of the last reminder fired and the key up to which reminders are in the heap
+    private long firedTime, loadedTime;
+    private UUID firedId, loadedId;
+    private boolean started;
+    private long alarm = -1;
+
+    /**
+     * @param clock the source of the current time
+     * @param source where reminders are loaded from
+     * @param listener told about alarms and due reminders
+     * @param capacity the number of reminders to keep loaded
+     */
+    public ReminderScheduler(@NonNull Clock clock, @NonNull Source source, @NonNull Listener listener, int capacity) {
+        if (capacity < 1) { throw new IllegalArgumentException("capacity must be positive: " + capacity); }
+        this.clock = clock;
+        this.source = source;
+        this.listener = listener;
+        this.capacity = capacity;
+        this.heap = new PriorityQueue<>(capacity + 1, ORDER);
+    }
+
+    /**
+     * Load the next reminders and set the alarm. Any reminders between the last run and now are
+     * fired right away.
+     * @param firedThrough the time everything was fired through when the app last ran (given to
+     *                     onFiredThrough()), or -1 if it has never run, to skip any past reminders
+     */
+    public synchronized void start(long firedThrough) {
+        firedTime = firedThrough < 0 ? clock.now() : firedThrough;
+        firedId = MAX_ID;
+        started = true;
+        load();
+        onAlarm();
+    }
+
+    /**
+     * Called when the alarm goes off (or at any other time) to fire the reminders that are due.
+     */
+    public synchronized void onAlarm() {
+        if (!started) { return; }
+        long now = clock.now();
+        List<Reminder> due = new ArrayList<>();
+        while (true) {
+            while (!heap.isEmpty() && heap.peek().time <= now) {
+                Reminder reminder = heap.poll();
+                firedTime = reminder.time;
+                firedId = reminder.eventId;
+                due.add(reminder);
+            }
+            // done once the heap is known to hold everything up to now
+            if (!heap.isEmpty() || compare(loadedTime, loadedId, now, MAX_ID) >= 0) { break; }
+            // everything loaded has been fired, so continue from the end of what was loaded
+            firedTime = loadedTime;
+            firedId = loadedId;
+            load();
+        }
+        if (compare(firedTime, firedId, now, MAX_ID) < 0) {
+            firedTime = now;
+            firedId = MAX_ID;
+        }
+        if (!due.isEmpty()) { listener.onRemindersDue(Collections.unmodifiableList(due)); }
+        listener.onFiredThrough(firedTime);
+        updateAlarm();
+    }
+
+    /**
+     * Update the reminders of events that were written. Only the reminders in the loaded range
+     * are touched, so this does not go to the database unless the heap is emptied.
+     * @param events the new values of the events that were added or changed
+     * @param removed the events that were removed
+     */
+    public synchronized void onEventsChanged(@NonNull Collection<Event> events, @NonNull Collection<Event> removed) {
+        if (!started) { return; }
+        Set<UUID> ids = new HashSet<>();
+        for (Event event : events) { ids.add(event.id); }
+        for (Event event : removed) { ids.add(event.id); }
+        for (Iterator<Reminder> it = heap.iterator(); it.hasNext(); ) {
+            if (ids.contains(it.next().eventId)) { it.remove(); }
+        }
+
+        List<Reminder> added = new ArrayList<>();
+        for (Event event : events) {
+            addReminders(event, firedTime, firedId, loadedTime, added);
+        }
+        for (Reminder reminder : added) {
+            if (compare(reminder.time, reminder.eventId, loadedTime, loadedId) > 0) { continue; }
+            heap.add(reminder);
+            if (heap.size() > capacity) { dropLast(); }
+        }
+        if (heap.isEmpty()) { load(); }
+        updateAlarm();
+    }
+
+    /**
+     * @return the loaded reminders in order, for debugging
+     */
+    public synchronized List<Reminder> getLoaded() {
+        List<Reminder> reminders = new ArrayList<>(heap);
+        Collections.sort(reminders, ORDER);
+        return reminders;
+    }
+
+    /**
+     * Add the reminders of an event after a position and up to a time, unordered. For a recurring
+     * series these are the reminders of its occurrences.
+     * @param event the event
+     * @param time the time of the position
+     * @param id the event id of the position
+     * @param until the latest time to add reminders up to, inclusive
+     * @param reminders where to add the reminders
+     */
+    public static void addReminders(@NonNull Event event, long time, @NonNull UUID id, long until,
+                                    @NonNull List<Reminder> reminders) {
+        if (event.reminderMinutes == null || event.occurrence) { return; }
+        long offset = event.reminderMinutes * MINUTE_MILLIS;
+        if (event.recurrence == null) {
+            long start = event.startTime.getTime();
+            if (isBetween(start - offset, event.id, time, id, until)) {
+                reminders.add(new Reminder(event.id, start - offset, start, event.name));
+            }
+            return;
+        }
+        // the occurrences starting from the position to until, offset by the reminder
+        long windowEnd = until > Long.MAX_VALUE - offset - 1 ? Long.MAX_VALUE : until + offset + 1;
+        for (long start : event.recurrence.expand(event.startTime.getTime(), 0, time + offset, windowEnd)) {
+            if (isBetween(start - offset, event.id, time, id, until)) {
+                reminders.add(new Reminder(event.id, start - offset, start, event.name));
+            }
+        }
+    }
+
+    /**
+     * Load the next reminders after the last one fired into the heap.
+     */
+    private void load() {
+        long until = firedTime > Long.MAX_VALUE - HORIZON_MILLIS ? Long.MAX_VALUE : firedTime + HORIZON_MILLIS;
+        List<Reminder> reminders = source.loadAfter(firedTime, firedId, until, capacity);
+        heap.clear();
+        heap.addAll(reminders);
+        if (reminders.size() >= capacity) {
+            // there may be more, so only up to the last one is loaded
+            Reminder last = reminders.get(reminders.size() - 1);
+            loadedTime = last.time;
+            loadedId = last.eventId;
+        } else {
+            loadedTime = until;
+            loadedId = MAX_ID;
+        }
+    }
+
+    /**
+     * Remove the last reminder from the heap, which then only holds reminders up to the new last.
+     */
+    private void dropLast() {
+        Reminder last = null;
+        for (Reminder reminder : heap) {
+            if (last == null || ORDER.compare(reminder, last) > 0) { last = reminder; }
+        }
+        heap.remove(last);
+        Reminder newLast = null;
+        for (Reminder reminder : heap) {
+            if (newLast == null || ORDER.compare(reminder, newLast) > 0) { newLast = reminder; }
+        }
+        loadedTime = newLast.time;
+        loadedId = newLast.eventId;
+    }
+
+    /**
+     * Tell the listener if the time of the next alarm changed. When nothing is loaded, the alarm
+     * is set for the end of the loaded range so reminders further ahead are looked for then.
+     */
+    private void updateAlarm() {
+        long next = !heap.isEmpty() ? heap.peek().time : loadedTime == Long.MAX_VALUE ? -1 : loadedTime;
+        if (next != alarm) {
+            alarm = next;
+            listener.onAlarmChanged(next);
+        }
+    }
+
+    private static boolean isBetween(long time, UUID id, long afterTime, UUID afterId, long until) {
+        return compare(time, id, afterTime, afterId) > 0 && time <= until;
+    }
+
+    private static int compare(long time1, UUID id1, long time2, UUID id2) {
+        int cmp = Long.compare(time1, time2);
+        return cmp != 0 ? cmp : CalendarTypeConverter.compareUuids(id1, id2);
+    }
+}
@@ -0,0 +1,35 @@
+package edu.moravian.csci299.mocalendar;
+
+import androidx.annotation.NonNull;
+
+import java.util.Date;
+
+/**
+ * A span of time, from a start time (inclusive) to an end time (exclusive).
+ */
+public class TimeSlot {
+    public final Date start;
+    public final Date end;
+
+    /**
+     * @param start the start in epoch milliseconds
+     * @param end the end in epoch milliseconds, after the start
+     */
+    public TimeSlot(long start, long end) {
+        this.start = new Date(start);
+        this.end = new Date(end);
+    }
+
+    /**
+     * @return the length of this slot in milliseconds
+     */
+    public long getDuration() {
+        return end.getTime() - start.getTime();
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "TimeSlot{" + start + " - " + end + "}";
+    }
+}
@@ -0,0 +1,104 @@
+package edu.moravian.csci299.mocalendar;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * The layout of the events of a single day on a timeline: overlapping events are placed side by
+ * side in columns. Columns are assigned by coloring the interval graph of the events: visiting the
+ * events in order of start time, each one takes the lowest column that is free at its start. This
+ * uses the fewest columns possible for each group of overlapping events, in O(n log n) time. Each
+ * group is then given the width of its own number of columns.
+ * <p>
+ * Short events and events without an end time (such as assignments) are given a minimum length
+ * so they can be seen and do not hide each other. A layout is immutable and safe to compute on
+ * any thread.
+ */
+public class TimelineLayout {
+    /** The minimum length of a block on the timeline. */
+    static final long MIN_BLOCK_MILLIS = 30 * 60 * 1000;
+
+    /**
+     * An event placed on the timeline.
+     */
+    public static class Block {
+        public final Event event;
+        /** The span of the block within the day, in epoch milliseconds. */
+        public final long start, end;
+        /** The column of the event (0 is the leftmost) and the number of columns it shares. */
+        public final int column, columns;
+
+        Block(Event event, long start, long end, int column, int columns) {
+            this.event = event;
+            this.start = start;
+            this.end = end;
+            this.column = column;
+            this.columns = columns;
+        }
+    }
+
+    /** The start and end of the day in epoch milliseconds. */
+    public final long day, dayEnd;
+
+    /** The blocks of the day ordered by start time. */
+    public final List<Block> blocks;
+
+    /** The events the layout was computed from, to tell if a cached layout is still current. */
+    final List<Event> source;
+
+    private TimelineLayout(long day, long dayEnd, List<Block> blocks, List<Event> source) {
+        this.day = day;
+        this.dayEnd = dayEnd;
+        this.blocks = blocks;
+        this.source = source;
+    }
+
+    /**
+     * Compute the layout of the events of a day.
+     * @param day the start of the day in epoch milliseconds
+     * @param events the events that overlap the day, ordered by start time
+     * @return the layout of the events
+     */
+    public static TimelineLayout compute(long day, List<Event> events) {
+        long dayEnd = DateUtils.atMinuteOfDay(day, FreeSlotFinder.MINUTES_PER_DAY);
+        int n = events.size();
+        long[] starts = new long[n], ends = new long[n];
+        int[] columns = new int[n];
+        List<Block> blocks = new ArrayList<>(n);
+
+        // the events still running (by end time) and the columns they have freed up
+        PriorityQueue<long[]> running = new PriorityQueue<>(Math.max(1, n), (a, b) -> Long.compare(a[0], b[0]));
+        PriorityQueue<Integer> free = new PriorityQueue<>();
+        int used = 0, groupStart = 0;
+        for (int i = 0; i < n; i++) {
+            Event event = events.get(i);
+            starts[i] = Math.max(day, event.startTime.getTime());
+            long end = event.endTime == null ? starts[i] : event.endTime.getTime();
+            ends[i] = Math.min(dayEnd, Math.max(end, starts[i] + MIN_BLOCK_MILLIS));
+            // release the columns of the events that have ended
+            while (!running.isEmpty() && running.peek()[0] <= starts[i]) {
+                free.add((int) running.poll()[1]);
+            }
+            if (running.isEmpty()) {
+                // nothing overlaps this event so the previous group is complete
+                finishGroup(blocks, events, starts, ends, columns, groupStart, i, used);
+                groupStart = i;
+                used = 0;
+                free.clear();
+            }
+            columns[i] = free.isEmpty() ? used++ : free.poll();
+            running.add(new long[] {ends[i], columns[i]});
+        }
+        finishGroup(blocks, events, starts, ends, columns, groupStart, n, used);
+        return new TimelineLayout(day, dayEnd, Collections.unmodifiableList(blocks), events);
+    }
+
+    private static void finishGroup(List<Block> blocks, List<Event> events, long[] starts, long[] ends,
+                                    int[] columns, int from, int to, int used) {
+        for (int i = from; i < to; i++) {
+            blocks.add(new Block(events.get(i), starts[i], ends[i], columns[i], used));
+        }
+    }
+}
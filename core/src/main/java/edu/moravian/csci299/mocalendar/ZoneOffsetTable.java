@@ -0,0 +1,110 @@
+package edu.moravian.csci299.mocalendar;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * A precomputed table of the UTC offset changes (daylight saving time and other transitions) of a
+ * time zone. Looking up the offset at a time is a binary search over primitive arrays, so it does
+ * not allocate and does not need to go through TimeZone or Calendar.
+ */
+final class ZoneOffsetTable {
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000;
+
+    /** The span of time covered by the table: 1900 to 2100. Outside of it the zone is asked. */
+    private static final long TABLE_START = -2208988800000L, TABLE_END = 4102444800000L;
+
+    private final TimeZone zone;
+    /** The times (in UTC epoch milliseconds) that the offset changes, in order. */
+    private final long[] transitions;
+    /** offsets[i] is the offset before transitions[i]; the last is the offset after all of them. */
+    private final int[] offsets;
+
+    private ZoneOffsetTable(TimeZone zone, long[] transitions, int[] offsets) {
+        this.zone = zone;
+        this.transitions = transitions;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Build the table for a time zone. This probes the zone once a week and narrows down each
+     * change to the millisecond, which takes a few milliseconds, so tables should be reused.
+     * @param zone the time zone
+     * @return the table for the zone
+     */
+    static ZoneOffsetTable of(@NonNull TimeZone zone) {
+        TimeZone tz = (TimeZone) zone.clone();
+        List<Long> transitions = new ArrayList<>();
+        List<Integer> offsets = new ArrayList<>();
+        int offset = tz.getOffset(TABLE_START);
+        offsets.add(offset);
+        for (long t = TABLE_START; t < TABLE_END; t += 7 * DAY_MILLIS) {
+            long next = Math.min(t + 7 * DAY_MILLIS, TABLE_END);
+            int nextOffset = tz.getOffset(next);
+            if (nextOffset != offset) {
+                // binary search for the first millisecond with the new offset
+                long lo = t, hi = next;
+                while (hi - lo > 1) {
+                    long mid = lo + (hi - lo) / 2;
+                    if (tz.getOffset(mid) == offset) { lo = mid; } else { hi = mid; }
+                }
+                transitions.add(hi);
+                offsets.add(nextOffset);
+                offset = nextOffset;
+            }
+        }
+        long[] transitionArray = new long[transitions.size()];
+        int[] offsetArray = new int[offsets.size()];
+        for (int i = 0; i < transitionArray.length; i++) { transitionArray[i] = transitions.get(i); }
+        for (int i = 0; i < offsetArray.length; i++) { offsetArray[i] = offsets.get(i); }
+        return new ZoneOffsetTable(tz, transitionArray, offsetArray);
+    }
+
+    /**
+     * @return the time zone this table is for
+     */
+    TimeZone getZone() {
+        return zone;
+    }
+
+    /**
+     * @param utcMillis a time in UTC epoch milliseconds
+     * @return the offset from UTC to local time at that time, in milliseconds
+     */
+    int getOffset(long utcMillis) {
+        if (utcMillis < TABLE_START || utcMillis >= TABLE_END) { return zone.getOffset(utcMillis); }
+        int i = Arrays.binarySearch(transitions, utcMillis);
+        return offsets[i >= 0 ? i + 1 : -i - 1];
+    }
+
+    /**
+     * @param utcMillis a time in UTC epoch milliseconds
+     * @return the same time as local "epoch" milliseconds (the local wall clock time as if it
+     *         were in UTC)
+     */
+    long toLocal(long utcMillis) {
+        return utcMillis + getOffset(utcMillis);
+    }
+
+    /**
+     * Convert a local wall clock time to UTC. Times that do not exist locally (skipped when the
+     * clocks move forward) are moved forward by the size of the gap, like a lenient
+     * GregorianCalendar. Times that occur twice resolve to one of the two.
+     * @param localMillis local "epoch" milliseconds
+     * @return the UTC epoch milliseconds
+     */
+    long toUtc(long localMillis) {
+        int a = getOffset(localMillis - getOffset(localMillis));
+        long utc = localMillis - a;
+        int b = getOffset(utc);
+        if (a == b) { return utc; }
+        long other = localMillis - b;
+        if (getOffset(other) == b) { return other; }
+        // in a gap: the offset before the gap is the smaller one
+        return localMillis - Math.min(a, b);
+    }
+}
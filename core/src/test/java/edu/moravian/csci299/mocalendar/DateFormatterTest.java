@@ -0,0 +1,139 @@
+package edu.moravian.csci299.mocalendar;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.text.DateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DateFormatterTest {
+    private static final int THREADS = 8;
+    private static final int ITERATIONS = 20000;
+    private static final long START = 1609459200000L; // 2021-01-01T00:00:00Z
+    private static final long RANGE = 2L * 366 * 24 * 60 * 60 * 1000;
+
+    private TimeZone originalZone;
+
+    @Before
+    public void setUp() {
+        originalZone = DateUtils.getTimeZone();
+        // a zone with daylight saving time so days are not all the same length
+        DateUtils.setTimeZone(TimeZone.getTimeZone("America/New_York"));
+    }
+
+    @After
+    public void tearDown() {
+        DateUtils.setTimeZone(originalZone);
+    }
+
+    @Test
+    public void matchesDateFormatFromManyThreads() throws Exception {
+        final Locale[] locales = {Locale.US, Locale.FRANCE, Locale.GERMANY};
+        final TimeZone zone = DateUtils.getTimeZone();
+        final CountDownLatch ready = new CountDownLatch(THREADS);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                final long seed = t;
+                results.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        Random random = new Random(seed);
+                        ready.countDown();
+                        ready.await();
+                        for (int i = 0; i < ITERATIONS; i++) {
+                            // all threads share the caches, colliding in the same slots
+                            long time = START + (long) (random.nextDouble() * RANGE);
+                            Locale locale = locales[random.nextInt(locales.length)];
+                            DateFormatter formatter = DateFormatter.forLocale(locale);
+                            String mismatch = compare(formatter.toFullDateString(time),
+                                    DateFormat.getDateInstance(DateFormat.FULL, locale), locale, zone, time);
+                            if (mismatch == null) {
+                                mismatch = compare(formatter.toDateString(time),
+                                        DateFormat.getDateInstance(DateFormat.LONG, locale), locale, zone, time);
+                            }
+                            if (mismatch == null) {
+                                mismatch = compare(formatter.toTimeString(time),
+                                        DateFormat.getTimeInstance(DateFormat.SHORT, locale), locale, zone, time);
+                            }
+                            if (mismatch != null) { return mismatch; }
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<String> result : results) {
+                String mismatch = result.get(60, TimeUnit.SECONDS);
+                assertTrue(mismatch, mismatch == null);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void followsTheTimeZone() {
+        DateFormatter formatter = DateFormatter.forLocale(Locale.US);
+        long time = 1617321600000L; // 2021-04-02T00:00:00Z
+        assertEquals("8:00 PM", formatter.toTimeString(time));
+        assertEquals("April 1, 2021", formatter.toDateString(time));
+
+        DateUtils.setTimeZone(TimeZone.getTimeZone("Europe/Paris"));
+        assertEquals("2:00 AM", formatter.toTimeString(time));
+        assertEquals("April 2, 2021", formatter.toDateString(time));
+        assertEquals("Friday, April 2, 2021", formatter.toFullDateString(time));
+    }
+
+    @Test
+    public void usesTheLocalesOwnFormats() {
+        long time = 1617321600000L; // 2021-04-02T00:00:00Z
+        DateUtils.setTimeZone(TimeZone.getTimeZone("Europe/Paris"));
+        DateFormatter french = DateFormatter.forLocale(Locale.FRANCE);
+        assertEquals("02:00", french.toTimeString(time));
+        assertEquals("2 avril 2021", french.toDateString(time));
+        assertEquals("vendredi 2 avril 2021", french.toFullDateString(time));
+        DateFormatter german = DateFormatter.forLocale(Locale.GERMANY);
+        assertEquals("2. April 2021", german.toDateString(time));
+        assertEquals("Freitag, 2. April 2021", german.toFullDateString(time));
+    }
+
+    @Test
+    public void formatsTimesBeforeTheEpoch() {
+        DateFormatter formatter = DateFormatter.forLocale(Locale.US);
+        long time = -90000; // 1969-12-31T23:58:30Z
+        assertEquals(format(DateFormat.getTimeInstance(DateFormat.SHORT, Locale.US), DateUtils.getTimeZone(), time),
+                formatter.toTimeString(time));
+        assertEquals("December 31, 1969", formatter.toDateString(time));
+    }
+
+    /**
+     * @return a description of the difference between the formatted text and what a new
+     *         DateFormat gives, or null if they are the same
+     */
+    private static String compare(String text, DateFormat format, Locale locale, TimeZone zone, long time) {
+        String expected = format(format, zone, time);
+        return expected.equals(text) ? null :
+                "format of " + time + " in " + locale + ": expected " + expected + " but was " + text;
+    }
+
+    private static String format(DateFormat format, TimeZone zone, long time) {
+        format.setTimeZone(zone);
+        return format.format(new Date(time));
+    }
+}
@@ -0,0 +1,138 @@
+package edu.moravian.csci299.mocalendar;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class FreeSlotFinderTest {
+    private static final long HOUR = 60 * 60 * 1000;
+    private static final int NINE = 9 * 60, FIVE = 17 * 60;
+
+    private TimeZone originalZone;
+    private long day;
+    private FreeSlotFinder workday;
+
+    @Before
+    public void setUp() {
+        originalZone = DateUtils.getTimeZone();
+        DateUtils.setTimeZone(TimeZone.getTimeZone("America/New_York"));
+        day = DateUtils.startOfDay(1617321600000L); // Thursday April 1, 2021
+        workday = new FreeSlotFinder(NINE, FIVE, HOUR / 2);
+    }
+
+    @After
+    public void tearDown() {
+        DateUtils.setTimeZone(originalZone);
+    }
+
+    @Test
+    public void emptyCalendarIsFreeAllWorkday() {
+        List<Event> none = Collections.emptyList();
+        assertSlots(workday.findFreeSlots(none, day, nextDay(day)), at(day, 9), at(day, 17));
+        long third = nextDay(nextDay(day));
+        assertSlots(workday.findFreeSlots(none, day, nextDay(third)),
+                at(day, 9), at(day, 17), at(nextDay(day), 9), at(nextDay(day), 17), at(third, 9), at(third, 17));
+    }
+
+    @Test
+    public void freeTimeAcrossMidnightIsOneSlot() {
+        FreeSlotFinder anyTime = FreeSlotFinder.anyTime(HOUR);
+        List<Event> events = Arrays.asList(event(at(day, 22), at(day, 23)), event(at(nextDay(day), 2), at(nextDay(day), 3)));
+        assertSlots(anyTime.findFreeSlots(events, at(day, 20), at(nextDay(day), 6)),
+                at(day, 20), at(day, 22), at(day, 23), at(nextDay(day), 2), at(nextDay(day), 3), at(nextDay(day), 6));
+    }
+
+    @Test
+    public void backToBackEventsLeaveNoGap() {
+        List<Event> events = Arrays.asList(event(at(day, 10), at(day, 11)), event(at(day, 11), at(day, 12)),
+                event(at(day, 12), at(day, 13)));
+        assertSlots(workday.findFreeSlots(events, day, nextDay(day)), at(day, 9), at(day, 10), at(day, 13), at(day, 17));
+    }
+
+    @Test
+    public void overlappingEventsAreMerged() {
+        // not in order, one inside another and two that only overlap
+        List<Event> events = Arrays.asList(event(at(day, 14), at(day, 16)), event(at(day, 10), at(day, 12)),
+                event(at(day, 10) + HOUR / 4, at(day, 11)), event(at(day, 11), at(day, 13)));
+        assertSlots(workday.findFreeSlots(events, day, nextDay(day)),
+                at(day, 9), at(day, 10), at(day, 13), at(day, 14), at(day, 16), at(day, 17));
+    }
+
+    @Test
+    public void eventsSpanningTheRangeFillIt() {
+        long before = DateUtils.addDays(day, -1), after = DateUtils.addDays(day, 2);
+        List<Event> events = Collections.singletonList(event(at(before, 12), at(after, 12)));
+        assertEquals(0, workday.findFreeSlots(events, day, after).size());
+        assertNull(workday.findFirstFreeSlot(events, day, after));
+
+        // one starting before the range and one ending after it only cover its ends
+        events = Arrays.asList(event(at(before, 12), at(day, 11)), event(at(day, 15), at(after, 12)));
+        assertSlots(workday.findFreeSlots(events, day, nextDay(day)), at(day, 11), at(day, 15));
+    }
+
+    @Test
+    public void eventsWithoutAnEndTakeNoTime() {
+        Event assignment = event(at(day, 12), at(day, 12));
+        assignment.endTime = null;
+        List<Event> events = Arrays.asList(assignment, event(at(day, 14), at(day, 15)));
+        assertSlots(workday.findFreeSlots(events, day, nextDay(day)), at(day, 9), at(day, 14), at(day, 15), at(day, 17));
+    }
+
+    @Test
+    public void shortGapsAreSkipped() {
+        // a 15 minute gap between the two events
+        List<Event> events = Arrays.asList(event(at(day, 9), at(day, 10)), event(at(day, 10) + HOUR / 4, at(day, 16)));
+        assertSlots(workday.findFreeSlots(events, day, nextDay(day)), at(day, 16), at(day, 17));
+        TimeSlot first = workday.findFirstFreeSlot(events, day, nextDay(day));
+        assertEquals(at(day, 16), first.start.getTime());
+    }
+
+    @Test
+    public void daysFollowDaylightSavingTime() {
+        long spring = DateUtils.startOfDay(1615723200000L); // Sunday March 14, 2021
+        List<TimeSlot> slots = FreeSlotFinder.anyTime(HOUR).findFreeSlots(Collections.<Event>emptyList(), spring, nextDay(spring));
+        assertEquals(1, slots.size());
+        assertEquals(23 * HOUR, slots.get(0).getDuration());
+        assertSlots(workday.findFreeSlots(Collections.<Event>emptyList(), spring, nextDay(nextDay(spring))),
+                at(spring, 9), at(spring, 17), at(nextDay(spring), 9), at(nextDay(spring), 17));
+    }
+
+    /**
+     * Check the slots found against their start and end times, one after the other.
+     */
+    private static void assertSlots(List<TimeSlot> slots, long... bounds) {
+        List<Long> actual = new ArrayList<>();
+        for (TimeSlot slot : slots) {
+            actual.add(slot.start.getTime());
+            actual.add(slot.end.getTime());
+        }
+        List<Long> expected = new ArrayList<>();
+        for (long bound : bounds) { expected.add(bound); }
+        assertEquals(expected, actual);
+    }
+
+    private static long at(long day, int hour) {
+        return DateUtils.atMinuteOfDay(day, hour * 60);
+    }
+
+    private static long nextDay(long day) {
+        return DateUtils.addDays(day, 1);
+    }
+
+    private static Event event(long start, long end) {
+        Event event = new Event();
+        event.startTime = new Date(start);
+        event.endTime = new Date(end);
+        return event;
+    }
+}
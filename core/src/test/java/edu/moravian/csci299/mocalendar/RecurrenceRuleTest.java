@@ -0,0 +1,57 @@
+package edu.moravian.csci299.mocalendar;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+
+public class RecurrenceRuleTest {
+    private TimeZone originalDefault, originalZone;
+
+    @Before
+    public void setUp() {
+        originalDefault = TimeZone.getDefault();
+        originalZone = DateUtils.getTimeZone();
+        // the JVM's default zone is not the one the app calculates dates in
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Tokyo"));
+        DateUtils.setTimeZone(TimeZone.getTimeZone("America/New_York"));
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(originalDefault);
+        DateUtils.setTimeZone(originalZone);
+    }
+
+    @Test
+    public void weeklyOccurrencesKeepTheirLocalTimeInDateUtilsZone() {
+        // Mondays at 10:00 in New York, across the change to daylight saving time on March 14
+        long seriesStart = DateUtils.atMinuteOfDay(DateUtils.dateMillis(2021, 2, 1), 10 * 60);
+        RecurrenceRule rule = new RecurrenceRule(RecurrenceRule.Frequency.WEEKLY, 1, 0, null, 0);
+        List<Long> starts = rule.expand(seriesStart, 3600000, seriesStart, DateUtils.dateMillis(2021, 3, 1));
+        assertEquals(5, starts.size());
+        for (int i = 0; i < starts.size(); i++) {
+            long day = DateUtils.dateMillis(2021, 2, 1 + 7 * i);
+            assertEquals(DateUtils.atMinuteOfDay(day, 10 * 60), (long) starts.get(i));
+        }
+    }
+
+    @Test
+    public void weeklyDaysAreThoseOfDateUtilsZone() {
+        // 21:00 on a Monday in New York is already Tuesday in Tokyo
+        long seriesStart = DateUtils.atMinuteOfDay(DateUtils.dateMillis(2021, 2, 1), 21 * 60);
+        int mondayAndWednesday = (1 << (Calendar.MONDAY - Calendar.SUNDAY)) | (1 << (Calendar.WEDNESDAY - Calendar.SUNDAY));
+        RecurrenceRule rule = new RecurrenceRule(RecurrenceRule.Frequency.WEEKLY, 1, mondayAndWednesday, null, 4);
+        List<Long> starts = rule.expand(seriesStart, 0, seriesStart, Long.MAX_VALUE);
+        int[] days = {1, 3, 8, 10};
+        assertEquals(days.length, starts.size());
+        for (int i = 0; i < days.length; i++) {
+            assertEquals(DateUtils.atMinuteOfDay(DateUtils.dateMillis(2021, 2, days[i]), 21 * 60), (long) starts.get(i));
+        }
+    }
+}
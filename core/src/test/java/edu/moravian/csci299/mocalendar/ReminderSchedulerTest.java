@@ -0,0 +1,272 @@
+package edu.moravian.csci299.mocalendar;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ReminderSchedulerTest {
+    private static final long MINUTE = 60 * 1000;
+    private static final long T0 = 1617249600000L; // 2021-04-01T04:00:00Z
+
+    private FakeClock clock;
+    private FakeSource source;
+    private RecordingListener listener;
+
+    @Before
+    public void setUp() {
+        clock = new FakeClock(T0);
+        source = new FakeSource();
+        listener = new RecordingListener();
+    }
+
+    @Test
+    public void firesRemindersInTimeThenIdOrder() {
+        Event a = event(new UUID(0, 2), T0 + 30 * MINUTE, 10);
+        Event b = event(new UUID(0, 1), T0 + 30 * MINUTE, 10);
+        Event c = event(new UUID(0, 3), T0 + 15 * MINUTE, 10);
+        Event d = event(new UUID(-1, 0), T0 + 60 * MINUTE, 5);
+        source.events.addAll(Arrays.asList(a, b, c, d));
+        // a small capacity so the heap has to be reloaded along the way
+        ReminderScheduler scheduler = new ReminderScheduler(clock, source, listener, 2);
+        scheduler.start(-1);
+        assertEquals(T0 + 5 * MINUTE, listener.alarm);
+
+        runUntil(scheduler, T0 + 2 * 60 * MINUTE);
+        assertEquals(Arrays.asList(c.id, b.id, a.id, d.id), firedIds());
+        assertEquals(Arrays.asList(T0 + 5 * MINUTE, T0 + 20 * MINUTE, T0 + 20 * MINUTE, T0 + 55 * MINUTE), firedTimes());
+    }
+
+    @Test
+    public void firesEveryOccurrenceOfARecurringEvent() {
+        Event series = event(new UUID(0, 1), T0 + 60 * MINUTE, 15);
+        series.recurrence = new RecurrenceRule(RecurrenceRule.Frequency.DAILY, 1, 0, null, 3);
+        source.events.add(series);
+        ReminderScheduler scheduler = new ReminderScheduler(clock, source, listener, 4);
+        scheduler.start(-1);
+
+        runUntil(scheduler, T0 + 5 * 24 * 60 * MINUTE);
+        long day = 24 * 60 * MINUTE;
+        assertEquals(Arrays.asList(T0 + 45 * MINUTE, T0 + 45 * MINUTE + day, T0 + 45 * MINUTE + 2 * day), firedTimes());
+    }
+
+    @Test
+    public void skipsPastRemindersOnFirstStart() {
+        source.events.add(event(new UUID(0, 1), T0 - 30 * MINUTE, 10));
+        Event upcoming = event(new UUID(0, 2), T0 + 30 * MINUTE, 10);
+        source.events.add(upcoming);
+        ReminderScheduler scheduler = new ReminderScheduler(clock, source, listener, 4);
+        scheduler.start(-1);
+
+        assertTrue(listener.fired.isEmpty());
+        assertEquals(T0 + 20 * MINUTE, listener.alarm);
+        runUntil(scheduler, T0 + 60 * MINUTE);
+        assertEquals(Collections.singletonList(upcoming.id), firedIds());
+    }
+
+    @Test
+    public void addedEventInsideLoadedRangeIsScheduledWithoutLoading() {
+        source.events.add(event(new UUID(0, 1), T0 + 60 * MINUTE, 10));
+        source.events.add(event(new UUID(0, 2), T0 + 90 * MINUTE, 10));
+        ReminderScheduler scheduler = new ReminderScheduler(clock, source, listener, 4);
+        scheduler.start(-1);
+        int loads = source.loads;
+
+        Event added = event(new UUID(0, 3), T0 + 20 * MINUTE, 10);
+        source.events.add(added);
+        scheduler.onEventsChanged(Collections.singletonList(added), Collections.<Event>emptyList());
+        assertEquals(loads, source.loads);
+        assertEquals(T0 + 10 * MINUTE, listener.alarm);
+        assertEquals(added.id, scheduler.getLoaded().get(0).eventId);
+    }
+
+    @Test
+    public void addedEventOutsideLoadedRangeIsLoadedLater() {
+        for (int i = 1; i <= 4; i++) {
+            source.events.add(event(new UUID(0, i), T0 + i * 60 * MINUTE, 10));
+        }
+        ReminderScheduler scheduler = new ReminderScheduler(clock, source, listener, 2);
+        scheduler.start(-1);
+
+        Event later = event(new UUID(0, 9), T0 + 10 * 60 * MINUTE, 10);
+        source.events.add(later);
+        scheduler.onEventsChanged(Collections.singletonList(later), Collections.<Event>emptyList());
+        assertEquals(2, scheduler.getLoaded().size());
+        for (ReminderScheduler.Reminder reminder : scheduler.getLoaded()) {
+            assertTrue(!reminder.eventId.equals(later.id));
+        }
+
+        runUntil(scheduler, T0 + 12 * 60 * MINUTE);
+        assertEquals(5, listener.fired.size());
+        assertEquals(later.id, listener.fired.get(4).eventId);
+    }
+
+    @Test
+    public void movedAndRemovedEventsReplaceTheirReminders() {
+        Event moved = event(new UUID(0, 1), T0 + 60 * MINUTE, 10);
+        Event removed = event(new UUID(0, 2), T0 + 30 * MINUTE, 10);
+        source.events.addAll(Arrays.asList(moved, removed));
+        ReminderScheduler scheduler = new ReminderScheduler(clock, source, listener, 4);
+        scheduler.start(-1);
+        assertEquals(T0 + 20 * MINUTE, listener.alarm);
+
+        Event changed = moved.copy();
+        changed.startTime = new Date(T0 + 120 * MINUTE);
+        source.events.remove(moved);
+        source.events.remove(removed);
+        source.events.add(changed);
+        scheduler.onEventsChanged(Collections.singletonList(changed), Collections.singletonList(removed));
+        assertEquals(T0 + 110 * MINUTE, listener.alarm);
+
+        runUntil(scheduler, T0 + 3 * 60 * MINUTE);
+        assertEquals(Collections.singletonList(changed.id), firedIds());
+        assertEquals(Collections.singletonList(T0 + 110 * MINUTE), firedTimes());
+    }
+
+    @Test
+    public void addingPastCapacityDropsTheLastReminder() {
+        Event first = event(new UUID(0, 1), T0 + 60 * MINUTE, 10);
+        Event second = event(new UUID(0, 2), T0 + 120 * MINUTE, 10);
+        Event third = event(new UUID(0, 3), T0 + 180 * MINUTE, 10);
+        source.events.addAll(Arrays.asList(first, second, third));
+        ReminderScheduler scheduler = new ReminderScheduler(clock, source, listener, 2);
+        scheduler.start(-1);
+        assertEquals(Arrays.asList(first.id, second.id), loadedIds(scheduler));
+
+        Event earlier = event(new UUID(0, 4), T0 + 30 * MINUTE, 10);
+        source.events.add(earlier);
+        scheduler.onEventsChanged(Collections.singletonList(earlier), Collections.<Event>emptyList());
+        assertEquals(Arrays.asList(earlier.id, first.id), loadedIds(scheduler));
+
+        // the dropped reminder is loaded again once it is reached
+        runUntil(scheduler, T0 + 4 * 60 * MINUTE);
+        assertEquals(Arrays.asList(earlier.id, first.id, second.id, third.id), firedIds());
+    }
+
+    @Test
+    public void restartFiresWhatWasMissedExactlyOnce() {
+        Event first = event(new UUID(0, 1), T0 + 60 * MINUTE, 10);
+        Event second = event(new UUID(0, 2), T0 + 120 * MINUTE, 10);
+        Event third = event(new UUID(0, 3), T0 + 180 * MINUTE, 10);
+        source.events.addAll(Arrays.asList(first, second, third));
+        ReminderScheduler scheduler = new ReminderScheduler(clock, source, listener, 2);
+        scheduler.start(-1);
+        runUntil(scheduler, T0 + 60 * MINUTE);
+        assertEquals(Collections.singletonList(first.id), firedIds());
+        long firedThrough = listener.firedThrough;
+        assertEquals(T0 + 60 * MINUTE, firedThrough);
+
+        // the app is stopped past the second reminder and started again
+        clock.now = T0 + 150 * MINUTE;
+        RecordingListener restarted = new RecordingListener();
+        ReminderScheduler next = new ReminderScheduler(clock, source, restarted, 2);
+        next.start(firedThrough);
+        assertEquals(1, restarted.fired.size());
+        assertEquals(second.id, restarted.fired.get(0).eventId);
+        assertEquals(T0 + 170 * MINUTE, restarted.alarm);
+    }
+
+    /**
+     * Advance the clock from alarm to alarm up to a time, firing the reminders at each one.
+     */
+    private void runUntil(ReminderScheduler scheduler, long time) {
+        for (int i = 0; listener.alarm >= 0 && listener.alarm <= time; i++) {
+            assertTrue("too many alarms", i < 1000);
+            clock.now = Math.max(clock.now, listener.alarm);
+            scheduler.onAlarm();
+        }
+        clock.now = time;
+        scheduler.onAlarm();
+    }
+
+    private List<UUID> firedIds() {
+        List<UUID> ids = new ArrayList<>();
+        for (ReminderScheduler.Reminder reminder : listener.fired) { ids.add(reminder.eventId); }
+        return ids;
+    }
+
+    private List<Long> firedTimes() {
+        List<Long> times = new ArrayList<>();
+        for (ReminderScheduler.Reminder reminder : listener.fired) { times.add(reminder.time); }
+        return times;
+    }
+
+    private static List<UUID> loadedIds(ReminderScheduler scheduler) {
+        List<UUID> ids = new ArrayList<>();
+        for (ReminderScheduler.Reminder reminder : scheduler.getLoaded()) { ids.add(reminder.eventId); }
+        return ids;
+    }
+
+    private static Event event(UUID id, long start, int reminderMinutes) {
+        Event event = new Event();
+        event.id = id;
+        event.name = "Event " + id.getLeastSignificantBits();
+        event.startTime = new Date(start);
+        event.endTime = new Date(start + 30 * MINUTE);
+        event.reminderMinutes = reminderMinutes;
+        return event;
+    }
+
+    private static class FakeClock implements ReminderScheduler.Clock {
+        long now;
+
+        FakeClock(long now) {
+            this.now = now;
+        }
+
+        @Override
+        public long now() {
+            return now;
+        }
+    }
+
+    /**
+     * Loads reminders from a list of events the slow way, which the scheduler should agree with.
+     */
+    private static class FakeSource implements ReminderScheduler.Source {
+        final List<Event> events = new ArrayList<>();
+        int loads;
+
+        @Override
+        public List<ReminderScheduler.Reminder> loadAfter(long time, UUID id, long until, int limit) {
+            loads++;
+            List<ReminderScheduler.Reminder> reminders = new ArrayList<>();
+            for (Event event : events) {
+                ReminderScheduler.addReminders(event, time, id, until, reminders);
+            }
+            Collections.sort(reminders, ReminderScheduler.ORDER);
+            return reminders.size() > limit ? new ArrayList<>(reminders.subList(0, limit)) : reminders;
+        }
+    }
+
+    private static class RecordingListener implements ReminderScheduler.Listener {
+        final List<ReminderScheduler.Reminder> fired = new ArrayList<>();
+        long alarm = -1;
+        long firedThrough = -1;
+
+        @Override
+        public void onAlarmChanged(long time) {
+            alarm = time;
+        }
+
+        @Override
+        public void onRemindersDue(@NonNull List<ReminderScheduler.Reminder> reminders) {
+            fired.addAll(reminders);
+        }
+
+        @Override
+        public void onFiredThrough(long time) {
+            firedThrough = time;
+        }
+    }
+}